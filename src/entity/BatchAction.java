@@ -0,0 +1,7 @@
+package entity;
+
+public enum BatchAction {
+    CREATE,
+    UPDATE,
+    DELETE
+}
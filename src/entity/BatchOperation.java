@@ -0,0 +1,44 @@
+package entity;
+
+// Одна операция пакетного изменения задач
+public class BatchOperation {
+    private final BatchAction action;
+    private final TaskTypes type;
+    private final int id;
+    private final Task task;
+
+    // Конструктор для создания или обновления задачи
+    public BatchOperation(BatchAction action, Task task) {
+        if (action == BatchAction.DELETE) {
+            throw new IllegalArgumentException("Для удаления нужны тип и идентификатор задачи");
+        }
+        this.action = action;
+        this.type = task.getType();
+        this.id = task.getId();
+        this.task = task;
+    }
+
+    // Конструктор для удаления задачи
+    public BatchOperation(TaskTypes type, int id) {
+        this.action = BatchAction.DELETE;
+        this.type = type;
+        this.id = id;
+        this.task = null;
+    }
+
+    public BatchAction getAction() {
+        return action;
+    }
+
+    public TaskTypes getType() {
+        return type;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+}
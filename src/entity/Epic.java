@@ -1,11 +1,11 @@
 package entity;
 
+import util.IntHashSet;
+
 import java.time.LocalDateTime;
-import java.util.HashSet;
-import java.util.Set;
 
 public class Epic extends Task {
-    private final Set<Integer> subtaskIds = new HashSet<>();
+    private final IntHashSet subtaskIds = new IntHashSet();
     private LocalDateTime endTime;
 
     public Epic(String name, String description) {
@@ -29,7 +29,7 @@ public class Epic extends Task {
         this.endTime = endTime;
     }
 
-    public Set<Integer> getSubtaskIds() {
+    public IntHashSet getSubtaskIds() {
         return subtaskIds;
     }
 
@@ -0,0 +1,80 @@
+package entity;
+
+import java.time.LocalDateTime;
+
+// Запрос страницы задач одного типа: задачи по возрастанию id после курсора
+// с необязательными фильтрами по статусу и по времени
+public class TaskQuery {
+    private final int afterId;
+    private final int limit;
+    private Status status;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    // Не больше limit задач с id больше afterId; при afterId, равном 0, страница начинается с первой задачи
+    public TaskQuery(int afterId, int limit) {
+        if (afterId < 0 || limit <= 0) {
+            throw new IllegalArgumentException("Некорректная страница: после " + afterId + ", размер " + limit);
+        }
+        this.afterId = afterId;
+        this.limit = limit;
+    }
+
+    // Только задачи с указанным статусом
+    public TaskQuery withStatus(Status status) {
+        this.status = status;
+        return this;
+    }
+
+    // Только задачи, время которых пересекается с окном [from, to); любая из границ может быть null.
+    // Задача без продолжительности попадает в окно, если её старт внутри окна, задача без времени не попадает.
+    public TaskQuery withTimeRange(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("Конец окна раньше начала");
+        }
+        this.from = from;
+        this.to = to;
+        return this;
+    }
+
+    public int getAfterId() {
+        return afterId;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public boolean matches(Task task) {
+        return matches(task.getStatus(), task.getStartTime(), task.getEndTime());
+    }
+
+    // Проверка по статусу и времени, когда сама задача ещё не прочитана
+    public boolean matches(Status status, LocalDateTime startTime, LocalDateTime endTime) {
+        if (this.status != null && this.status != status) {
+            return false;
+        }
+        if (from == null && to == null) {
+            return true;
+        }
+        if (startTime == null) {
+            return false;
+        }
+        if (to != null && !startTime.isBefore(to)) {
+            return false;
+        }
+        return from == null || !startTime.isBefore(from) || (endTime != null && endTime.isAfter(from));
+    }
+}
@@ -0,0 +1,162 @@
+package http;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+// Ограничение числа одновременно обрабатываемых запросов.
+// Запрос сверх общего предела сразу получает 503, сверх предела своего пути - 429,
+// оба ответа с заголовком Retry-After. Так при всплеске нагрузки клиенты быстро узнают,
+// что нужно повторить позже, а не ждут в очереди, пока истечёт время ожидания.
+// Фильтр работает в исполнителе сервера, поэтому запросы, которые ждут в его очереди, пределами не видны.
+// Исполнитель с ограниченной очередью передаёт запрос, которому нет в ней места, в rejectOverflow,
+// и такой запрос тоже получает 503, не попадая в очередь.
+// Счётчики показывают, сколько запросов принято и сколько отклонено каждым пределом.
+public class AdmissionControl {
+    private static final int DEFAULT_MAX_IN_FLIGHT = 256;
+    private static final int DEFAULT_RETRY_AFTER_SECONDS = 1;
+    // Запрос выполняется вне исполнителя только для того, чтобы фильтр сразу ответил 503
+    private static final ThreadLocal<Boolean> overflow = ThreadLocal.withInitial(() -> false);
+
+    private final int maxInFlight;
+    private final int retryAfterSeconds;
+    private final Semaphore inFlight;
+    private final Map<String, EndpointLimit> endpointLimits = new TreeMap<>();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejectedOverloaded = new LongAdder();
+
+    public AdmissionControl(int maxInFlight, int retryAfterSeconds) {
+        if (maxInFlight <= 0 || retryAfterSeconds < 0) {
+            throw new IllegalArgumentException("Некорректные пределы: " + maxInFlight + ", " + retryAfterSeconds);
+        }
+        this.maxInFlight = maxInFlight;
+        this.retryAfterSeconds = retryAfterSeconds;
+        inFlight = new Semaphore(maxInFlight);
+    }
+
+    // Пределы по умолчанию: пакеты и поиск тяжелее остальных запросов и ограничены сильнее
+    public static AdmissionControl defaults() {
+        return new AdmissionControl(DEFAULT_MAX_IN_FLIGHT, DEFAULT_RETRY_AFTER_SECONDS)
+                .withEndpointLimit("/batch", 16)
+                .withEndpointLimit("/search", 64);
+    }
+
+    // Предел одновременных запросов к пути; задаётся до запуска сервера
+    public AdmissionControl withEndpointLimit(String endpoint, int maxConcurrent) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("Некорректный предел для " + endpoint + ": " + maxConcurrent);
+        }
+        endpointLimits.put(endpoint, new EndpointLimit(maxConcurrent));
+        return this;
+    }
+
+    // Фильтр для контекста сервера с путём endpoint
+    public Filter filterFor(String endpoint) {
+        EndpointLimit limit = endpointLimits.get(endpoint);
+        return new Filter() {
+            @Override
+            public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+                if (overflow.get() || !inFlight.tryAcquire()) {
+                    rejectedOverloaded.increment();
+                    reject(exchange, 503);
+                    return;
+                }
+                // Отклонённый запрос освобождает место до отправки ответа
+                if (limit != null && !limit.permits.tryAcquire()) {
+                    inFlight.release();
+                    limit.rejected.increment();
+                    reject(exchange, 429);
+                    return;
+                }
+                try {
+                    admitted.increment();
+                    chain.doFilter(exchange);
+                } finally {
+                    if (limit != null) {
+                        limit.permits.release();
+                    }
+                    inFlight.release();
+                }
+            }
+
+            @Override
+            public String description() {
+                return "Admission control for " + endpoint;
+            }
+        };
+    }
+
+    // Обработчик отказа исполнителя сервера: запрос, которому нет места в очереди, выполняется в потоке,
+    // принимающем соединения. Фильтр отвечает на него 503 с Retry-After, не запуская обработчик.
+    static void rejectOverflow(Runnable request, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Исполнитель сервера остановлен");
+        }
+        overflow.set(true);
+        try {
+            request.run();
+        } finally {
+            overflow.remove();
+        }
+    }
+
+    private void reject(HttpExchange exchange, int code) throws IOException {
+        exchange.getResponseHeaders().add("Retry-After", String.valueOf(retryAfterSeconds));
+        exchange.sendResponseHeaders(code, -1);
+        exchange.close();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    // Запросы, которые обрабатываются сейчас
+    public int getInFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    // Запросы, отклонённые с 503 из-за общего предела
+    public long getRejectedOverloaded() {
+        return rejectedOverloaded.sum();
+    }
+
+    // Запросы, отклонённые с 429 из-за предела пути
+    public long getRejectedByEndpoint(String endpoint) {
+        EndpointLimit limit = endpointLimits.get(endpoint);
+        return limit == null ? 0 : limit.rejected.sum();
+    }
+
+    // Пути, для которых задан собственный предел
+    public Set<String> getLimitedEndpoints() {
+        return Collections.unmodifiableSet(endpointLimits.keySet());
+    }
+
+    public int getEndpointLimit(String endpoint) {
+        EndpointLimit limit = endpointLimits.get(endpoint);
+        return limit == null ? maxInFlight : limit.maxConcurrent;
+    }
+
+    private static final class EndpointLimit {
+        private final int maxConcurrent;
+        private final Semaphore permits;
+        private final LongAdder rejected = new LongAdder();
+
+        private EndpointLimit(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+            permits = new Semaphore(maxConcurrent);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package http;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import http.adapter.DurationAdapter;
 import http.adapter.LocalDateTimeAdapter;
@@ -13,42 +14,107 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+// Запросы обрабатываются в исполнителе сервера, а не в потоке, принимающем соединения,
+// поэтому медленный запрос, например с сохранением в файл, не задерживает остальные.
+// По умолчанию каждый запрос получает свой виртуальный поток.
 public class HttpTaskServer {
     private static final int PORT = 8080;
     private final TaskManager taskManager;
+    private final ExecutorService executor;
+    private final AdmissionControl admissionControl;
+    // Тела ответов на GET, общие для всех обработчиков сервера
+    private final ResponseCache responseCache = new ResponseCache(ResponseCache.DEFAULT_MAX_BYTES);
     private static HttpServer server;
+    private static ExecutorService runningExecutor;
     private static final Gson gson = new GsonBuilder()
             .registerTypeAdapter(Duration.class, new DurationAdapter())
             .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
             .create();
 
     public HttpTaskServer(TaskManager taskManager) {
-        this.taskManager = taskManager;
+        this(taskManager, null);
+    }
+
+    // Менеджер, который не является потокобезопасным, оборачивается так, чтобы вызовы из
+    // параллельных запросов выполнялись по одному. Исполнитель останавливается вместе с сервером;
+    // если он не задан, используются виртуальные потоки.
+    public HttpTaskServer(TaskManager taskManager, ExecutorService executor) {
+        this(taskManager, executor, AdmissionControl.defaults());
+    }
+
+    // Запросы сверх пределов admissionControl отклоняются сразу, не дожидаясь обработки
+    public HttpTaskServer(TaskManager taskManager, ExecutorService executor, AdmissionControl admissionControl) {
+        this.taskManager = Managers.getSynchronized(taskManager);
+        this.executor = executor;
+        this.admissionControl = admissionControl;
     }
 
     public static Gson getGson() {
         return gson;
     }
 
+    // Новый виртуальный поток на каждый запрос
+    public static ExecutorService virtualThreads() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    // Ограниченный пул обычных потоков, запросы сверх числа потоков ждут в очереди такой же длины
+    public static ExecutorService platformThreads(int threads) {
+        return platformThreads(threads, threads);
+    }
+
+    // Пул обычных потоков с очередью не длиннее queueCapacity. Запросы сверх очереди сразу получают 503
+    // с Retry-After, а не ждут, пока освободится поток.
+    public static ExecutorService platformThreads(int threads, int queueCapacity) {
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), AdmissionControl::rejectOverflow);
+    }
+
+    public AdmissionControl getAdmissionControl() {
+        return admissionControl;
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
     public static void main(String[] args) throws IOException {
-        HttpTaskServer httpTaskServer = new HttpTaskServer(Managers.getDefault());
+        HttpTaskServer httpTaskServer = new HttpTaskServer(Managers.getConcurrent());
         httpTaskServer.start();
     }
 
     public void start() throws IOException {
         server = HttpServer.create(new InetSocketAddress(PORT), 0);
-        server.createContext("/tasks", new TaskHandler(taskManager));
-        server.createContext("/subtasks", new SubtaskHandler(taskManager));
-        server.createContext("/epics", new EpicHandler(taskManager));
-        server.createContext("/history", new HistoryHandler(taskManager));
-        server.createContext("/prioritized", new PrioritizedHandler(taskManager));
+        createLimitedContext("/tasks", new TaskHandler(taskManager, responseCache));
+        createLimitedContext("/subtasks", new SubtaskHandler(taskManager, responseCache));
+        createLimitedContext("/epics", new EpicHandler(taskManager, responseCache));
+        createLimitedContext("/history", new HistoryHandler(taskManager, responseCache));
+        createLimitedContext("/prioritized", new PrioritizedHandler(taskManager, responseCache));
+        createLimitedContext("/search", new SearchHandler(taskManager));
+        createLimitedContext("/batch", new BatchHandler(taskManager));
+        server.createContext("/admission", new AdmissionHandler(taskManager, admissionControl));
+        runningExecutor = executor != null ? executor : virtualThreads();
+        server.setExecutor(runningExecutor);
         server.start();
     }
 
+    private void createLimitedContext(String path, HttpHandler handler) {
+        server.createContext(path, handler).getFilters().add(admissionControl.filterFor(path));
+    }
+
     public static void stop() {
         if (server != null) {
             server.stop(0);
         }
+        if (runningExecutor != null) {
+            runningExecutor.shutdown();
+            runningExecutor = null;
+        }
     }
-}
\ No newline at end of file
+}
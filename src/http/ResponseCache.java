@@ -0,0 +1,88 @@
+package http;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Готовые тела ответов в UTF-8 по адресу запроса. Ответ хранится вместе с версией данных менеджера,
+// из которых он построен, и отдаётся только при той же версии: любое изменение задачи, списка,
+// расписания или истории, в том числе пересчёт эпика по подзадачам, меняет версию, и старый
+// ответ больше не подходит. Устаревший ответ заменяется при следующем промахе.
+// Размер ограничен суммарным числом байтов. При переполнении вытесняются произвольные ответы:
+// так чтение не требует общей блокировки, как потребовал бы порядок LRU.
+public class ResponseCache {
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    // Примерный расход памяти на запись сверх тела ответа
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final long maxBytes;
+    private final Map<String, Entry> responses = new ConcurrentHashMap<>();
+    private final AtomicLong bytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ResponseCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Некорректный размер кеша: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    // Ответ на запрос key, построенный для версии version, или null
+    public Response get(String key, long version) {
+        Entry entry = responses.get(key);
+        if (entry == null || entry.version != version) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.response;
+    }
+
+    // Ответ больше всего кеша не кешируется
+    public void put(String key, long version, Response response) {
+        Entry entry = new Entry(version, response, sizeOf(key, response));
+        if (entry.size > maxBytes) {
+            return;
+        }
+        Entry old = responses.put(key, entry);
+        bytes.addAndGet(old == null ? entry.size : entry.size - old.size);
+        Iterator<Map.Entry<String, Entry>> evicted = responses.entrySet().iterator();
+        while (bytes.get() > maxBytes && evicted.hasNext()) {
+            Map.Entry<String, Entry> next = evicted.next();
+            if (responses.remove(next.getKey(), next.getValue())) {
+                bytes.addAndGet(-next.getValue().size);
+            }
+        }
+    }
+
+    public int size() {
+        return responses.size();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private static long sizeOf(String key, Response response) {
+        return ENTRY_OVERHEAD_BYTES + 2L * key.length() + response.body().length
+                + (response.nextCursor() == null ? 0 : 2L * response.nextCursor().length());
+    }
+
+    // Тело ответа и курсор следующей страницы, если он есть
+    public record Response(byte[] body, String nextCursor) {
+    }
+
+    private record Entry(long version, Response response, long size) {
+    }
+}
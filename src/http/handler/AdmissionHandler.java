@@ -0,0 +1,42 @@
+package http.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import http.AdmissionControl;
+import manager.TaskManager;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Счётчики ограничения нагрузки. Сам этот путь не ограничивается, чтобы счётчики
+// можно было прочитать и при перегрузке.
+public class AdmissionHandler extends BaseHttpHandler implements HttpHandler {
+    private final AdmissionControl admissionControl;
+
+    public AdmissionHandler(TaskManager taskManager, AdmissionControl admissionControl) {
+        super(taskManager);
+        this.admissionControl = admissionControl;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestURI().getPath().equals("/admission")) {
+            if (exchange.getRequestMethod().equals("GET")) {
+                Map<String, Object> endpoints = new LinkedHashMap<>();
+                for (String endpoint : admissionControl.getLimitedEndpoints()) {
+                    endpoints.put(endpoint, Map.of(
+                            "limit", admissionControl.getEndpointLimit(endpoint),
+                            "rejected", admissionControl.getRejectedByEndpoint(endpoint)));
+                }
+                Map<String, Object> counters = new LinkedHashMap<>();
+                counters.put("maxInFlight", admissionControl.getMaxInFlight());
+                counters.put("inFlight", admissionControl.getInFlight());
+                counters.put("admitted", admissionControl.getAdmitted());
+                counters.put("rejectedOverloaded", admissionControl.getRejectedOverloaded());
+                counters.put("endpoints", endpoints);
+                sendText(exchange, gson.toJson(counters), 200);
+            }
+        }
+    }
+}
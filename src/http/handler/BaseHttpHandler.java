@@ -2,20 +2,47 @@ package http.handler;
 
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
+import entity.Status;
+import entity.Task;
+import entity.TaskQuery;
 import http.HttpTaskServer;
+import http.ResponseCache;
+import http.adapter.LocalDateTimeAdapter;
 import manager.TaskManager;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 public abstract class BaseHttpHandler {
+    // Заголовок с курсором следующей страницы
+    protected static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
     protected final Gson gson = HttpTaskServer.getGson();
     protected final TaskManager manager;
+    // Кеш ответов на GET, общий для обработчиков сервера; null, если обработчик ответы не кеширует
+    protected final ResponseCache responseCache;
 
     public BaseHttpHandler(TaskManager manager) {
+        this(manager, null);
+    }
+
+    public BaseHttpHandler(TaskManager manager, ResponseCache responseCache) {
         this.manager = manager;
+        this.responseCache = responseCache;
     }
 
 
@@ -24,6 +51,131 @@ public abstract class BaseHttpHandler {
         return Integer.parseInt(pathParts[2]);
     }
 
+    protected Map<String, String> getQueryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    // Время в параметрах запроса принимается в формате JSON или в ISO-формате с долями секунды
+    protected LocalDateTime parseDateTime(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value, LocalDateTimeAdapter.FORMATTER);
+        } catch (DateTimeParseException e) {
+            return LocalDateTime.parse(value);
+        }
+    }
+
+    protected Status parseStatus(String value) throws IllegalArgumentException {
+        return value == null ? null : Status.valueOf(value.toUpperCase());
+    }
+
+    // Страница списка задач по параметрам cursor (id последней задачи прошлой страницы), limit, status,
+    // from и to. Если нет ни курсора, ни размера, ни времени, возвращается null и список отдаётся целиком.
+    protected TaskQuery parseTaskQuery(Map<String, String> params)
+            throws IllegalArgumentException, DateTimeParseException {
+        if (!params.containsKey("cursor") && !params.containsKey("limit")
+                && !params.containsKey("from") && !params.containsKey("to")) {
+            return null;
+        }
+        int afterId = params.containsKey("cursor") ? Integer.parseInt(params.get("cursor")) : 0;
+        int limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : DEFAULT_PAGE_SIZE;
+        if (limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Размер страницы больше " + MAX_PAGE_SIZE);
+        }
+        return new TaskQuery(afterId, limit)
+                .withStatus(parseStatus(params.get("status")))
+                .withTimeRange(parseDateTime(params.get("from")), parseDateTime(params.get("to")));
+    }
+
+    // Если страница заполнена, курсор следующей передаётся в заголовке
+    protected ResponseCache.Response pageOf(List<? extends Task> page, TaskQuery query) {
+        String nextCursor = page.size() == query.getLimit() ? String.valueOf(page.getLast().getId()) : null;
+        return new ResponseCache.Response(toJsonBytes(page), nextCursor);
+    }
+
+    protected ResponseCache.Response jsonOf(Object data) {
+        return new ResponseCache.Response(toJsonBytes(data), null);
+    }
+
+    // Сериализация сразу в байты UTF-8, без промежуточной строки
+    protected byte[] toJsonBytes(Object data) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+            gson.toJson(data, writer);
+        } catch (IOException e) {
+            // Запись в массив не бросает IOException
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Ответ на GET данных версии version: 304, если эта версия уже есть у клиента, иначе тело из кеша.
+    // При промахе build читает и сериализует данные, а тело кешируется до следующего изменения данных.
+    protected void sendCached(HttpExchange exchange, long version, Supplier<ResponseCache.Response> build)
+            throws IOException {
+        if (sendNotModified(exchange, version)) {
+            return;
+        }
+        String key = exchange.getRequestURI().toString();
+        ResponseCache.Response response = responseCache.get(key, version);
+        if (response == null) {
+            response = build.get();
+            responseCache.put(key, version, response);
+        }
+        if (response.nextCursor() != null) {
+            exchange.getResponseHeaders().add(NEXT_CURSOR_HEADER, response.nextCursor());
+        }
+        sendBytes(exchange, response.body(), 200);
+    }
+
+    // Ответ с версией данных в заголовке ETag. Если у клиента уже есть эта версия (If-None-Match),
+    // отправляется 304 без тела и возвращается true: данные не нужно ни читать, ни сериализовать.
+    // Версию нужно получить у менеджера до чтения данных.
+    protected boolean sendNotModified(HttpExchange exchange, long version) throws IOException {
+        String etag = "\"" + version + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null || !matchesEtag(ifNoneMatch, etag)) {
+            return false;
+        }
+        exchange.sendResponseHeaders(304, -1);
+        exchange.close();
+        return true;
+    }
+
+    // Заголовок содержит "*" или список тегов, слабые теги (W/) сравниваются как обычные
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Курсоры отдаются в ISO-формате, чтобы не терять доли секунды
+    protected String formatDateTime(LocalDateTime value) {
+        return value.toString();
+    }
+
     protected String getBody(HttpExchange exchange) throws IOException {
         StringBuilder resultStringBuilder = new StringBuilder();
         try (BufferedReader br = new BufferedReader(
@@ -37,7 +189,10 @@ public abstract class BaseHttpHandler {
     }
 
     protected void sendText(HttpExchange h, String text, int rCode) throws IOException {
-        byte[] resp = text.getBytes(StandardCharsets.UTF_8);
+        sendBytes(h, text.getBytes(StandardCharsets.UTF_8), rCode);
+    }
+
+    protected void sendBytes(HttpExchange h, byte[] resp, int rCode) throws IOException {
         h.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
         h.sendResponseHeaders(rCode, resp.length);
         h.getResponseBody().write(resp);
@@ -50,6 +205,12 @@ public abstract class BaseHttpHandler {
         h.close();
     }
 
+    protected void sendBadRequest(HttpExchange h) throws IOException {
+        h.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        h.sendResponseHeaders(400, 0);
+        h.close();
+    }
+
     protected void sendHasInteractions(HttpExchange h) throws IOException {
         h.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
         h.sendResponseHeaders(406, 0);
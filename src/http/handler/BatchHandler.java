@@ -0,0 +1,105 @@
+package http.handler;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import entity.BatchAction;
+import entity.BatchOperation;
+import entity.Epic;
+import entity.Subtask;
+import entity.Task;
+import entity.TaskTypes;
+import exception.NotFoundException;
+import manager.TaskManager;
+
+import java.io.IOException;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchHandler extends BaseHttpHandler implements HttpHandler {
+
+    public BatchHandler(TaskManager taskManager) {
+        super(taskManager);
+    }
+
+    // POST /batch с массивом операций:
+    // {"action": "CREATE" | "UPDATE", "type": "TASK", "task": {...}} или {"action": "DELETE", "type": "TASK", "id": 1}
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestURI().getPath().equals("/batch")) {
+            if (exchange.getRequestMethod().equals("POST")) {
+                List<BatchOperation> operations;
+                try {
+                    operations = parseOperations(getBody(exchange));
+                } catch (JsonParseException | IllegalArgumentException | DateTimeParseException e) {
+                    sendBadRequest(exchange);
+                    return;
+                }
+                try {
+                    sendText(exchange, gson.toJson(manager.applyBatch(operations)), 200);
+                } catch (NotFoundException e) {
+                    sendNotFound(exchange);
+                } catch (IllegalArgumentException e) {
+                    sendHasInteractions(exchange);
+                }
+            } else {
+                sendNotFound(exchange);
+            }
+        }
+    }
+
+    // Пропущенное или неверное поле - IllegalArgumentException, и весь пакет отклоняется до применения
+    private List<BatchOperation> parseOperations(String body) {
+        JsonElement root = JsonParser.parseString(body);
+        if (!root.isJsonArray()) {
+            throw new IllegalArgumentException("Ожидается массив операций");
+        }
+        List<BatchOperation> operations = new ArrayList<>();
+        for (JsonElement element : root.getAsJsonArray()) {
+            if (!element.isJsonObject()) {
+                throw new IllegalArgumentException("Операция должна быть объектом");
+            }
+            JsonObject object = element.getAsJsonObject();
+            BatchAction action = BatchAction.valueOf(stringField(object, "action"));
+            TaskTypes type = TaskTypes.valueOf(stringField(object, "type"));
+            if (action == BatchAction.DELETE) {
+                operations.add(new BatchOperation(type, intField(object, "id")));
+            } else {
+                JsonElement task = object.get("task");
+                if (task == null || !task.isJsonObject()) {
+                    throw new IllegalArgumentException("Нет задачи в операции " + action);
+                }
+                operations.add(new BatchOperation(action, gson.fromJson(task, classOf(type))));
+            }
+        }
+        return operations;
+    }
+
+    private static String stringField(JsonObject object, String name) {
+        JsonElement value = object.get(name);
+        if (value == null || !value.isJsonPrimitive() || !value.getAsJsonPrimitive().isString()) {
+            throw new IllegalArgumentException("Нет строкового поля " + name);
+        }
+        return value.getAsString();
+    }
+
+    private static int intField(JsonObject object, String name) {
+        JsonElement value = object.get(name);
+        if (value == null || !value.isJsonPrimitive() || !value.getAsJsonPrimitive().isNumber()) {
+            throw new IllegalArgumentException("Нет числового поля " + name);
+        }
+        return value.getAsInt();
+    }
+
+    private Class<? extends Task> classOf(TaskTypes type) {
+        return switch (type) {
+            case TASK -> Task.class;
+            case SUBTASK -> Subtask.class;
+            case EPIC -> Epic.class;
+        };
+    }
+}
@@ -3,17 +3,23 @@ package http.handler;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import entity.Epic;
+import entity.Status;
 import entity.Subtask;
+import entity.TaskQuery;
+import entity.TaskTypes;
 import exception.NotFoundException;
+import http.ResponseCache;
 import manager.TaskManager;
 
 import java.io.IOException;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
 
 public class EpicHandler extends BaseHttpHandler implements HttpHandler {
 
-    public EpicHandler(TaskManager taskManager) {
-        super(taskManager);
+    public EpicHandler(TaskManager taskManager, ResponseCache responseCache) {
+        super(taskManager, responseCache);
     }
 
     @Override
@@ -76,16 +82,34 @@ public class EpicHandler extends BaseHttpHandler implements HttpHandler {
 
     private void handleGetEpicById(HttpExchange exchange) throws IOException {
         try {
-            Epic epic = manager.getEpic(getId(exchange));
-            sendText(exchange, gson.toJson(epic), 200);
+            int id = getId(exchange);
+            long version = manager.getVersion(TaskTypes.EPIC, id);
+            Epic epic = manager.getEpic(id);
+            sendCached(exchange, version, () -> jsonOf(epic));
         } catch (NotFoundException e) {
             sendNotFound(exchange);
         }
     }
 
     private void handleGetEpics(HttpExchange exchange) throws IOException {
-        String response = gson.toJson(manager.getEpics());
-        sendText(exchange, response, 200);
+        Map<String, String> params = getQueryParams(exchange);
+        Status status;
+        TaskQuery query;
+        try {
+            status = parseStatus(params.get("status"));
+            query = parseTaskQuery(params);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            sendBadRequest(exchange);
+            return;
+        }
+        long version = manager.getVersion(TaskTypes.EPIC);
+        if (query != null) {
+            sendCached(exchange, version, () -> pageOf(manager.getEpics(query), query));
+            return;
+        }
+        sendCached(exchange, version, () -> status == null
+                ? jsonOf(manager.getEpics())
+                : jsonOf(manager.getByStatus(TaskTypes.EPIC, status)));
     }
 
     private EpicEndpoint getEndpoint(String requestPath, String requestMethod) {
@@ -2,22 +2,22 @@ package http.handler;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import http.ResponseCache;
 import manager.TaskManager;
 
 import java.io.IOException;
 
 public class HistoryHandler extends BaseHttpHandler implements HttpHandler {
 
-    public HistoryHandler(TaskManager taskManager) {
-        super(taskManager);
+    public HistoryHandler(TaskManager taskManager, ResponseCache responseCache) {
+        super(taskManager, responseCache);
     }
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         if (exchange.getRequestURI().getPath().equals("/history")) {
             if (exchange.getRequestMethod().equals("GET")) {
-                String response = gson.toJson(manager.getHistory());
-                sendText(exchange, response, 200);
+                sendCached(exchange, manager.getHistoryVersion(), () -> jsonOf(manager.getHistory()));
             }
         }
     }
@@ -2,23 +2,80 @@ package http.handler;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import entity.Task;
+import http.ResponseCache;
 import manager.TaskManager;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
 
 public class PrioritizedHandler extends BaseHttpHandler implements HttpHandler {
-
-    public PrioritizedHandler(TaskManager taskManager) {
-        super(taskManager);
+    public PrioritizedHandler(TaskManager taskManager, ResponseCache responseCache) {
+        super(taskManager, responseCache);
     }
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         if (exchange.getRequestURI().getPath().equals("/prioritized")) {
             if (exchange.getRequestMethod().equals("GET")) {
-                String response = gson.toJson(manager.getPrioritizedTasks());
-                sendText(exchange, response, 200);
+                Map<String, String> params = getQueryParams(exchange);
+                // Окна и страницы расписания строятся из тех же задач, поэтому версия у них общая
+                long version = manager.getPrioritizedVersion();
+                if (params.containsKey("from") || params.containsKey("to")) {
+                    handleGetBetween(exchange, params, version);
+                } else if (params.containsKey("limit")) {
+                    handleGetPage(exchange, params, version);
+                } else {
+                    sendCached(exchange, version, () -> jsonOf(manager.getPrioritizedTasksView()));
+                }
             }
         }
     }
+
+    // GET /prioritized?from=<начало окна>&to=<конец окна>
+    private void handleGetBetween(HttpExchange exchange, Map<String, String> params, long version)
+            throws IOException {
+        LocalDateTime from;
+        LocalDateTime to;
+        try {
+            from = parseDateTime(params.get("from"));
+            to = parseDateTime(params.get("to"));
+        } catch (DateTimeParseException e) {
+            sendBadRequest(exchange);
+            return;
+        }
+        if (from == null || to == null || to.isBefore(from)) {
+            sendBadRequest(exchange);
+            return;
+        }
+        sendCached(exchange, version, () -> jsonOf(manager.getTasksBetween(from, to)));
+    }
+
+    // GET /prioritized?after=<время старта>&limit=<размер страницы>
+    private void handleGetPage(HttpExchange exchange, Map<String, String> params, long version)
+            throws IOException {
+        LocalDateTime after;
+        int limit;
+        try {
+            after = parseDateTime(params.get("after"));
+            limit = Integer.parseInt(params.get("limit"));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            sendBadRequest(exchange);
+            return;
+        }
+        if (limit <= 0) {
+            sendBadRequest(exchange);
+            return;
+        }
+
+        sendCached(exchange, version, () -> {
+            List<Task> page = manager.getPrioritizedTasks(after, limit);
+            // Курсор следующей страницы - время старта последней задачи страницы
+            String nextCursor = page.size() == limit ? formatDateTime(page.getLast().getStartTime()) : null;
+            return new ResponseCache.Response(toJsonBytes(page), nextCursor);
+        });
+    }
 }
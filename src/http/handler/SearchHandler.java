@@ -0,0 +1,40 @@
+package http.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import manager.TaskManager;
+
+import java.io.IOException;
+import java.util.Map;
+
+public class SearchHandler extends BaseHttpHandler implements HttpHandler {
+    // Размер выдачи, если limit не указан
+    private static final int DEFAULT_LIMIT = 20;
+
+    public SearchHandler(TaskManager taskManager) {
+        super(taskManager);
+    }
+
+    // GET /search?q=<слова>&limit=<размер выдачи>
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestURI().getPath().equals("/search")) {
+            if (exchange.getRequestMethod().equals("GET")) {
+                Map<String, String> params = getQueryParams(exchange);
+                String query = params.get("q");
+                int limit;
+                try {
+                    limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : DEFAULT_LIMIT;
+                } catch (NumberFormatException e) {
+                    sendBadRequest(exchange);
+                    return;
+                }
+                if (query == null || query.isBlank() || limit <= 0) {
+                    sendBadRequest(exchange);
+                    return;
+                }
+                sendText(exchange, gson.toJson(manager.search(query, limit)), 200);
+            }
+        }
+    }
+}
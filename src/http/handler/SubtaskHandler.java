@@ -2,16 +2,22 @@ package http.handler;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import entity.Status;
 import entity.Subtask;
+import entity.TaskQuery;
+import entity.TaskTypes;
 import exception.NotFoundException;
+import http.ResponseCache;
 import manager.TaskManager;
 
 import java.io.IOException;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
 
 public class SubtaskHandler extends BaseHttpHandler implements HttpHandler {
 
-    public SubtaskHandler(TaskManager taskManager) {
-        super(taskManager);
+    public SubtaskHandler(TaskManager taskManager, ResponseCache responseCache) {
+        super(taskManager, responseCache);
     }
 
     @Override
@@ -67,16 +73,34 @@ public class SubtaskHandler extends BaseHttpHandler implements HttpHandler {
 
     private void handleGetSubtaskById(HttpExchange exchange) throws IOException {
         try {
-            Subtask subtask = manager.getSubtask(getId(exchange));
-            sendText(exchange, gson.toJson(subtask), 200);
+            int id = getId(exchange);
+            long version = manager.getVersion(TaskTypes.SUBTASK, id);
+            Subtask subtask = manager.getSubtask(id);
+            sendCached(exchange, version, () -> jsonOf(subtask));
         } catch (NotFoundException e) {
             sendNotFound(exchange);
         }
     }
 
     private void handleGetSubtasks(HttpExchange exchange) throws IOException {
-        String response = gson.toJson(manager.getSubtasks());
-        sendText(exchange, response, 200);
+        Map<String, String> params = getQueryParams(exchange);
+        Status status;
+        TaskQuery query;
+        try {
+            status = parseStatus(params.get("status"));
+            query = parseTaskQuery(params);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            sendBadRequest(exchange);
+            return;
+        }
+        long version = manager.getVersion(TaskTypes.SUBTASK);
+        if (query != null) {
+            sendCached(exchange, version, () -> pageOf(manager.getSubtasks(query), query));
+            return;
+        }
+        sendCached(exchange, version, () -> status == null
+                ? jsonOf(manager.getSubtasks())
+                : jsonOf(manager.getByStatus(TaskTypes.SUBTASK, status)));
     }
 
     private SubtaskEndpoint getEndpoint(String requestPath, String requestMethod) {
@@ -2,16 +2,22 @@ package http.handler;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import entity.Status;
 import entity.Task;
+import entity.TaskQuery;
+import entity.TaskTypes;
 import exception.NotFoundException;
+import http.ResponseCache;
 import manager.TaskManager;
 
 import java.io.IOException;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
 
 public class TaskHandler extends BaseHttpHandler implements HttpHandler {
 
-    public TaskHandler(TaskManager taskManager) {
-        super(taskManager);
+    public TaskHandler(TaskManager taskManager, ResponseCache responseCache) {
+        super(taskManager, responseCache);
     }
 
     @Override
@@ -67,16 +73,35 @@ public class TaskHandler extends BaseHttpHandler implements HttpHandler {
 
     private void handleGetTaskById(HttpExchange exchange) throws IOException {
         try {
-            Task task = manager.getTask(getId(exchange));
-            sendText(exchange, gson.toJson(task), 200);
+            int id = getId(exchange);
+            long version = manager.getVersion(TaskTypes.TASK, id);
+            // Задача запрашивается и при совпадении версии, чтобы просмотр попал в историю
+            Task task = manager.getTask(id);
+            sendCached(exchange, version, () -> jsonOf(task));
         } catch (NotFoundException e) {
             sendNotFound(exchange);
         }
     }
 
     private void handleGetTasks(HttpExchange exchange) throws IOException {
-        String response = gson.toJson(manager.getTasks());
-        sendText(exchange, response, 200);
+        Map<String, String> params = getQueryParams(exchange);
+        Status status;
+        TaskQuery query;
+        try {
+            status = parseStatus(params.get("status"));
+            query = parseTaskQuery(params);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            sendBadRequest(exchange);
+            return;
+        }
+        long version = manager.getVersion(TaskTypes.TASK);
+        if (query != null) {
+            sendCached(exchange, version, () -> pageOf(manager.getTasks(query), query));
+            return;
+        }
+        sendCached(exchange, version, () -> status == null
+                ? jsonOf(manager.getTasks())
+                : jsonOf(manager.getByStatus(TaskTypes.TASK, status)));
     }
 
     private TaskEndpoint getEndpoint(String requestPath, String requestMethod) {
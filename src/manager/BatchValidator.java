@@ -0,0 +1,139 @@
+package manager;
+
+import entity.BatchAction;
+import entity.BatchOperation;
+import entity.Epic;
+import entity.Subtask;
+import entity.Task;
+import entity.TaskTypes;
+import exception.NotFoundException;
+import util.IntHashSet;
+import util.IntObjectHashMap;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiFunction;
+
+// Проверка пакета операций до его применения, индекс расписания после проверки не меняется.
+// Новое время задач пакета сортируется и проверяется на пересечения одним проходом,
+// затем каждый интервал проверяется по индексу, из которого на время проверки
+// убрано время удаляемых и изменяемых задач.
+final class BatchValidator {
+
+    private BatchValidator() {
+    }
+
+    static void validate(List<BatchOperation> operations, BiFunction<TaskTypes, Integer, Task> lookup,
+                         OverlapIndex overlapIndex) {
+        IntHashSet deletedEpics = new IntHashSet();
+        for (BatchOperation operation : operations) {
+            if (operation.getAction() == BatchAction.DELETE && operation.getType() == TaskTypes.EPIC) {
+                deletedEpics.add(operation.getId());
+            }
+        }
+
+        IntHashSet touched = new IntHashSet();
+        IntObjectHashMap<Task> released = new IntObjectHashMap<>();
+        List<Task> incoming = new ArrayList<>();
+        for (BatchOperation operation : operations) {
+            switch (operation.getAction()) {
+                case BatchAction.CREATE -> {
+                    requireEpic(operation.getTask(), lookup, deletedEpics);
+                    incoming.add(operation.getTask());
+                }
+                case BatchAction.UPDATE -> {
+                    Task current = requireExisting(operation, lookup, touched);
+                    requireEpic(operation.getTask(), lookup, deletedEpics);
+                    released.put(current.getId(), current);
+                    incoming.add(operation.getTask());
+                }
+                case BatchAction.DELETE -> {
+                    Task current = requireExisting(operation, lookup, touched);
+                    released.put(current.getId(), current);
+                    // Вместе с эпиком удаляются и его подзадачи
+                    if (current instanceof Epic epic) {
+                        epic.getSubtaskIds().forEachInt(subtaskId -> {
+                            Task subtask = lookup.apply(TaskTypes.SUBTASK, subtaskId);
+                            if (subtask != null) {
+                                released.put(subtaskId, subtask);
+                            }
+                        });
+                    }
+                }
+            }
+        }
+        checkTimes(incoming, released.values(), overlapIndex);
+    }
+
+    private static Task requireExisting(BatchOperation operation, BiFunction<TaskTypes, Integer, Task> lookup,
+                                        IntHashSet touched) {
+        if (!touched.add(operation.getId())) {
+            throw new IllegalArgumentException("Задача с id " + operation.getId() + " изменяется в пакете дважды");
+        }
+        Task current = lookup.apply(operation.getType(), operation.getId());
+        if (current == null) {
+            throw new NotFoundException("entity." + entityName(operation.getType()) + " with id "
+                    + operation.getId() + " not found");
+        }
+        return current;
+    }
+
+    private static void requireEpic(Task task, BiFunction<TaskTypes, Integer, Task> lookup, IntHashSet deletedEpics) {
+        if (task instanceof Subtask subtask) {
+            int epicId = subtask.getEpicId();
+            if (deletedEpics.contains(epicId) || lookup.apply(TaskTypes.EPIC, epicId) == null) {
+                throw new NotFoundException("entity.Epic not found");
+            }
+        }
+    }
+
+    private static void checkTimes(List<Task> incoming, Collection<Task> released, OverlapIndex overlapIndex) {
+        List<Task> scheduled = incoming.stream()
+                .filter(BatchValidator::isScheduled)
+                .sorted(Comparator.comparing(Task::getStartTime))
+                .toList();
+        LocalDateTime previousStart = null;
+        LocalDateTime maxEnd = null;
+        for (Task task : scheduled) {
+            // Как и в индексе расписания, пересечением считаются совпадение стартов и касание границ
+            if (previousStart != null
+                    && (previousStart.equals(task.getStartTime()) || !maxEnd.isBefore(task.getStartTime()))) {
+                throw new IllegalArgumentException("Время задач пакета пересекается");
+            }
+            previousStart = task.getStartTime();
+            if (maxEnd == null || task.getEndTime().isAfter(maxEnd)) {
+                maxEnd = task.getEndTime();
+            }
+        }
+
+        List<Task> freed = released.stream()
+                .filter(BatchValidator::isScheduled)
+                .toList();
+        freed.forEach(overlapIndex::remove);
+        try {
+            for (Task task : scheduled) {
+                if (overlapIndex.overlaps(task)) {
+                    throw new IllegalArgumentException("Время задачи пересекается с существующей");
+                }
+            }
+        } finally {
+            freed.forEach(overlapIndex::add);
+        }
+    }
+
+    // Время эпика вычисляется по подзадачам и в расписание не попадает
+    private static boolean isScheduled(Task task) {
+        return task.getType() != TaskTypes.EPIC && task.getStartTime() != null;
+    }
+
+    private static String entityName(TaskTypes type) {
+        return switch (type) {
+            case TASK -> "Task";
+            case SUBTASK -> "Subtask";
+            case EPIC -> "Epic";
+        };
+    }
+}
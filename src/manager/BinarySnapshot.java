@@ -0,0 +1,325 @@
+package manager;
+
+import entity.Epic;
+import entity.Status;
+import entity.Subtask;
+import entity.Task;
+import entity.TaskTypes;
+import exception.ManagerLoadException;
+import exception.ManagerSaveException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+// Двоичный снимок задач.
+// Заголовок: сигнатура, версия формата, число записей. Затем записи и в конце CRC32C всех байтов перед ней.
+// Запись: тип и статус порядковыми номерами, id, начало, длительность в минутах, для подзадачи id эпика,
+// для эпика конец, затем название и описание строками UTF-8 с длиной впереди.
+// Время хранится секундами от эпохи и наносекундами, как его принимает менеджер; отсутствие времени
+// и строки кодируется особыми значениями. Снимки первой версии хранили время в минутах и ещё читаются.
+final class BinarySnapshot {
+    private static final int MAGIC = 0x544D4742;
+    private static final byte VERSION = 2;
+    private static final byte MINUTES_VERSION = 1;
+    private static final int HEADER_BYTES = Integer.BYTES + 1 + Integer.BYTES;
+    // Постоянная часть записи: тип, статус, id, начало, длительность и поле, зависящее от типа.
+    // Начало и поле типа дополняются наносекундами.
+    private static final int RECORD_BYTES = 2 + Integer.BYTES + 3 * Long.BYTES + 2 * Integer.BYTES;
+    private static final int MINUTES_RECORD_BYTES = 2 + Integer.BYTES + 3 * Long.BYTES;
+    private static final int BUFFER_BYTES = 64 * 1024;
+    static final long NO_TIME = Long.MIN_VALUE;
+    private static final int NO_STRING = -1;
+    private static final TaskTypes[] TYPES = TaskTypes.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private BinarySnapshot() {
+    }
+
+    // Двоичный снимок узнаётся по сигнатуре в начале файла
+    static boolean isBinary(File file) {
+        if (file.length() < Integer.BYTES) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // Чтение до заполнения буфера
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            throw new ManagerLoadException(e);
+        }
+    }
+
+    // Запись снимка в target со сбросом на диск
+    static void write(File target, List<Task> tasks) {
+        try (FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer writer = new Writer(channel);
+            writer.buffer.putInt(MAGIC).put(VERSION).putInt(tasks.size());
+            for (Task task : tasks) {
+                writer.writeRecord(task);
+            }
+            writer.finish();
+            channel.force(true);
+        } catch (IOException e) {
+            throw new ManagerSaveException(e);
+        }
+    }
+
+    // Чтение всех записей снимка; при любом повреждении - ManagerLoadException
+    static List<Task> read(File source) {
+        try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            Reader reader = new Reader(channel);
+            reader.require(HEADER_BYTES);
+            if (reader.buffer.getInt() != MAGIC) {
+                throw new ManagerLoadException("Файл не является двоичным снимком: " + source);
+            }
+            byte version = reader.buffer.get();
+            if (version != VERSION && version != MINUTES_VERSION) {
+                throw new ManagerLoadException("Неизвестная версия двоичного снимка: " + version);
+            }
+            reader.minutes = version == MINUTES_VERSION;
+            int count = reader.buffer.getInt();
+            if (count < 0) {
+                throw new ManagerLoadException("Повреждён снимок " + source);
+            }
+            List<Task> tasks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                tasks.add(reader.readRecord());
+            }
+            int expected = reader.checksum();
+            reader.require(Integer.BYTES);
+            if (reader.buffer.getInt() != expected) {
+                throw new ManagerLoadException("Не совпадает контрольная сумма снимка " + source);
+            }
+            if (reader.buffer.hasRemaining() || channel.position() != channel.size()) {
+                throw new ManagerLoadException("Данные после контрольной суммы в " + source);
+            }
+            return tasks;
+        } catch (IOException e) {
+            throw new ManagerLoadException(e);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | ArithmeticException | DateTimeException e) {
+            throw new ManagerLoadException("Повреждён снимок " + source, e);
+        }
+    }
+
+    static long toEpochMinute(LocalDateTime time) {
+        return time == null ? NO_TIME : Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    static LocalDateTime fromEpochMinute(long minutes) {
+        return minutes == NO_TIME ? null : LocalDateTime.ofEpochSecond(minutes * 60, 0, ZoneOffset.UTC);
+    }
+
+    private static final class Writer {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private final CRC32C checksum = new CRC32C();
+
+        private Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void writeRecord(Task task) throws IOException {
+            byte[] name = encode(task.getName());
+            byte[] description = encode(task.getDescription());
+            ensure(RECORD_BYTES);
+            buffer.put((byte) task.getType().ordinal())
+                    .put((byte) task.getStatus().ordinal())
+                    .putInt(task.getId())
+                    .putLong(toEpochSecond(task.getStartTime()))
+                    .putInt(nanoOf(task.getStartTime()))
+                    .putLong(task.getDuration());
+            if (task instanceof Subtask subtask) {
+                buffer.putLong(subtask.getEpicId()).putInt(0);
+            } else if (task instanceof Epic epic) {
+                buffer.putLong(toEpochSecond(epic.getEndTime())).putInt(nanoOf(epic.getEndTime()));
+            } else {
+                buffer.putLong(NO_TIME).putInt(0);
+            }
+            writeString(name);
+            writeString(description);
+        }
+
+        private void writeString(byte[] bytes) throws IOException {
+            ensure(Integer.BYTES);
+            if (bytes == null) {
+                buffer.putInt(NO_STRING);
+                return;
+            }
+            buffer.putInt(bytes.length);
+            // Длинная строка пишется частями размером с буфер
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                int chunk = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            checksum.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void finish() throws IOException {
+            drain();
+            buffer.putInt((int) checksum.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        private static long toEpochSecond(LocalDateTime time) {
+            return time == null ? NO_TIME : time.toEpochSecond(ZoneOffset.UTC);
+        }
+
+        private static int nanoOf(LocalDateTime time) {
+            return time == null ? 0 : time.getNano();
+        }
+
+        private static byte[] encode(String value) {
+            return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    // Чтение через буфер, который дополняется из канала по мере надобности.
+    // Контрольная сумма считается по байтам, уже прочитанным из буфера.
+    private static final class Reader {
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).flip();
+        private final CRC32C checksum = new CRC32C();
+        // Начало части буфера, ещё не учтённой в контрольной сумме
+        private int checksumMark;
+        // Снимок первой версии: время в минутах, без наносекунд
+        private boolean minutes;
+
+        private Reader(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private Task readRecord() throws IOException {
+            require(minutes ? MINUTES_RECORD_BYTES : RECORD_BYTES);
+            TaskTypes type = TYPES[buffer.get()];
+            Status status = STATUSES[buffer.get()];
+            int id = buffer.getInt();
+            long start = buffer.getLong();
+            LocalDateTime startTime = time(start, minutes ? 0 : buffer.getInt());
+            long duration = buffer.getLong();
+            long extra = buffer.getLong();
+            int extraNanos = minutes ? 0 : buffer.getInt();
+            String name = readString();
+            String description = readString();
+            switch (type) {
+                case TASK -> {
+                    Task task = new Task(name, description, status, id);
+                    task.setStartTime(startTime);
+                    task.setDuration(duration);
+                    return task;
+                }
+                case SUBTASK -> {
+                    Subtask subtask = new Subtask(name, description, status, id, Math.toIntExact(extra));
+                    subtask.setStartTime(startTime);
+                    subtask.setDuration(duration);
+                    return subtask;
+                }
+                case EPIC -> {
+                    Epic epic = new Epic(name, description, status, id);
+                    epic.setStartTime(startTime);
+                    epic.setEndTime(time(extra, extraNanos));
+                    epic.setDuration(duration);
+                    return epic;
+                }
+            }
+            throw new ManagerLoadException("Неизвестный тип записи: " + type);
+        }
+
+        // Время из секунд и наносекунд или, в снимке первой версии, из минут
+        private LocalDateTime time(long value, int nanos) {
+            if (minutes) {
+                return fromEpochMinute(value);
+            }
+            return value == NO_TIME ? null : LocalDateTime.ofEpochSecond(value, nanos, ZoneOffset.UTC);
+        }
+
+        private String readString() throws IOException {
+            require(Integer.BYTES);
+            int length = buffer.getInt();
+            if (length == NO_STRING) {
+                return null;
+            }
+            if (length < 0 || length > channel.size()) {
+                throw new ManagerLoadException("Повреждена длина строки: " + length);
+            }
+            require(length);
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        // В буфере не меньше bytes непрочитанных байтов, иначе файл оборван
+        private void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            consumeChecksum();
+            if (buffer.capacity() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(bytes);
+                larger.put(buffer);
+                buffer = larger;
+            } else {
+                buffer.compact();
+            }
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new ManagerLoadException("Снимок оборван");
+                }
+            }
+            buffer.flip();
+            markChecksum();
+        }
+
+        // Сумма всех байтов, прочитанных из буфера к этому моменту
+        private int checksum() {
+            consumeChecksum();
+            markChecksum();
+            return (int) checksum.getValue();
+        }
+
+        // Прочитанная часть буфера добавляется к сумме: от отметки до текущей позиции
+        private void consumeChecksum() {
+            ByteBuffer consumed = buffer.duplicate();
+            consumed.limit(buffer.position()).position(checksumMark);
+            checksum.update(consumed);
+        }
+
+        private void markChecksum() {
+            checksumMark = buffer.position();
+        }
+    }
+}
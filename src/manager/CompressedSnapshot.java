@@ -0,0 +1,96 @@
+package manager;
+
+import entity.Task;
+import exception.ManagerLoadException;
+import exception.ManagerSaveException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+
+// Текстовый снимок, сжатый в GZIP. Строки проходят через буферы потоком в обе стороны,
+// поэтому ни сжатый, ни распакованный файл целиком в памяти не оказывается.
+// Внутри тот же CSV с контрольной суммой, что и у несжатого снимка. Заголовок и конец GZIP пишутся
+// вручную, потому что GZIPOutputStream не принимает свой Deflater с быстрым уровнем сжатия.
+final class CompressedSnapshot {
+    private static final short GZIP_MAGIC = (short) 0x1f8b;
+    private static final int BUFFER_BYTES = 64 * 1024;
+    // Заголовок GZIP без имени файла и времени: сжатие deflate, ОС не указана
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private CompressedSnapshot() {
+    }
+
+    static boolean isCompressed(File file) {
+        if (file.length() < Short.BYTES) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(Short.BYTES);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // Чтение до заполнения буфера
+            }
+            return !magic.hasRemaining() && magic.getShort(0) == GZIP_MAGIC;
+        } catch (IOException e) {
+            throw new ManagerLoadException(e);
+        }
+    }
+
+    static void write(File target, List<Task> tasks) {
+        // Снимок пишется при каждом изменении, поэтому быстрое сжатие важнее степени сжатия
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try (FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream file = Channels.newOutputStream(channel);
+             DeflaterOutputStream deflated = new DeflaterOutputStream(file, deflater, BUFFER_BYTES);
+             CheckedOutputStream checked = new CheckedOutputStream(deflated, new CRC32());
+             Writer writer = new BufferedWriter(new OutputStreamWriter(checked, StandardCharsets.UTF_8), BUFFER_BYTES)) {
+            file.write(GZIP_HEADER);
+            CsvSnapshot.write(writer, tasks);
+            writer.flush();
+            deflated.finish();
+            writeTrailer(file, checked.getChecksum().getValue(), deflater.getBytesRead());
+            channel.force(true);
+        } catch (IOException e) {
+            throw new ManagerSaveException(e);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // Конец члена GZIP: CRC32 и длина несжатых данных по модулю 2^32, младшими байтами вперёд
+    private static void writeTrailer(OutputStream out, long crc, long length) throws IOException {
+        ByteBuffer trailer = ByteBuffer.allocate(2 * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        trailer.putInt((int) crc).putInt((int) length);
+        out.write(trailer.array());
+    }
+
+    // Обрыв сжатого потока или испорченные данные обнаруживает GZIP, подмену строк — контрольная сумма
+    static List<Task> read(File source) {
+        try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(
+                     new GZIPInputStream(Channels.newInputStream(channel), BUFFER_BYTES), StandardCharsets.UTF_8),
+                     BUFFER_BYTES)) {
+            return CsvSnapshot.read(reader, source);
+        } catch (IOException e) {
+            throw new ManagerLoadException(e);
+        }
+    }
+}
@@ -0,0 +1,809 @@
+package manager;
+
+import entity.BatchAction;
+import entity.BatchOperation;
+import entity.Epic;
+import entity.Status;
+import entity.Subtask;
+import entity.Task;
+import entity.TaskQuery;
+import entity.TaskTypes;
+import exception.NotFoundException;
+import util.IntHashSet;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
+
+// Потокобезопасный менеджер задач.
+// Чтение идёт из конкурентных коллекций без блокировок.
+// Изменения подзадач и эпиков блокируют только полосу блокировок своего эпика,
+// изменения расписания выполняются под отдельной блокировкой индекса пересечений.
+// Эпики не изменяются на месте: при изменении подзадач публикуется новая копия эпика,
+// поэтому читатели всегда видят согласованные подзадачи, статус и время эпика.
+public class ConcurrentTaskManager implements TaskManager {
+    private static final int LOCK_STRIPES = 64;
+
+    private final AtomicInteger id = new AtomicInteger(1);
+    private final ConcurrentMap<Integer, Task> taskMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Subtask> subtaskMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Epic> epicMap = new ConcurrentHashMap<>();
+    // Изменяются только под блокировкой полосы своего эпика
+    private final ConcurrentMap<Integer, EpicRollup> epicRollups = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<LocalDateTime, Task> prioritizedTasks = new ConcurrentSkipListMap<>();
+    private final HistoryManager historyManager = Managers.getDefaultHistory();
+    private final OverlapIndex overlapIndex;
+    // Индекс по статусам изменяется и читается под собственным монитором
+    private final StatusIndex statusIndex = new StatusIndex();
+    // Поисковый индекс также защищён собственным монитором
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final VersionCounter versions = new VersionCounter();
+    private final ReentrantLock scheduleLock = new ReentrantLock();
+    private final ReentrantLock[] epicLocks = new ReentrantLock[LOCK_STRIPES];
+
+    public ConcurrentTaskManager() {
+        this(new IntervalIndex());
+    }
+
+    public ConcurrentTaskManager(OverlapIndex overlapIndex) {
+        this.overlapIndex = overlapIndex;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            epicLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return List.copyOf(taskMap.values());
+    }
+
+    @Override
+    public List<Task> getByStatus(Status status) {
+        List<Task> result = new ArrayList<>();
+        for (TaskTypes type : TaskTypes.values()) {
+            result.addAll(getByStatus(type, status));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskTypes type, Status status) {
+        int[] ids;
+        synchronized (statusIndex) {
+            ids = statusIndex.get(type, status).toIntArray();
+        }
+        Map<Integer, ? extends Task> map = mapOf(type);
+        List<Task> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Task task = map.get(id);
+            if (task != null) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int countByStatus(Status status) {
+        int count = 0;
+        synchronized (statusIndex) {
+            for (TaskTypes type : TaskTypes.values()) {
+                count += statusIndex.count(type, status);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int countByStatus(TaskTypes type, Status status) {
+        synchronized (statusIndex) {
+            return statusIndex.count(type, status);
+        }
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        int[] ids;
+        synchronized (searchIndex) {
+            ids = searchIndex.search(query, limit);
+        }
+        List<Task> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Task task = findById(id);
+            if (task != null) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    private Task findById(int id) {
+        Task task = taskMap.get(id);
+        if (task == null) {
+            task = subtaskMap.get(id);
+        }
+        if (task == null) {
+            task = epicMap.get(id);
+        }
+        return task;
+    }
+
+    private Map<Integer, ? extends Task> mapOf(TaskTypes type) {
+        return switch (type) {
+            case TASK -> taskMap;
+            case SUBTASK -> subtaskMap;
+            case EPIC -> epicMap;
+        };
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        return List.copyOf(subtaskMap.values());
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return List.copyOf(epicMap.values());
+    }
+
+    @Override
+    public List<Task> getTasks(TaskQuery query) {
+        return page(TaskTypes.TASK, taskMap, query);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(TaskQuery query) {
+        return page(TaskTypes.SUBTASK, subtaskMap, query);
+    }
+
+    @Override
+    public List<Epic> getEpics(TaskQuery query) {
+        return page(TaskTypes.EPIC, epicMap, query);
+    }
+
+    // Кандидаты берутся из индекса статусов, из расписания для окна по времени или из всех задач типа.
+    // Задачи, изменённые во время обхода, попадают на страницу в старой или новой версии,
+    // удалённые после отбора на страницу не попадают.
+    private <T extends Task> List<T> page(TaskTypes type, Map<Integer, T> map, TaskQuery query) {
+        IntPredicate matches = taskId -> {
+            T task = map.get(taskId);
+            return task != null && query.matches(task);
+        };
+        int nextId = id.get();
+        int[] ids;
+        if (query.getStatus() != null) {
+            int count;
+            synchronized (statusIndex) {
+                count = statusIndex.count(type, query.getStatus());
+            }
+            ids = PageIds.select(query, nextId, count, action -> {
+                synchronized (statusIndex) {
+                    statusIndex.get(type, query.getStatus()).forEachInt(action);
+                }
+            }, matches);
+        } else if (PageIds.hasTimeRange(query) && type != TaskTypes.EPIC) {
+            int[] candidates = PageIds.window(prioritizedTasks, query).stream()
+                    .filter(task -> task.getType() == type)
+                    .mapToInt(Task::getId)
+                    .toArray();
+            ids = PageIds.select(query, nextId, candidates, matches);
+        } else {
+            ids = PageIds.select(query, nextId, map.size(), action -> map.keySet().forEach(action::accept), matches);
+        }
+        List<T> result = new ArrayList<>(ids.length);
+        for (int taskId : ids) {
+            T task = map.get(taskId);
+            if (task != null) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return new ArrayList<>(prioritizedTasks.values());
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime after, int limit) {
+        NavigableMap<LocalDateTime, Task> tail = after == null ? prioritizedTasks : prioritizedTasks.tailMap(after, false);
+        return tail.values().stream()
+                .limit(limit)
+                .toList();
+    }
+
+    // Представление слабо согласовано: обход не блокирует и не падает при параллельных изменениях
+    @Override
+    public Collection<Task> getPrioritizedTasksView() {
+        return Collections.unmodifiableCollection(prioritizedTasks.values());
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return List.of();
+        }
+        List<Task> result = new ArrayList<>();
+        // Задачи в расписании не пересекаются, поэтому из начавшихся до окна
+        // в него может попасть только последняя
+        Map.Entry<LocalDateTime, Task> before = prioritizedTasks.lowerEntry(from);
+        if (before != null && before.getValue().getEndTime().isAfter(from)) {
+            result.add(before.getValue());
+        }
+        result.addAll(prioritizedTasks.subMap(from, true, to, false).values());
+        return result;
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        for (Integer taskId : taskMap.keySet()) {
+            deleteTask(taskId);
+        }
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        lockAllEpics();
+        try {
+            for (Subtask subtask : subtaskMap.values()) {
+                unschedule(subtask);
+                removeFromHistory(subtask.getId());
+                unindexText(subtask.getId());
+            }
+            subtaskMap.clear();
+            clearStatusIndex(TaskTypes.SUBTASK);
+            versions.cleared(TaskTypes.SUBTASK);
+            epicRollups.values().forEach(EpicRollup::clear);
+            for (Epic epic : epicMap.values()) {
+                publishEpic(copyOf(epic, new IntHashSet()));
+            }
+        } finally {
+            unlockAllEpics();
+        }
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        lockAllEpics();
+        try {
+            epicMap.keySet().forEach(this::removeFromHistory);
+            epicMap.keySet().forEach(this::unindexText);
+            epicMap.clear();
+            epicRollups.clear();
+            clearStatusIndex(TaskTypes.EPIC);
+            versions.cleared(TaskTypes.EPIC);
+            for (Subtask subtask : subtaskMap.values()) {
+                unschedule(subtask);
+                removeFromHistory(subtask.getId());
+                unindexText(subtask.getId());
+            }
+            subtaskMap.clear();
+            clearStatusIndex(TaskTypes.SUBTASK);
+            versions.cleared(TaskTypes.SUBTASK);
+        } finally {
+            unlockAllEpics();
+        }
+    }
+
+    @Override
+    public Task getTask(int id) {
+        Task task = taskMap.get(id);
+        if (task == null) {
+            throw new NotFoundException("entity.Task with id " + id + " not found");
+        }
+        addToHistory(task);
+        return task;
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        Subtask subtask = subtaskMap.get(id);
+        if (subtask == null) {
+            throw new NotFoundException("entity.Subtask with id " + id + " not found");
+        }
+        addToHistory(subtask);
+        return subtask;
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        Epic epic = epicMap.get(id);
+        if (epic == null) {
+            throw new NotFoundException("entity.Epic with id " + id + " not found");
+        }
+        addToHistory(epic);
+        return epic;
+    }
+
+    // Задачи без эпика изменяются под блокировкой расписания, которую пакет держит от проверки
+    // до применения, поэтому проверенная пакетом задача не может исчезнуть или измениться до его конца
+    @Override
+    public void createTask(Task task) {
+        scheduleLock.lock();
+        try {
+            Task newTask = newTask(task);
+            scheduleNew(newTask);
+            storeTask(newTask);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    public void createSubtask(Subtask subtask) {
+        int epicId = subtask.getEpicId();
+        ReentrantLock lock = lockFor(epicId);
+        lock.lock();
+        try {
+            Epic epic = epicMap.get(epicId);
+            if (epic == null) {
+                throw new NotFoundException("entity.Epic not found");
+            }
+            Subtask newSubtask = newSubtask(subtask);
+            scheduleNew(newSubtask);
+            storeSubtask(newSubtask);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void createEpic(Epic epic) {
+        Epic newEpic = newEpic(epic);
+        epicRollups.put(newEpic.getId(), new EpicRollup());
+        publishEpic(newEpic);
+        indexText(newEpic);
+    }
+
+    // Задача и подзадача получают идентификатор в withNewId, после всех проверок
+    private Task newTask(Task task) {
+        Task newTask = new Task(task.getName(), task.getDescription());
+        newTask.setStartTime(task.getStartTime());
+        newTask.setDuration(task.getDuration());
+        return newTask;
+    }
+
+    private Subtask newSubtask(Subtask subtask) {
+        Subtask newSubtask = new Subtask(subtask.getName(), subtask.getDescription(), subtask.getEpicId());
+        newSubtask.setStartTime(subtask.getStartTime());
+        newSubtask.setDuration(subtask.getDuration());
+        return newSubtask;
+    }
+
+    private <T extends Task> T withNewId(T task) {
+        task.setId(id.getAndIncrement());
+        return task;
+    }
+
+    private Epic newEpic(Epic epic) {
+        Epic newEpic = new Epic(epic.getName(), epic.getDescription());
+        newEpic.setId(id.getAndIncrement());
+        newEpic.setStatus(Status.NEW);
+        return newEpic;
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        scheduleLock.lock();
+        try {
+            reschedule(taskMap.get(task.getId()), task);
+            storeTask(task);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        ReentrantLock lock = lockFor(subtask.getEpicId());
+        lock.lock();
+        try {
+            reschedule(subtaskMap.get(subtask.getId()), subtask);
+            storeSubtask(subtask);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        ReentrantLock lock = lockFor(epic.getId());
+        lock.lock();
+        try {
+            storeEpic(epic);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void storeTask(Task task) {
+        taskMap.put(task.getId(), task);
+        indexStatus(task);
+        indexText(task);
+        versions.stored(TaskTypes.TASK, task.getId());
+    }
+
+    // Вызывается под блокировкой полосы эпика подзадачи
+    private void storeSubtask(Subtask subtask) {
+        subtaskMap.put(subtask.getId(), subtask);
+        indexStatus(subtask);
+        indexText(subtask);
+        versions.stored(TaskTypes.SUBTASK, subtask.getId());
+        int epicId = subtask.getEpicId();
+        Epic epic = epicMap.get(epicId);
+        if (epic != null) {
+            epicRollups.get(epicId).put(subtask);
+            IntHashSet subtaskIds = epic.getSubtaskIds();
+            if (!subtaskIds.contains(subtask.getId())) {
+                subtaskIds = new IntHashSet(subtaskIds);
+                subtaskIds.add(subtask.getId());
+            }
+            publishEpic(copyOf(epic, subtaskIds));
+        }
+    }
+
+    // Вызывается под блокировкой полосы эпика
+    private void storeEpic(Epic epic) {
+        // Связь эпика с подзадачами хранит менеджер, а не переданный объект
+        Epic current = epicMap.get(epic.getId());
+        IntHashSet subtaskIds = current != null ? current.getSubtaskIds() : epic.getSubtaskIds();
+        epicRollups.putIfAbsent(epic.getId(), new EpicRollup());
+        publishEpic(copyOf(epic, subtaskIds));
+        indexText(epic);
+    }
+
+    @Override
+    public void deleteTask(int id) {
+        scheduleLock.lock();
+        try {
+            removeFromHistory(id);
+            Task task = taskMap.remove(id);
+            if (task != null) {
+                unschedule(task);
+                unindexStatus(TaskTypes.TASK, id);
+                unindexText(id);
+                versions.removed(TaskTypes.TASK, id);
+            }
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        Subtask subtask = subtaskMap.get(id);
+        if (subtask == null) {
+            return;
+        }
+        int epicId = subtask.getEpicId();
+        ReentrantLock lock = lockFor(epicId);
+        lock.lock();
+        try {
+            subtask = subtaskMap.remove(id);
+            if (subtask == null) {
+                return;
+            }
+            removeFromHistory(id);
+            unschedule(subtask);
+            unindexStatus(TaskTypes.SUBTASK, id);
+            unindexText(id);
+            versions.removed(TaskTypes.SUBTASK, id);
+            Epic epic = epicMap.get(epicId);
+            if (epic != null) {
+                IntHashSet subtaskIds = new IntHashSet(epic.getSubtaskIds());
+                subtaskIds.remove(id);
+                epicRollups.get(epicId).remove(id);
+                publishEpic(copyOf(epic, subtaskIds));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Epic epic = epicMap.remove(id);
+            if (epic == null) {
+                return;
+            }
+            epicRollups.remove(id);
+            epic.getSubtaskIds().forEachInt(subtaskId -> {
+                removeFromHistory(subtaskId);
+                Subtask subtask = subtaskMap.remove(subtaskId);
+                if (subtask != null) {
+                    unschedule(subtask);
+                    unindexStatus(TaskTypes.SUBTASK, subtaskId);
+                    unindexText(subtaskId);
+                    versions.removed(TaskTypes.SUBTASK, subtaskId);
+                }
+            });
+            unindexStatus(TaskTypes.EPIC, id);
+            unindexText(id);
+            removeFromHistory(id);
+            versions.removed(TaskTypes.EPIC, id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Пакет применяется под всеми блокировками эпиков и блокировкой расписания,
+    // поэтому между проверкой и применением никто не займёт проверенное время
+    @Override
+    public List<Task> applyBatch(List<BatchOperation> operations) {
+        lockAllEpics();
+        scheduleLock.lock();
+        try {
+            BatchValidator.validate(operations, (type, id) -> mapOf(type).get(id), overlapIndex);
+            Task[] result = new Task[operations.size()];
+
+            // Сначала удаления: задачи и подзадачи, затем эпики вместе с оставшимися подзадачами
+            for (int i = 0; i < result.length; i++) {
+                BatchOperation operation = operations.get(i);
+                if (operation.getAction() == BatchAction.DELETE && operation.getType() != TaskTypes.EPIC) {
+                    result[i] = mapOf(operation.getType()).get(operation.getId());
+                    if (operation.getType() == TaskTypes.TASK) {
+                        deleteTask(operation.getId());
+                    } else {
+                        deleteSubtask(operation.getId());
+                    }
+                }
+            }
+            for (int i = 0; i < result.length; i++) {
+                BatchOperation operation = operations.get(i);
+                if (operation.getAction() == BatchAction.DELETE && operation.getType() == TaskTypes.EPIC) {
+                    result[i] = epicMap.get(operation.getId());
+                    deleteEpic(operation.getId());
+                }
+            }
+
+            // Старое время всех изменяемых задач освобождается до того, как занимается новое
+            for (BatchOperation operation : operations) {
+                if (operation.getAction() == BatchAction.UPDATE && operation.getType() != TaskTypes.EPIC) {
+                    unschedule(mapOf(operation.getType()).get(operation.getId()));
+                }
+            }
+            for (int i = 0; i < result.length; i++) {
+                BatchOperation operation = operations.get(i);
+                if (operation.getAction() == BatchAction.UPDATE) {
+                    Task task = operation.getTask();
+                    switch (operation.getType()) {
+                        case TaskTypes.TASK -> {
+                            scheduleUnchecked(task);
+                            storeTask(task);
+                        }
+                        case TaskTypes.SUBTASK -> {
+                            scheduleUnchecked(task);
+                            storeSubtask((Subtask) task);
+                        }
+                        case TaskTypes.EPIC -> storeEpic((Epic) task);
+                    }
+                    result[i] = task;
+                }
+            }
+
+            // Созданные задачи получают идентификаторы в порядке операций
+            for (int i = 0; i < result.length; i++) {
+                BatchOperation operation = operations.get(i);
+                if (operation.getAction() == BatchAction.CREATE) {
+                    switch (operation.getType()) {
+                        case TaskTypes.TASK -> {
+                            Task newTask = withNewId(newTask(operation.getTask()));
+                            scheduleUnchecked(newTask);
+                            storeTask(newTask);
+                            result[i] = newTask;
+                        }
+                        case TaskTypes.SUBTASK -> {
+                            Subtask newSubtask = withNewId(newSubtask((Subtask) operation.getTask()));
+                            scheduleUnchecked(newSubtask);
+                            storeSubtask(newSubtask);
+                            result[i] = newSubtask;
+                        }
+                        case TaskTypes.EPIC -> {
+                            Epic newEpic = newEpic((Epic) operation.getTask());
+                            epicRollups.put(newEpic.getId(), new EpicRollup());
+                            publishEpic(newEpic);
+                            indexText(newEpic);
+                            result[i] = newEpic;
+                        }
+                    }
+                }
+            }
+            return List.of(result);
+        } finally {
+            scheduleLock.unlock();
+            unlockAllEpics();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        synchronized (historyManager) {
+            return historyManager.getHistory();
+        }
+    }
+
+    @Override
+    public long getVersion(TaskTypes type) {
+        return versions.collection(type);
+    }
+
+    @Override
+    public long getVersion(TaskTypes type, int id) {
+        return versions.entity(type, id);
+    }
+
+    @Override
+    public long getPrioritizedVersion() {
+        return versions.prioritized();
+    }
+
+    @Override
+    public long getHistoryVersion() {
+        return versions.history();
+    }
+
+    private void addToHistory(Task task) {
+        synchronized (historyManager) {
+            historyManager.add(task);
+        }
+        versions.viewed();
+    }
+
+    private void removeFromHistory(int id) {
+        synchronized (historyManager) {
+            historyManager.remove(id);
+        }
+    }
+
+    // Проверка пересечения и добавление в расписание выполняются атомарно
+    private void schedule(Task task) {
+        if (task.getStartTime() == null) {
+            return;
+        }
+        scheduleLock.lock();
+        try {
+            requireFreeTime(task);
+            scheduleUnchecked(task);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    // Новая задача получает идентификатор только после проверки пересечения,
+    // поэтому отклонённое создание не тратит идентификатор
+    private void scheduleNew(Task task) {
+        if (task.getStartTime() == null) {
+            withNewId(task);
+            return;
+        }
+        scheduleLock.lock();
+        try {
+            requireFreeTime(task);
+            scheduleUnchecked(withNewId(task));
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    private void requireFreeTime(Task task) {
+        if (overlapIndex.overlaps(task)) {
+            throw new IllegalArgumentException("Время задачи пересекается с существующей");
+        }
+    }
+
+    // Добавление в расписание без проверки, вызывается под блокировкой расписания
+    private void scheduleUnchecked(Task task) {
+        if (task.getStartTime() != null) {
+            overlapIndex.add(task);
+            prioritizedTasks.put(task.getStartTime(), task);
+        }
+    }
+
+    // Замена времени задачи в расписании. При пересечении остаётся старое время.
+    private void reschedule(Task oldTask, Task newTask) {
+        scheduleLock.lock();
+        try {
+            if (oldTask != null) {
+                unschedule(oldTask);
+            }
+            try {
+                schedule(newTask);
+            } catch (IllegalArgumentException e) {
+                if (oldTask != null) {
+                    scheduleUnchecked(oldTask);
+                }
+                throw e;
+            }
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    private void unschedule(Task task) {
+        if (task == null || task.getStartTime() == null) {
+            return;
+        }
+        scheduleLock.lock();
+        try {
+            overlapIndex.remove(task);
+            prioritizedTasks.remove(task.getStartTime(), task);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    private void publishEpic(Epic epic) {
+        epicMap.put(epic.getId(), epic);
+        indexStatus(epic);
+        versions.stored(TaskTypes.EPIC, epic.getId());
+    }
+
+    private void indexStatus(Task task) {
+        synchronized (statusIndex) {
+            statusIndex.update(task);
+        }
+    }
+
+    private void unindexStatus(TaskTypes type, int id) {
+        synchronized (statusIndex) {
+            statusIndex.remove(type, id);
+        }
+    }
+
+    private void clearStatusIndex(TaskTypes type) {
+        synchronized (statusIndex) {
+            statusIndex.clear(type);
+        }
+    }
+
+    private void indexText(Task task) {
+        synchronized (searchIndex) {
+            searchIndex.update(task);
+        }
+    }
+
+    private void unindexText(int id) {
+        synchronized (searchIndex) {
+            searchIndex.remove(id);
+        }
+    }
+
+    // Новая копия эпика с переданными подзадачами и статусом и временем из накопленных показателей
+    private Epic copyOf(Epic epic, IntHashSet subtaskIds) {
+        Epic newEpic = new Epic(epic.getName(), epic.getDescription(), epic.getStatus(), epic.getId());
+        subtaskIds.forEachInt(newEpic::addSubtaskId);
+        epicRollups.get(epic.getId()).applyTo(newEpic);
+        return newEpic;
+    }
+
+    private ReentrantLock lockFor(int epicId) {
+        return epicLocks[Math.floorMod(epicId, LOCK_STRIPES)];
+    }
+
+    private void lockAllEpics() {
+        for (ReentrantLock lock : epicLocks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAllEpics() {
+        for (int i = LOCK_STRIPES - 1; i >= 0; i--) {
+            epicLocks[i].unlock();
+        }
+    }
+}
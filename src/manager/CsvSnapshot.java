@@ -0,0 +1,347 @@
+package manager;
+
+import entity.Epic;
+import entity.Status;
+import entity.Subtask;
+import entity.Task;
+import entity.TaskTypes;
+import exception.ManagerLoadException;
+import exception.ManagerSaveException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32C;
+
+// Текстовый снимок задач: заголовок, строка на задачу и последней строкой контрольная сумма CRC32C.
+// Сумма считается по строкам, за каждой из которых идёт '\n', поэтому не зависит от вида перевода строки.
+// Заголовок с версией отличает снимки, у которых строка с суммой обязательна, от снимков старых версий:
+// без этого снимок, оборванный на границе строки, загрузился бы как старый без проверки.
+// Большой файл при чтении делится на куски по границам строк, куски разбираются параллельно
+// в общем пуле fork-join, а контрольная сумма считается отдельной задачей того же пула.
+final class CsvSnapshot {
+    static final String LEGACY_HEADER = "id,type,name,status,description,startTime,endTime,duration,epic";
+    static final String HEADER = LEGACY_HEADER + ",v2";
+    static final String CHECKSUM = "checksum";
+    private static final String NO_TIME = "null";
+    private static final int MIN_CHUNK_BYTES = 1024 * 1024;
+    private static final long MAX_CHUNK_BYTES = 1L << 30;
+    private static final int TAIL_BYTES = 128;
+
+    private CsvSnapshot() {
+    }
+
+    // Снимок пишется потоком строк, в конце добавляется контрольная сумма, и файл сбрасывается на диск
+    static void write(File target, List<Task> tasks) {
+        try (FileOutputStream stream = new FileOutputStream(target)) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+            write(writer, tasks);
+            writer.flush();
+            stream.getFD().sync();
+        } catch (IOException e) {
+            throw new ManagerSaveException(e);
+        }
+    }
+
+    // Строки снимка в любой поток, например в сжимающий
+    static void write(Writer writer, List<Task> tasks) throws IOException {
+        CRC32C checksum = new CRC32C();
+        writeLine(writer, checksum, HEADER);
+        for (Task task : tasks) {
+            writeLine(writer, checksum, task.toString());
+        }
+        writer.write(CHECKSUM + "," + Long.toHexString(checksum.getValue()) + System.lineSeparator());
+    }
+
+    // Задачи снимка в порядке строк. Контрольная сумма проверяется до возврата.
+    // Снимок со старым заголовком и без строки с контрольной суммой читается без проверки.
+    static List<Task> read(File source) {
+        try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            Footer footer = readFooter(channel, size);
+            if (footer == null && isVersioned(channel, size)) {
+                throw new ManagerLoadException("Снимок записан не до конца: " + source);
+            }
+            long dataEnd = footer == null ? size : footer.start;
+            List<long[]> chunks = split(channel, dataEnd);
+
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            ForkJoinTask<Long> checksum = footer == null ? null : pool.submit(() -> checksum(channel, chunks));
+            List<ForkJoinTask<List<Task>>> parsers = new ArrayList<>(chunks.size());
+            for (long[] chunk : chunks) {
+                parsers.add(pool.submit(() -> parse(map(channel, chunk), chunk[0] == 0)));
+            }
+            List<Task> tasks = new ArrayList<>();
+            for (ForkJoinTask<List<Task>> parser : parsers) {
+                tasks.addAll(parser.join());
+            }
+            if (checksum != null && !footer.value.equals(Long.toHexString(checksum.join()))) {
+                throw new ManagerLoadException("Не совпадает контрольная сумма снимка " + source);
+            }
+            return tasks;
+        } catch (IOException e) {
+            throw new ManagerLoadException(e);
+        } catch (ManagerLoadException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new ManagerLoadException("Повреждён снимок " + source, e);
+        }
+    }
+
+    // Последовательное чтение снимка из потока строк, когда файл нельзя делить на куски,
+    // например после распаковки. Контрольная сумма считается по ходу чтения.
+    static List<Task> read(BufferedReader reader, File source) {
+        try {
+            List<Task> tasks = new ArrayList<>();
+            CRC32C checksum = new CRC32C();
+            String footer = null;
+            String line = reader.readLine();
+            boolean versioned = HEADER.equals(line);
+            if (line != null) {
+                updateLine(checksum, line);
+            }
+            while ((line = reader.readLine()) != null) {
+                if (footer != null) {
+                    if (!line.isEmpty()) {
+                        throw new ManagerLoadException("Строки после контрольной суммы");
+                    }
+                } else if (line.startsWith(CHECKSUM + ",")) {
+                    footer = line.substring(CHECKSUM.length() + 1);
+                } else {
+                    updateLine(checksum, line);
+                    tasks.add(parseLine(line));
+                }
+            }
+            if (footer == null && versioned) {
+                throw new ManagerLoadException("Снимок записан не до конца: " + source);
+            }
+            if (footer != null && !footer.equals(Long.toHexString(checksum.getValue()))) {
+                throw new ManagerLoadException("Не совпадает контрольная сумма снимка " + source);
+            }
+            return tasks;
+        } catch (IOException e) {
+            throw new ManagerLoadException(e);
+        } catch (ManagerLoadException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new ManagerLoadException("Повреждён снимок " + source, e);
+        }
+    }
+
+    static Task parseLine(String value) {
+        String[] parts = value.split(",");
+        int id = Integer.parseInt(parts[0]);
+        String name = parts[2];
+        Status status = Status.valueOf(parts[3]);
+        String description = parts[4];
+        LocalDateTime startTime = parseTime(parts[5]);
+        LocalDateTime endTime = parseTime(parts[6]);
+
+        long duration = Long.parseLong(parts[7]);
+        switch (TaskTypes.valueOf(parts[1])) {
+            case TaskTypes.TASK -> {
+                Task task = new Task(name, description, status, id);
+                task.setStartTime(startTime);
+                task.setDuration(duration);
+                return task;
+            }
+            case TaskTypes.SUBTASK -> {
+                int epicId = Integer.parseInt(parts[8]);
+                Subtask subtask = new Subtask(name, description, status, id, epicId);
+                subtask.setStartTime(startTime);
+                subtask.setDuration(duration);
+                return subtask;
+            }
+            case TaskTypes.EPIC -> {
+                Epic epic = new Epic(name, description, status, id);
+                epic.setStartTime(startTime);
+                epic.setEndTime(endTime);
+                epic.setDuration(duration);
+                return epic;
+            }
+        }
+        return null;
+    }
+
+    // Отсутствие времени записывается как "null" и не считается ошибкой
+    private static LocalDateTime parseTime(String value) {
+        if (value.equals(NO_TIME)) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            System.err.println(e.getMessage());
+            return null;
+        }
+    }
+
+    private static void writeLine(Writer writer, CRC32C checksum, String line) throws IOException {
+        writer.write(line);
+        writer.write(System.lineSeparator());
+        updateLine(checksum, line);
+    }
+
+    private static void updateLine(CRC32C checksum, String line) {
+        checksum.update(line.getBytes(StandardCharsets.UTF_8));
+        checksum.update('\n');
+    }
+
+    // Первая строка файла - заголовок с версией
+    private static boolean isVersioned(FileChannel channel, long size) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate((int) Math.min(size, HEADER.length() + 1));
+        readFully(channel, head, 0);
+        String line = StandardCharsets.UTF_8.decode(head).toString();
+        return line.startsWith(HEADER)
+                && (line.length() == HEADER.length() || line.charAt(HEADER.length()) == '\r'
+                || line.charAt(HEADER.length()) == '\n');
+    }
+
+    // Последняя строка файла, если это контрольная сумма
+    private static Footer readFooter(FileChannel channel, long size) throws IOException {
+        long tailStart = Math.max(0, size - TAIL_BYTES);
+        ByteBuffer tail = ByteBuffer.allocate((int) (size - tailStart));
+        readFully(channel, tail, tailStart);
+        int end = tail.limit();
+        while (end > 0 && (tail.get(end - 1) == '\n' || tail.get(end - 1) == '\r')) {
+            end--;
+        }
+        int lineStart = end;
+        while (lineStart > 0 && tail.get(lineStart - 1) != '\n') {
+            lineStart--;
+        }
+        if (lineStart == 0 && tailStart > 0) {
+            return null;
+        }
+        String line = StandardCharsets.UTF_8.decode(tail.slice(lineStart, end - lineStart)).toString();
+        if (!line.startsWith(CHECKSUM + ",")) {
+            return null;
+        }
+        return new Footer(tailStart + lineStart, line.substring(CHECKSUM.length() + 1));
+    }
+
+    // Деление [0, end) на куски, каждый из которых заканчивается концом строки
+    private static List<long[]> split(FileChannel channel, long end) throws IOException {
+        long count = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism() * 4L, end / MIN_CHUNK_BYTES));
+        count = Math.max(count, (end + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+        List<long[]> chunks = new ArrayList<>();
+        long start = 0;
+        for (long i = 1; i <= count && start < end; i++) {
+            long boundary = i == count ? end : nextLineStart(channel, Math.max(start, end * i / count), end);
+            if (boundary > start) {
+                chunks.add(new long[]{start, boundary});
+                start = boundary;
+            }
+        }
+        return chunks;
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        while (position < end) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return Math.min(position + i + 1, end);
+                }
+            }
+            position += read;
+        }
+        return end;
+    }
+
+    private static ByteBuffer map(FileChannel channel, long[] chunk) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<Task> parse(ByteBuffer bytes, boolean skipHeader) {
+        CharBuffer chars;
+        try {
+            chars = StandardCharsets.UTF_8.newDecoder().decode(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<Task> tasks = new ArrayList<>();
+        int lineStart = 0;
+        boolean header = skipHeader;
+        while (lineStart < chars.limit()) {
+            int lineEnd = lineStart;
+            while (lineEnd < chars.limit() && chars.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd > lineStart && chars.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            String line = chars.subSequence(lineStart, contentEnd).toString();
+            if (header) {
+                header = false;
+            } else if (line.startsWith(CHECKSUM + ",")) {
+                throw new ManagerLoadException("Строки после контрольной суммы");
+            } else {
+                tasks.add(parseLine(line));
+            }
+            lineStart = lineEnd + 1;
+        }
+        return tasks;
+    }
+
+    // Сумма по байтам до строки с контрольной суммой; '\r' перед '\n' в сумму не входит
+    private static long checksum(FileChannel channel, List<long[]> chunks) {
+        CRC32C checksum = new CRC32C();
+        for (long[] chunk : chunks) {
+            ByteBuffer bytes = map(channel, chunk);
+            int from = 0;
+            int limit = bytes.limit();
+            for (int i = 0; i < limit - 1; i++) {
+                if (bytes.get(i) == '\r' && bytes.get(i + 1) == '\n') {
+                    checksum.update(bytes.slice(from, i - from));
+                    from = i + 1;
+                }
+            }
+            checksum.update(bytes.slice(from, limit - from));
+        }
+        return checksum.getValue();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+    }
+
+    private static final class Footer {
+        private final long start;
+        private final String value;
+
+        private Footer(long start, String value) {
+            this.start = start;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package manager;
+
+import java.time.Duration;
+
+// Когда записи журнала изменений попадают на диск
+public class DurabilityPolicy {
+    private final Mode mode;
+    private final Duration interval;
+    private final int maxOperations;
+    private final int queueCapacity;
+
+    private DurabilityPolicy(Mode mode, Duration interval, int maxOperations, int queueCapacity) {
+        this.mode = mode;
+        this.interval = interval;
+        this.maxOperations = maxOperations;
+        this.queueCapacity = queueCapacity;
+    }
+
+    // Каждая запись сбрасывается на диск до возврата из метода менеджера
+    public static DurabilityPolicy sync() {
+        return new DurabilityPolicy(Mode.SYNC, Duration.ZERO, 1, 0);
+    }
+
+    // Записи сразу пишутся в файл, а на диск сбрасываются одним fsync
+    // не позже чем через interval после первой несброшенной записи или после maxOperations записей
+    public static DurabilityPolicy groupCommit(Duration interval, int maxOperations) {
+        if (interval.isNegative() || interval.isZero() || maxOperations <= 0) {
+            throw new IllegalArgumentException("Интервал и число операций должны быть положительными");
+        }
+        return new DurabilityPolicy(Mode.GROUP_COMMIT, interval, maxOperations, 0);
+    }
+
+    // Записи попадают в очередь и пишутся фоновым потоком, накопившиеся записи сбрасываются одним fsync.
+    // Если очередь заполнена, запись ждёт, пока в ней освободится место.
+    public static DurabilityPolicy async(int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Ёмкость очереди должна быть положительной");
+        }
+        return new DurabilityPolicy(Mode.ASYNC, Duration.ZERO, 0, queueCapacity);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public int getMaxOperations() {
+        return maxOperations;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public enum Mode {
+        SYNC,
+        GROUP_COMMIT,
+        ASYNC
+    }
+}
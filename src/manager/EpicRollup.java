@@ -0,0 +1,109 @@
+package manager;
+
+import entity.Epic;
+import entity.Status;
+import entity.Subtask;
+import util.IntObjectHashMap;
+
+import java.time.LocalDateTime;
+import java.util.TreeMap;
+
+// Накопленные показатели подзадач эпика: количество подзадач в каждом статусе,
+// суммарная продолжительность и упорядоченные мультимножества времени старта и окончания.
+// Изменение одной подзадачи пересчитывает эпик за O(log k).
+class EpicRollup {
+    private final int[] statusCounts = new int[Status.values().length];
+    private final TreeMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+    private final TreeMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
+    // Вклад каждой подзадачи запоминается, чтобы корректно убрать его даже
+    // если объект подзадачи был изменён снаружи
+    private final IntObjectHashMap<Contribution> contributions = new IntObjectHashMap<>();
+    private long duration;
+
+    // Добавление подзадачи или замена её предыдущего вклада
+    void put(Subtask subtask) {
+        remove(subtask.getId());
+        Contribution contribution = new Contribution(subtask.getStatus(), subtask.getStartTime(),
+                subtask.getEndTime(), subtask.getDuration());
+        contributions.put(subtask.getId(), contribution);
+
+        statusCounts[contribution.status.ordinal()]++;
+        duration += contribution.duration;
+        if (contribution.startTime != null) {
+            startTimes.merge(contribution.startTime, 1, Integer::sum);
+            endTimes.merge(contribution.endTime, 1, Integer::sum);
+        }
+    }
+
+    void remove(int subtaskId) {
+        Contribution contribution = contributions.remove(subtaskId);
+        if (contribution == null) {
+            return;
+        }
+        statusCounts[contribution.status.ordinal()]--;
+        duration -= contribution.duration;
+        if (contribution.startTime != null) {
+            decrement(startTimes, contribution.startTime);
+            decrement(endTimes, contribution.endTime);
+        }
+    }
+
+    void clear() {
+        contributions.clear();
+        startTimes.clear();
+        endTimes.clear();
+        duration = 0;
+        for (int i = 0; i < statusCounts.length; i++) {
+            statusCounts[i] = 0;
+        }
+    }
+
+    Status getStatus() {
+        if (contributions.isEmpty()) {
+            return Status.NEW;
+        } else if (statusCounts[Status.IN_PROGRESS.ordinal()] > 0) {
+            return Status.IN_PROGRESS;
+        } else if (statusCounts[Status.DONE.ordinal()] == 0) {
+            return Status.NEW;
+        }
+        return Status.DONE;
+    }
+
+    LocalDateTime getStartTime() {
+        return startTimes.isEmpty() ? null : startTimes.firstKey();
+    }
+
+    LocalDateTime getEndTime() {
+        return endTimes.isEmpty() ? null : endTimes.lastKey();
+    }
+
+    long getDuration() {
+        return duration;
+    }
+
+    // Перенос статуса, времени и продолжительности в эпик
+    void applyTo(Epic epic) {
+        epic.setStatus(getStatus());
+        epic.setStartTime(getStartTime());
+        epic.setEndTime(getEndTime());
+        epic.setDuration(duration);
+    }
+
+    private static void decrement(TreeMap<LocalDateTime, Integer> times, LocalDateTime time) {
+        times.computeIfPresent(time, (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    private static class Contribution {
+        final Status status;
+        final LocalDateTime startTime;
+        final LocalDateTime endTime;
+        final long duration;
+
+        Contribution(Status status, LocalDateTime startTime, LocalDateTime endTime, long duration) {
+            this.status = status;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.duration = duration;
+        }
+    }
+}
@@ -3,96 +3,491 @@ package manager;
 import entity.*;
 import exception.ManagerLoadException;
 import exception.ManagerSaveException;
+import util.IntHashSet;
+import util.IntObjectHashMap;
 
 import java.io.*;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeParseException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class FileBackedTaskManager extends InMemoryTaskManager implements Closeable {
+    // Записи журнала: задача целиком, удаление задачи, удаление всех задач типа,
+    // начало, конец и отмена пакета. Записи пакета без конца при восстановлении отбрасываются.
+    private static final String STORED = "U";
+    private static final String REMOVED = "D";
+    private static final String CLEARED = "C";
+    private static final String BATCH_BEGIN = "B";
+    private static final String BATCH_END = "E";
+    private static final String BATCH_ABORT = "A";
+    // Пороги журнала, после которых запускается сжатие
+    private static final long DEFAULT_MAX_LOG_BYTES = 4 * 1024 * 1024;
+    private static final int DEFAULT_MAX_LOG_RECORDS = 10_000;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
     private final File file;
+    // Формат, в котором сохраняется снимок; при загрузке определяется по содержимому файла
+    private StorageFormat format = StorageFormat.CSV;
+    // Во время применения пакета файл сохраняется один раз, после всех операций
+    private boolean inBatch;
+    // Журнал изменений; если он есть, файл со снимком перезаписывается только в checkpoint
+    private WriteAheadLog log;
+    private boolean batchLogged;
+    private long maxLogBytes;
+    private int maxLogRecords;
+    // Сжатие выполняется в отдельном потоке, одновременно идёт не больше одного сжатия
+    private ExecutorService compactor;
+    private Future<?> compaction;
+    // Сегменты с изменёнными или удалёнными задачами, которые перезапишет следующее сохранение
+    private final IntHashSet dirtySegments = new IntHashSet();
+    private boolean allSegmentsDirty;
+    // Загружено предыдущее поколение: текущее повреждено и при сохранении не должно стать предыдущим
+    private boolean currentGenerationDamaged;
 
     public FileBackedTaskManager(File file) {
         this.file = file;
     }
 
+    public FileBackedTaskManager(File file, OverlapIndex overlapIndex) {
+        super(overlapIndex);
+        this.file = file;
+    }
+
+    public FileBackedTaskManager(File file, StorageFormat format) {
+        this.file = file;
+        this.format = format;
+    }
+
+    public StorageFormat getFormat() {
+        return format;
+    }
+
+    // Снимок текущего состояния в отдельный файл в заданном формате, например для экспорта в CSV
+    public void exportTo(File target, StorageFormat format) {
+        writeSnapshot(target, this, format);
+    }
+
     private void save() {
-        StringBuilder resultString = new StringBuilder("id,type,name,status,description,startTime,endTime,duration,epic" + System.lineSeparator());
+        if (inBatch || log != null) {
+            return;
+        }
+        if (format == StorageFormat.SEGMENTED) {
+            saveDirtySegments();
+        } else {
+            writeSnapshotAtomically(this);
+        }
+    }
+
+    // Перезаписываются только сегменты, в которых менялись или удалялись задачи.
+    // Если сохранение не удалось, сегменты остаются отмеченными до следующего.
+    private void saveDirtySegments() {
+        if (allSegmentsDirty) {
+            SegmentedSnapshot.writeAll(file, snapshotOf(this), !currentGenerationDamaged);
+        } else if (dirtySegments.size() > 0) {
+            IntObjectHashMap<List<Task>> segments = new IntObjectHashMap<>();
+            dirtySegments.forEachInt(segment -> segments.put(segment, tasksOfSegment(segment)));
+            SegmentedSnapshot.write(file, segments, false, true);
+        }
+        dirtySegments.clear();
+        allSegmentsDirty = false;
+        currentGenerationDamaged = false;
+    }
+
+    private List<Task> tasksOfSegment(int segment) {
+        List<Task> tasks = new ArrayList<>();
+        int firstId = SegmentedSnapshot.firstIdOf(segment);
+        for (int i = 0; i < SegmentedSnapshot.SEGMENT_IDS; i++) {
+            Task task = findById(firstId + i);
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    private void markDirty(int id) {
+        if (format == StorageFormat.SEGMENTED && log == null) {
+            dirtySegments.add(SegmentedSnapshot.segmentOf(id));
+        }
+    }
 
-        getTasks().forEach(task -> resultString.append(task).append(System.lineSeparator()));
-        getEpics().forEach(epic -> resultString.append(epic).append(System.lineSeparator()));
-        getSubtasks().forEach(subtask -> resultString.append(subtask).append(System.lineSeparator()));
+    private static List<Task> snapshotOf(TaskManager source) {
+        List<Task> tasks = new ArrayList<>(source.getTasks());
+        tasks.addAll(source.getEpics());
+        tasks.addAll(source.getSubtasks());
+        return tasks;
+    }
+
+    private static void writeSnapshot(File target, TaskManager source, StorageFormat format) {
+        List<Task> tasks = snapshotOf(source);
+        switch (format) {
+            case BINARY -> BinarySnapshot.write(target, tasks);
+            case CSV_GZIP -> CompressedSnapshot.write(target, tasks);
+            case SEGMENTED -> SegmentedSnapshot.writeAll(target, tasks, true);
+            default -> CsvSnapshot.write(target, tasks);
+        }
+    }
+
+    // Менеджер, который дописывает каждое изменение в журнал рядом с файлом вместо перезаписи файла.
+    // При запуске журнал применяется поверх последнего снимка.
+    public static FileBackedTaskManager loadWithLog(File file) {
+        return loadWithLog(file, DurabilityPolicy.sync());
+    }
+
+    // Менеджер с журналом, записи которого попадают на диск по правилу durability
+    public static FileBackedTaskManager loadWithLog(File file, DurabilityPolicy durability) {
+        return loadWithLog(file, DEFAULT_MAX_LOG_BYTES, DEFAULT_MAX_LOG_RECORDS, durability);
+    }
+
+    // Журнал сжимается в новый снимок, когда его размер или число записей достигает порога
+    public static FileBackedTaskManager loadWithLog(File file, long maxLogBytes, int maxLogRecords) {
+        return loadWithLog(file, maxLogBytes, maxLogRecords, DurabilityPolicy.sync());
+    }
+
+    public static FileBackedTaskManager loadWithLog(File file, long maxLogBytes, int maxLogRecords,
+                                                    DurabilityPolicy durability) {
+        FileBackedTaskManager taskManager = file.exists() ? loadFromFile(file) : new FileBackedTaskManager(file);
+        // Запечатанный журнал остаётся, если сжатие не успело завершиться
+        File sealedLog = sealedLogFileOf(file);
+        boolean interrupted = taskManager.replay(new WriteAheadLog(sealedLog).read());
+        WriteAheadLog log = new WriteAheadLog(logFileOf(file), durability);
+        interrupted |= taskManager.replay(log.read());
+        taskManager.rebuildIndexes();
+        taskManager.log = log;
+        taskManager.maxLogBytes = maxLogBytes;
+        taskManager.maxLogRecords = maxLogRecords;
+        taskManager.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wal-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (interrupted) {
+            // Новые записи попали бы за оборванный пакет или запись и пропали бы при следующем
+            // восстановлении вместе с ними. Снимок текущего состояния заменяет оба журнала.
+            taskManager.checkpoint();
+            try {
+                Files.deleteIfExists(sealedLog.toPath());
+            } catch (IOException e) {
+                throw new ManagerSaveException(e);
+            }
+        } else if (sealedLog.exists()) {
+            taskManager.compact();
+        }
+        return taskManager;
+    }
+
+    static File logFileOf(File file) {
+        return new File(file.getPath() + ".wal");
+    }
+
+    static File sealedLogFileOf(File file) {
+        return new File(file.getPath() + ".wal.sealed");
+    }
+
+    // Запись полного снимка и очистка журнала.
+    // Если процесс упадёт между этими шагами, повторное применение журнала к новому снимку
+    // даст то же состояние: записи журнала содержат задачи целиком.
+    public void checkpoint() {
+        awaitCompaction();
+        writeSnapshotAtomically(this);
+        if (log != null) {
+            log.reset();
+        }
+    }
+
+    // Сжатие журнала в фоне. Текущий журнал запечатывается, и новые записи идут в новый файл,
+    // поэтому запись изменений не ждёт, пока строится снимок. Фоновый поток загружает
+    // последний снимок, применяет к нему запечатанный журнал, атомарно заменяет снимок
+    // и удаляет запечатанный журнал.
+    public void compact() {
+        if (log == null || (compaction != null && !compaction.isDone())) {
+            return;
+        }
+        File sealedLog = sealedLogFileOf(file);
+        // Если прошлое сжатие не удалось, сначала сжимается оставшийся запечатанный журнал
+        if (!sealedLog.exists()) {
+            log.rotateTo(sealedLog);
+        }
+        if (sealedLog.exists()) {
+            compaction = compactor.submit(() -> mergeIntoSnapshot(sealedLog));
+        }
+    }
+
+    // Ожидание, пока все изменения окажутся на диске, при любом правиле сброса журнала
+    public void flush() {
+        if (log != null) {
+            log.flushPending();
+        }
+    }
+
+    // Ожидание завершения текущего сжатия
+    void awaitCompaction() {
+        if (compaction == null) {
+            return;
+        }
+        try {
+            compaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new ManagerSaveException("Не удалось сжать журнал", e.getCause());
+        }
+    }
+
+    private void mergeIntoSnapshot(File sealedLog) {
+        try {
+            FileBackedTaskManager merged = file.exists() ? loadFromFile(file) : new FileBackedTaskManager(file);
+            merged.replay(new WriteAheadLog(sealedLog).read());
+            writeSnapshotAtomically(merged);
+            Files.delete(sealedLog.toPath());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Не удалось сжать журнал: " + e.getMessage());
+            throw new ManagerSaveException(e);
+        }
+    }
 
-        try (Writer writer = new FileWriter(file)) {
-            writer.write(resultString.toString());
+    // Снимок пишется во временный файл и заменяет старый переименованием, поэтому на месте
+    // снимка никогда не остаётся недописанный файл. Старый снимок сохраняется как предыдущее
+    // поколение: если новый окажется повреждён, загрузка возьмёт предыдущий. Снимок, который
+    // не прошёл проверку при загрузке, предыдущим не становится, иначе он заменил бы единственное
+    // целое поколение.
+    private void writeSnapshotAtomically(FileBackedTaskManager source) {
+        // Поколение сегментов заменяется атомарно заменой манифеста
+        if (format == StorageFormat.SEGMENTED) {
+            SegmentedSnapshot.writeAll(file, snapshotOf(source), !source.currentGenerationDamaged);
+            source.currentGenerationDamaged = false;
+            return;
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        writeSnapshot(temp, source, format);
+        try {
+            if (file.exists() && !source.currentGenerationDamaged) {
+                Files.move(file.toPath(), previousGenerationOf(file).toPath(),
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
         } catch (IOException e) {
             throw new ManagerSaveException(e);
         }
+        syncDirectory(file.getAbsoluteFile().toPath().getParent());
+        source.currentGenerationDamaged = false;
     }
 
-    private Task fromString(String value) {
-        String[] parts = value.split(",");
-        int id = Integer.parseInt(parts[0]);
-        String name = parts[2];
-        Status status = Status.valueOf(parts[3]);
-        String description = parts[4];
+    static File previousGenerationOf(File file) {
+        return new File(file.getPath() + ".prev");
+    }
 
-        LocalDateTime startTime = null;
-        LocalDateTime endTime = null;
-        try {
-            startTime = LocalDateTime.parse(parts[5]);
-            endTime = LocalDateTime.parse(parts[6]);
-        } catch (DateTimeParseException e) {
-            System.err.println(e.getMessage());
-        }
-
-        long duration = Long.parseLong(parts[7]);
-        switch (TaskTypes.valueOf(parts[1])) {
-            case TaskTypes.TASK -> {
-                Task task = new Task(name, description, status, id);
-                task.setStartTime(startTime);
-                task.setDuration(duration);
-                return task;
+    // Переименования надёжно попадают на диск только после сброса каталога.
+    // Не во всех системах каталог можно открыть, тогда остаётся положиться на файловую систему.
+    static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Сброс каталога не поддерживается
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (log.size() >= maxLogBytes || log.records() >= maxLogRecords) {
+            compact();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (compactor != null) {
+            compactor.shutdown();
+            try {
+                compactor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
-            case TaskTypes.SUBTASK -> {
-                int epicId = Integer.parseInt(parts[8]);
-                Subtask subtask = new Subtask(name, description, status, id, epicId);
-                subtask.setStartTime(startTime);
-                subtask.setDuration(duration);
-                return subtask;
+        }
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    // Применение записей журнала. Возвращает true, если журнал обрывается внутри пакета
+    // или на недописанной записи.
+    private boolean replay(List<String> records) {
+        List<String> batch = null;
+        for (int i = 0; i < records.size(); i++) {
+            String record = records.get(i);
+            try {
+                if (record.equals(BATCH_BEGIN)) {
+                    // Начатый раньше пакет без конца не применяется
+                    batch = new ArrayList<>();
+                } else if (record.equals(BATCH_END)) {
+                    if (batch != null) {
+                        batch.forEach(this::applyRecord);
+                    }
+                    batch = null;
+                } else if (record.equals(BATCH_ABORT)) {
+                    batch = null;
+                } else if (batch != null) {
+                    batch.add(record);
+                } else {
+                    applyRecord(record);
+                }
+            } catch (RuntimeException e) {
+                // Последняя запись могла быть записана не до конца
+                if (i == records.size() - 1) {
+                    return true;
+                }
+                throw new ManagerLoadException("Повреждена запись журнала: " + record, e);
             }
-            case TaskTypes.EPIC -> {
-                Epic epic = new Epic(name, description, status, id);
-                epic.setStartTime(startTime);
-                epic.setEndTime(endTime);
-                epic.setDuration(duration);
-                return epic;
+        }
+        return batch != null;
+    }
+
+    private void applyRecord(String record) {
+        String[] parts = record.split(",", 2);
+        switch (parts[0]) {
+            case STORED -> load(CsvSnapshot.parseLine(parts[1]));
+            case REMOVED -> {
+                String[] removed = parts[1].split(",");
+                unload(TaskTypes.valueOf(removed[0]), Integer.parseInt(removed[1]));
             }
+            case CLEARED -> unloadAll(TaskTypes.valueOf(parts[1]));
+            default -> throw new IllegalArgumentException("Неизвестная запись журнала: " + record);
         }
-        return null;
     }
 
+    private void appendToLog(String record) {
+        if (log == null) {
+            return;
+        }
+        if (inBatch && !batchLogged) {
+            log.append(BATCH_BEGIN);
+            batchLogged = true;
+        }
+        log.append(record);
+        // Журнал не запечатывается посреди пакета
+        if (!inBatch) {
+            compactIfNeeded();
+        }
+    }
+
+    @Override
+    protected void onStored(Task task) {
+        markDirty(task.getId());
+        appendToLog(STORED + "," + task);
+    }
+
+    @Override
+    protected void onRemoved(TaskTypes type, int id) {
+        markDirty(id);
+        appendToLog(REMOVED + "," + type + "," + id);
+    }
+
+    @Override
+    protected void onCleared(TaskTypes type) {
+        if (format == StorageFormat.SEGMENTED && log == null) {
+            allSegmentsDirty = true;
+        }
+        appendToLog(CLEARED + "," + type);
+    }
+
+    // Загрузка снимка. Если снимок повреждён или не совпадает контрольная сумма,
+    // загружается предыдущее поколение.
     public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager taskManager = new FileBackedTaskManager(file);
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line = reader.readLine();
-            while ((line = reader.readLine()) != null) {
-                Task task = taskManager.fromString(line);
-                if (task != null) {
-                    if (task instanceof Subtask) {
-                        taskManager.loadSubtask((Subtask) task);
-                    } else if (task instanceof Epic) {
-                        taskManager.loadEpic((Epic) task);
-                    } else {
-                        taskManager.loadTask(task);
-                    }
-                }
+        try {
+            return loadGeneration(file, false);
+        } catch (ManagerLoadException e) {
+            if (!hasPreviousGeneration(file)) {
+                throw e;
             }
-        } catch (IOException e) {
-            throw new ManagerLoadException(e);
+            System.err.println("Снимок повреждён, загружается предыдущее поколение: " + e.getMessage());
+            FileBackedTaskManager taskManager = loadGeneration(file, true);
+            taskManager.currentGenerationDamaged = true;
+            // Сегменты повреждённого поколения не берутся в следующее сохранение
+            taskManager.allSegmentsDirty = true;
+            return taskManager;
+        }
+    }
+
+    private static boolean hasPreviousGeneration(File file) {
+        return SegmentedSnapshot.isSegmented(file)
+                ? SegmentedSnapshot.hasPrevious(file)
+                : previousGenerationOf(file).exists();
+    }
+
+    // После загрузки задач одним проходом пересобираются расписание, подзадачи эпиков и счётчик id
+    private static FileBackedTaskManager loadGeneration(File file, boolean previous) {
+        FileBackedTaskManager taskManager;
+        List<Task> tasks;
+        File source = previous ? previousGenerationOf(file) : file;
+        if (SegmentedSnapshot.isSegmented(file)) {
+            taskManager = new FileBackedTaskManager(file, StorageFormat.SEGMENTED);
+            tasks = previous ? SegmentedSnapshot.readPrevious(file) : SegmentedSnapshot.read(file);
+        } else if (BinarySnapshot.isBinary(source)) {
+            taskManager = new FileBackedTaskManager(file, StorageFormat.BINARY);
+            tasks = BinarySnapshot.read(source);
+        } else if (CompressedSnapshot.isCompressed(source)) {
+            taskManager = new FileBackedTaskManager(file, StorageFormat.CSV_GZIP);
+            tasks = CompressedSnapshot.read(source);
+        } else {
+            taskManager = new FileBackedTaskManager(file);
+            tasks = CsvSnapshot.read(source);
         }
+        tasks.forEach(taskManager::load);
+        taskManager.rebuildIndexes();
         return taskManager;
     }
 
+    private void load(Task task) {
+        if (task instanceof Subtask subtask) {
+            loadSubtask(subtask);
+        } else if (task instanceof Epic epic) {
+            loadEpic(epic);
+        } else if (task != null) {
+            loadTask(task);
+        }
+    }
+
+    @Override
+    public List<Task> applyBatch(List<BatchOperation> operations) {
+        List<Task> result;
+        boolean batchEnded = false;
+        inBatch = true;
+        try {
+            result = super.applyBatch(operations);
+            if (batchLogged) {
+                log.append(BATCH_END);
+                batchEnded = true;
+                compactIfNeeded();
+            }
+        } finally {
+            // Без отмены следующие записи журнала попали бы в незавершённый пакет
+            if (batchLogged && !batchEnded) {
+                abortLoggedBatch();
+            }
+            inBatch = false;
+            batchLogged = false;
+        }
+        save();
+        return result;
+    }
+
+    // Отмена не должна скрыть исходную ошибку; если не записалась и она, пакет без конца
+    // отбросит следующая загрузка
+    private void abortLoggedBatch() {
+        try {
+            log.append(BATCH_ABORT);
+        } catch (ManagerSaveException e) {
+            System.err.println("Не удалось отменить пакет в журнале: " + e.getMessage());
+        }
+    }
+
     @Override
     public void deleteAllTasks() {
         super.deleteAllTasks();
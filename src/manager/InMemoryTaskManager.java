@@ -1,41 +1,188 @@
 package manager;
 
+import entity.BatchAction;
+import entity.BatchOperation;
 import entity.Epic;
 import entity.Status;
 import entity.Subtask;
 import entity.Task;
+import entity.TaskQuery;
+import entity.TaskTypes;
 import exception.NotFoundException;
+import util.IntHashSet;
+import util.IntObjectHashMap;
 
 import java.time.LocalDateTime;
-import java.util.*;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
 
 public class InMemoryTaskManager implements TaskManager {
     private int id;
-    private final Map<Integer, Task> taskHashMap;
-    private final Map<Integer, Subtask> subtaskHashMap;
-    private final Map<Integer, Epic> epicHashMap;
+    private final IntObjectHashMap<Task> taskHashMap;
+    private final IntObjectHashMap<Subtask> subtaskHashMap;
+    private final IntObjectHashMap<Epic> epicHashMap;
+    private final IntObjectHashMap<EpicRollup> epicRollups;
     private final HistoryManager historyManager;
-    private final TreeMap<LocalDateTime, Task> prioritizedTasks;
+    // Заменяется целиком при пересборке после загрузки
+    private TreeMap<LocalDateTime, Task> prioritizedTasks;
+    private final OverlapIndex overlapIndex;
+    private final StatusIndex statusIndex;
+    private final SearchIndex searchIndex;
+    private final VersionCounter versions = new VersionCounter();
 
     public InMemoryTaskManager() {
+        this(new IntervalIndex());
+    }
+
+    // Конструктор с выбором способа проверки пересечения задач по времени
+    public InMemoryTaskManager(OverlapIndex overlapIndex) {
         id = 1;
-        taskHashMap = new HashMap<>();
-        subtaskHashMap = new HashMap<>();
-        epicHashMap = new HashMap<>();
+        taskHashMap = new IntObjectHashMap<>();
+        subtaskHashMap = new IntObjectHashMap<>();
+        epicHashMap = new IntObjectHashMap<>();
+        epicRollups = new IntObjectHashMap<>();
         historyManager = Managers.getDefaultHistory();
         prioritizedTasks = new TreeMap<>();
+        this.overlapIndex = overlapIndex;
+        statusIndex = new StatusIndex();
+        searchIndex = new SearchIndex();
     }
 
     protected void loadTask(Task task) {
         taskHashMap.put(task.getId(), task);
+        statusIndex.update(task);
+        searchIndex.update(task);
+        continueIdsAfter(task.getId());
     }
 
     protected void loadSubtask(Subtask subtask) {
         subtaskHashMap.put(subtask.getId(), subtask);
+        statusIndex.update(subtask);
+        searchIndex.update(subtask);
+        continueIdsAfter(subtask.getId());
     }
 
     protected void loadEpic(Epic epic) {
         epicHashMap.put(epic.getId(), epic);
+        epicRollups.put(epic.getId(), new EpicRollup());
+        statusIndex.update(epic);
+        searchIndex.update(epic);
+        continueIdsAfter(epic.getId());
+    }
+
+    // Удаление загруженной задачи, парное к load-методам
+    protected void unload(TaskTypes type, int id) {
+        mapOf(type).remove(id);
+        statusIndex.remove(type, id);
+        searchIndex.remove(id);
+        if (type == TaskTypes.EPIC) {
+            epicRollups.remove(id);
+        }
+    }
+
+    protected void unloadAll(TaskTypes type) {
+        IntObjectHashMap<? extends Task> map = mapOf(type);
+        map.forEachKey(searchIndex::remove);
+        map.clear();
+        statusIndex.clear(type);
+        if (type == TaskTypes.EPIC) {
+            epicRollups.clear();
+        }
+    }
+
+    // Пересборка всего, что выводится из загруженных задач, одним проходом: подзадачи и показатели эпиков,
+    // расписание и индекс пересечений, счётчик идентификаторов. Расписание и индекс пересечений строятся
+    // из отсортированного списка за O(N), а не вставками по одной. Вызывается после загрузки задач load-методами.
+    protected void rebuildIndexes() {
+        overlapIndex.clear();
+        epicRollups.clear();
+        epicHashMap.forEachKey(epicId -> {
+            epicHashMap.get(epicId).getSubtaskIds().clear();
+            epicRollups.put(epicId, new EpicRollup());
+        });
+
+        List<Task> scheduled = new ArrayList<>();
+        int maxId = 0;
+        for (Task task : taskHashMap.values()) {
+            maxId = Math.max(maxId, task.getId());
+            if (task.getStartTime() != null) {
+                scheduled.add(task);
+            }
+        }
+        // Подзадача без эпика остаётся только от повреждённого снимка: её нельзя ни показать в эпике,
+        // ни обновить, поэтому она не загружается
+        List<Integer> orphans = new ArrayList<>();
+        for (Subtask subtask : subtaskHashMap.values()) {
+            maxId = Math.max(maxId, subtask.getId());
+            Epic epic = epicHashMap.get(subtask.getEpicId());
+            if (epic == null) {
+                orphans.add(subtask.getId());
+                continue;
+            }
+            epic.addSubtaskId(subtask.getId());
+            epicRollups.get(epic.getId()).put(subtask);
+            if (subtask.getStartTime() != null) {
+                scheduled.add(subtask);
+            }
+        }
+        for (int orphanId : orphans) {
+            System.err.println("Подзадача " + orphanId + " без эпика пропущена при загрузке");
+            unload(TaskTypes.SUBTASK, orphanId);
+        }
+        for (Epic epic : epicHashMap.values()) {
+            maxId = Math.max(maxId, epic.getId());
+            epicRollups.get(epic.getId()).applyTo(epic);
+            statusIndex.update(epic);
+        }
+        continueIdsAfter(maxId);
+
+        scheduled.sort(Comparator.comparing(Task::getStartTime).thenComparingInt(Task::getId));
+        // Расписание хранит одну задачу на время старта. Прежние версии не проверяли пересечения
+        // при обновлении, поэтому в старых снимках бывают задачи с одним стартом. Все они загружаются,
+        // но в расписание попадает только задача с меньшим id
+        List<Task> distinct = new ArrayList<>(scheduled.size());
+        for (Task task : scheduled) {
+            Task previous = distinct.isEmpty() ? null : distinct.getLast();
+            if (previous != null && previous.getStartTime().equals(task.getStartTime())) {
+                System.err.println("Задача " + task.getId() + " начинается одновременно с задачей "
+                        + previous.getId() + " и не попала в расписание");
+                continue;
+            }
+            distinct.add(task);
+        }
+        prioritizedTasks = new TreeMap<>(new SortedTasks(distinct));
+        overlapIndex.addAllSorted(distinct);
+    }
+
+    // Новые задачи получают идентификаторы больше загруженных
+    private void continueIdsAfter(int loadedId) {
+        id = Math.max(id, loadedId + 1);
+    }
+
+    // Вызывается после сохранения новой или изменённой задачи любого типа,
+    // в том числе после пересчёта статуса и времени эпика
+    protected void onStored(Task task) {
+    }
+
+    // Вызывается после удаления задачи любого типа
+    protected void onRemoved(TaskTypes type, int id) {
+    }
+
+    // Вызывается после удаления всех задач одного типа
+    protected void onCleared(TaskTypes type) {
     }
 
     @Override
@@ -43,6 +190,100 @@ public class InMemoryTaskManager implements TaskManager {
         return new ArrayList<>(prioritizedTasks.values());
     }
 
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime after, int limit) {
+        NavigableMap<LocalDateTime, Task> tail = after == null ? prioritizedTasks : prioritizedTasks.tailMap(after, false);
+        return tail.values().stream()
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public Collection<Task> getPrioritizedTasksView() {
+        return Collections.unmodifiableCollection(prioritizedTasks.values());
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return List.of();
+        }
+        List<Task> result = new ArrayList<>();
+        // Задачи в расписании не пересекаются, поэтому из начавшихся до окна
+        // в него может попасть только последняя
+        Map.Entry<LocalDateTime, Task> before = prioritizedTasks.lowerEntry(from);
+        if (before != null && before.getValue().getEndTime().isAfter(from)) {
+            result.add(before.getValue());
+        }
+        result.addAll(prioritizedTasks.subMap(from, true, to, false).values());
+        return result;
+    }
+
+    // Получение задач всех типов с указанным статусом
+    @Override
+    public List<Task> getByStatus(Status status) {
+        List<Task> result = new ArrayList<>(countByStatus(status));
+        for (TaskTypes type : TaskTypes.values()) {
+            result.addAll(getByStatus(type, status));
+        }
+        return result;
+    }
+
+    // Получение задач указанного типа с указанным статусом
+    @Override
+    public List<Task> getByStatus(TaskTypes type, Status status) {
+        IntHashSet ids = statusIndex.get(type, status);
+        IntObjectHashMap<? extends Task> map = mapOf(type);
+        List<Task> result = new ArrayList<>(ids.size());
+        ids.forEachInt(id -> result.add(map.get(id)));
+        return result;
+    }
+
+    @Override
+    public int countByStatus(Status status) {
+        int count = 0;
+        for (TaskTypes type : TaskTypes.values()) {
+            count += statusIndex.count(type, status);
+        }
+        return count;
+    }
+
+    @Override
+    public int countByStatus(TaskTypes type, Status status) {
+        return statusIndex.count(type, status);
+    }
+
+    // Поиск по словам в названии и описании задач всех типов
+    @Override
+    public List<Task> search(String query, int limit) {
+        int[] ids = searchIndex.search(query, limit);
+        List<Task> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(findById(id));
+        }
+        return result;
+    }
+
+    // Идентификаторы общие для всех типов задач
+    protected Task findById(int id) {
+        Task task = taskHashMap.get(id);
+        if (task == null) {
+            task = subtaskHashMap.get(id);
+        }
+        if (task == null) {
+            task = epicHashMap.get(id);
+        }
+        return task;
+    }
+
+    private IntObjectHashMap<? extends Task> mapOf(TaskTypes type) {
+        return switch (type) {
+            case TASK -> taskHashMap;
+            case SUBTASK -> subtaskHashMap;
+            case EPIC -> epicHashMap;
+        };
+    }
+
     // Получение списка всех задач
     @Override
     public List<Task> getTasks() {
@@ -61,32 +302,87 @@ public class InMemoryTaskManager implements TaskManager {
         return epicHashMap.values().stream().toList();
     }
 
+    @Override
+    public List<Task> getTasks(TaskQuery query) {
+        return page(TaskTypes.TASK, taskHashMap, query);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(TaskQuery query) {
+        return page(TaskTypes.SUBTASK, subtaskHashMap, query);
+    }
+
+    @Override
+    public List<Epic> getEpics(TaskQuery query) {
+        return page(TaskTypes.EPIC, epicHashMap, query);
+    }
+
+    // Кандидаты берутся из индекса статусов, из расписания для окна по времени или из всех задач типа.
+    // Эпиков нет в расписании, поэтому окно по времени у них проверяется по каждому эпику.
+    private <T extends Task> List<T> page(TaskTypes type, IntObjectHashMap<T> map, TaskQuery query) {
+        IntPredicate matches = taskId -> {
+            T task = map.get(taskId);
+            return task != null && query.matches(task);
+        };
+        int[] ids;
+        if (query.getStatus() != null) {
+            IntHashSet candidates = statusIndex.get(type, query.getStatus());
+            ids = PageIds.select(query, id, candidates.size(), candidates::forEachInt, matches);
+        } else if (PageIds.hasTimeRange(query) && type != TaskTypes.EPIC) {
+            int[] candidates = PageIds.window(prioritizedTasks, query).stream()
+                    .filter(task -> task.getType() == type)
+                    .mapToInt(Task::getId)
+                    .toArray();
+            ids = PageIds.select(query, id, candidates, matches);
+        } else {
+            ids = PageIds.select(query, id, map.size(), map::forEachKey, matches);
+        }
+        List<T> result = new ArrayList<>(ids.length);
+        for (int taskId : ids) {
+            result.add(map.get(taskId));
+        }
+        return result;
+    }
+
     // Удаление всех задач
     @Override
     public void deleteAllTasks() {
-        taskHashMap.values().stream()
-                .filter(task -> task.getStartTime() != null)
-                .forEach(task -> prioritizedTasks.remove(task.getStartTime()));
-        taskHashMap.keySet().forEach(historyManager::remove);
+        taskHashMap.values().forEach(this::removeTaskFromPrioritizedTasks);
+        taskHashMap.forEachKey(historyManager::remove);
+        taskHashMap.forEachKey(searchIndex::remove);
         taskHashMap.clear();
+        statusIndex.clear(TaskTypes.TASK);
+        versions.cleared(TaskTypes.TASK);
+        onCleared(TaskTypes.TASK);
     }
 
     // Удаление всех подзадач
     @Override
     public void deleteAllSubtasks() {
-        subtaskHashMap.values().stream()
-                .filter(task -> task.getStartTime() != null)
-                .forEach(task -> prioritizedTasks.remove(task.getStartTime()));
-        subtaskHashMap.keySet().forEach(historyManager::remove);
+        subtaskHashMap.values().forEach(this::removeTaskFromPrioritizedTasks);
+        subtaskHashMap.forEachKey(historyManager::remove);
+        subtaskHashMap.forEachKey(searchIndex::remove);
         subtaskHashMap.clear();
-        epicHashMap.keySet().forEach(id -> epicHashMap.get(id).getSubtaskIds().clear());
+        statusIndex.clear(TaskTypes.SUBTASK);
+        versions.cleared(TaskTypes.SUBTASK);
+        onCleared(TaskTypes.SUBTASK);
+        epicHashMap.forEachKey(id -> {
+            epicHashMap.get(id).getSubtaskIds().clear();
+            epicRollups.get(id).clear();
+            applyEpicRollup(id);
+        });
     }
 
     // Удаление всех эпиков
     @Override
     public void deleteAllEpics() {
-        epicHashMap.keySet().forEach(historyManager::remove);
+        epicHashMap.forEachKey(historyManager::remove);
+        epicHashMap.forEachKey(searchIndex::remove);
         epicHashMap.clear();
+        epicRollups.clear();
+        statusIndex.clear(TaskTypes.EPIC);
+        versions.cleared(TaskTypes.EPIC);
+        onCleared(TaskTypes.EPIC);
         deleteAllSubtasks();
     }
 
@@ -98,6 +394,7 @@ public class InMemoryTaskManager implements TaskManager {
             throw new NotFoundException("entity.Task with id " + id + " not found");
         }
         historyManager.add(task);
+        versions.viewed();
         return task;
     }
 
@@ -109,6 +406,7 @@ public class InMemoryTaskManager implements TaskManager {
             throw new NotFoundException("entity.Subtask with id " + id + " not found");
         }
         historyManager.add(subtask);
+        versions.viewed();
         return subtask;
     }
 
@@ -120,33 +418,61 @@ public class InMemoryTaskManager implements TaskManager {
             throw new NotFoundException("entity.Epic with id " + id + " not found");
         }
         historyManager.add(epic);
+        versions.viewed();
         return epic;
     }
 
     private void addTaskToPrioritizedTask(Task task) throws IllegalArgumentException {
         if (task.getStartTime() != null) {
-            boolean isValid = prioritizedTasks.values().stream()
-                    .map(t -> isValidTime(t, task))
-                    .reduce(true, Boolean::logicalAnd);
-
-            if (isValid) {
-                prioritizedTasks.put(task.getStartTime(), task);
-            } else {
+            if (overlapIndex.overlaps(task)) {
                 throw new IllegalArgumentException("Время задачи пересекается с существующей");
             }
+            putToPrioritizedTasks(task);
+        }
+    }
+
+    // Добавление в расписание без проверки, время задачи уже проверено
+    private void putToPrioritizedTasks(Task task) {
+        if (task.getStartTime() != null) {
+            prioritizedTasks.put(task.getStartTime(), task);
+            overlapIndex.add(task);
         }
     }
 
+    // Замена времени задачи в расписании. При пересечении остаётся старое время.
+    private void replaceInPrioritizedTasks(Task oldTask, Task newTask) throws IllegalArgumentException {
+        boolean wasScheduled = oldTask != null && removeTaskFromPrioritizedTasks(oldTask);
+        try {
+            addTaskToPrioritizedTask(newTask);
+        } catch (IllegalArgumentException e) {
+            if (wasScheduled) {
+                putToPrioritizedTasks(oldTask);
+            }
+            throw e;
+        }
+    }
+
+    // Удаление из расписания, если задача в нём есть. Задача, которая при загрузке не попала
+    // в расписание из-за совпадения старта, не удаляет задачу, занявшую это время.
+    private boolean removeTaskFromPrioritizedTasks(Task task) {
+        if (task.getStartTime() == null) {
+            return false;
+        }
+        Task scheduled = prioritizedTasks.get(task.getStartTime());
+        if (scheduled == null || scheduled.getId() != task.getId()) {
+            return false;
+        }
+        prioritizedTasks.remove(task.getStartTime());
+        overlapIndex.remove(task);
+        return true;
+    }
+
     // Создание задачи. Сам объект должен передаваться в качестве параметра.
     @Override
     public void createTask(Task task) {
-        Task newTask = new Task(task.getName(), task.getDescription());
-        newTask.setId(id);
-        newTask.setStatus(Status.NEW);
-        newTask.setStartTime(task.getStartTime());
-        newTask.setDuration(task.getDuration());
+        Task newTask = newTask(task);
         addTaskToPrioritizedTask(newTask);
-        taskHashMap.put(id, newTask);
+        storeTask(newTask);
         id++;
     }
 
@@ -156,115 +482,110 @@ public class InMemoryTaskManager implements TaskManager {
         if (subtask.getEpicId() == 0) {
             throw new NotFoundException("entity.Epic not found");
         }
-        Subtask newSubtask = new Subtask(subtask.getName(), subtask.getDescription(), subtask.getEpicId());
-        newSubtask.setId(id);
-        newSubtask.setStatus(Status.NEW);
-        newSubtask.setStartTime(subtask.getStartTime());
-        newSubtask.setDuration(subtask.getDuration());
+        Subtask newSubtask = newSubtask(subtask);
         addTaskToPrioritizedTask(newSubtask);
-        subtaskHashMap.put(id, newSubtask);
-        // Передать id подзадачи в эпик
-        epicHashMap.get(newSubtask.getEpicId()).addSubtaskId(id);
-        updateEpicTimes(newSubtask.getEpicId());
+        storeSubtask(newSubtask);
         id++;
     }
 
     // Создание эпика. Сам объект должен передаваться в качестве параметра.
     @Override
     public void createEpic(Epic epic) {
+        storeEpic(newEpic(epic));
+        id++;
+    }
+
+    // Копия новой задачи со следующим идентификатором
+    private Task newTask(Task task) {
+        Task newTask = new Task(task.getName(), task.getDescription());
+        newTask.setId(id);
+        newTask.setStatus(Status.NEW);
+        newTask.setStartTime(task.getStartTime());
+        newTask.setDuration(task.getDuration());
+        return newTask;
+    }
+
+    private Subtask newSubtask(Subtask subtask) {
+        Subtask newSubtask = new Subtask(subtask.getName(), subtask.getDescription(), subtask.getEpicId());
+        newSubtask.setId(id);
+        newSubtask.setStatus(Status.NEW);
+        newSubtask.setStartTime(subtask.getStartTime());
+        newSubtask.setDuration(subtask.getDuration());
+        return newSubtask;
+    }
+
+    private Epic newEpic(Epic epic) {
         Epic newEpic = new Epic(epic.getName(), epic.getDescription());
         newEpic.setId(id);
         newEpic.setStatus(Status.NEW);
-        epicHashMap.put(id, newEpic);
-        id++;
+        return newEpic;
+    }
+
+    private void storeTask(Task task) {
+        taskHashMap.put(task.getId(), task);
+        statusIndex.update(task);
+        searchIndex.update(task);
+        versions.stored(task.getType(), task.getId());
+        onStored(task);
+    }
+
+    private void storeSubtask(Subtask subtask) {
+        subtaskHashMap.put(subtask.getId(), subtask);
+        statusIndex.update(subtask);
+        searchIndex.update(subtask);
+        versions.stored(subtask.getType(), subtask.getId());
+        onStored(subtask);
+        // Передать id подзадачи в эпик, обновить статус и время эпика
+        int epicId = subtask.getEpicId();
+        epicHashMap.get(epicId).addSubtaskId(subtask.getId());
+        epicRollups.get(epicId).put(subtask);
+        applyEpicRollup(epicId);
     }
 
     // Обновление задачи. Новая версия объекта с верным идентификатором передаётся в виде параметра.
     @Override
     public void updateTask(Task task) {
-        taskHashMap.put(task.getId(), task);
+        replaceInPrioritizedTasks(taskHashMap.get(task.getId()), task);
+        storeTask(task);
     }
 
     // Обновление подзадачи. Новая версия объекта с верным идентификатором передаётся в виде параметра.
     @Override
     public void updateSubtask(Subtask subtask) {
-        subtaskHashMap.put(subtask.getId(), subtask);
-        // Обновить статус эпика
-        int epicId = subtask.getEpicId();
-        updateEpicStatus(epicId);
-        updateEpicTimes(epicId);
-    }
-
-    private boolean isValidTime(Task task1, Task task2) {
-        if (task1.getStartTime() != null && task2.getStartTime() != null) {
-            if (task1.getStartTime().isBefore(task2.getStartTime())) {
-                return task1.getEndTime().isBefore(task2.getStartTime());
-            } else if (task2.getStartTime().isBefore(task1.getStartTime())) {
-                return task2.getEndTime().isBefore(task1.getStartTime());
-            }
-        }
-        return false;
+        replaceInPrioritizedTasks(subtaskHashMap.get(subtask.getId()), subtask);
+        storeSubtask(subtask);
     }
 
-    // Метод для обновления продолжительности, времени старта и окончания эпика
-    private void updateEpicTimes(int epicId) {
-        Set<Integer> subtaskIds = getAllSubtaskIdsOfEpic(epicId);
-        Set<Subtask> subtasks = new HashSet<>();
+    // Метод для обновления статуса, продолжительности, времени старта и окончания эпика
+    private void applyEpicRollup(int epicId) {
         Epic epic = epicHashMap.get(epicId);
-
-        subtaskIds.forEach(id -> subtasks.add(subtaskHashMap.get(id)));
-
-        subtasks.stream()
-                .map(Subtask::getStartTime)
-                .filter(Objects::nonNull)
-                .min(LocalDateTime::compareTo)
-                .ifPresentOrElse(
-                        epic::setStartTime,
-                        () -> epic.setStartTime(null)
-                )
-        ;
-
-        subtasks.stream()
-                .map(Subtask::getEndTime)
-                .filter(Objects::nonNull)
-                .max(LocalDateTime::compareTo)
-                .ifPresentOrElse(
-                        epic::setEndTime,
-                        () -> epic.setEndTime(null)
-                )
-        ;
-
-        long durations = subtasks.stream()
-                .map(Task::getDuration)
-                .reduce(0L, Long::sum);
-
-        epic.setDuration(durations);
-    }
-
-    // Метод для обновления статуса эпика
-    private void updateEpicStatus(int epicId) {
-        Set<Integer> subtaskIds = getAllSubtaskIdsOfEpic(epicId);
-        Set<Status> statuses = new HashSet<>();
-
-        subtaskIds.forEach(id -> statuses.add(subtaskHashMap.get(id).getStatus()));
-
-        if (statuses.isEmpty()) {
-            epicHashMap.get(epicId).setStatus(Status.NEW);
-        } else if (statuses.contains(Status.IN_PROGRESS)) {
-            epicHashMap.get(epicId).setStatus(Status.IN_PROGRESS);
-        } else if (!statuses.contains(Status.DONE)) {
-            epicHashMap.get(epicId).setStatus(Status.NEW);
-        } else {
-            epicHashMap.get(epicId).setStatus(Status.DONE);
-        }
+        epicRollups.get(epicId).applyTo(epic);
+        statusIndex.update(epic);
+        versions.stored(epic.getType(), epic.getId());
+        onStored(epic);
     }
 
     // Обновление эпика. Новая версия объекта с верным идентификатором передаётся в виде параметра.
     @Override
     public void updateEpic(Epic epic) {
+        storeEpic(epic);
+    }
+
+    private void storeEpic(Epic epic) {
+        // Связь эпика с подзадачами хранит менеджер, а не переданный объект
+        Epic current = epicHashMap.get(epic.getId());
+        if (current != null && current != epic) {
+            IntHashSet subtaskIds = epic.getSubtaskIds();
+            subtaskIds.clear();
+            current.getSubtaskIds().forEachInt(subtaskIds::add);
+        }
         epicHashMap.put(epic.getId(), epic);
+        searchIndex.update(epic);
+        if (!epicRollups.containsKey(epic.getId())) {
+            epicRollups.put(epic.getId(), new EpicRollup());
+        }
         // Обновить статус эпика
-        updateEpicStatus(epic.getId());
+        applyEpicRollup(epic.getId());
     }
 
     // Удаление задачи по идентификатору
@@ -272,10 +593,11 @@ public class InMemoryTaskManager implements TaskManager {
     public void deleteTask(int id) {
         historyManager.remove(id);
         Task task = taskHashMap.remove(id);
-        if (task.getStartTime() != null) {
-            prioritizedTasks.remove(task.getStartTime());
-        }
-
+        removeTaskFromPrioritizedTasks(task);
+        statusIndex.remove(TaskTypes.TASK, id);
+        searchIndex.remove(id);
+        versions.removed(TaskTypes.TASK, id);
+        onRemoved(TaskTypes.TASK, id);
     }
 
     // Удаление подзадачи по идентификатору
@@ -286,27 +608,119 @@ public class InMemoryTaskManager implements TaskManager {
         getAllSubtaskIdsOfEpic(epicId).remove(id);
         historyManager.remove(id);
         Subtask subtask = subtaskHashMap.remove(id);
-        if (subtask.getStartTime() != null) {
-            prioritizedTasks.remove(subtask.getStartTime());
-        }
-        updateEpicStatus(epicId);
-        updateEpicTimes(epicId);
+        removeTaskFromPrioritizedTasks(subtask);
+        statusIndex.remove(TaskTypes.SUBTASK, id);
+        searchIndex.remove(id);
+        versions.removed(TaskTypes.SUBTASK, id);
+        onRemoved(TaskTypes.SUBTASK, id);
+        epicRollups.get(epicId).remove(id);
+        applyEpicRollup(epicId);
     }
 
     // Удаление эпика по идентификатору
     @Override
     public void deleteEpic(int id) {
-        Set<Integer> subtaskIds = getAllSubtaskIdsOfEpic(id);
-        for (int subtaskId : subtaskIds) {
+        getAllSubtaskIdsOfEpic(id).forEachInt(subtaskId -> {
             historyManager.remove(subtaskId);
-            subtaskHashMap.remove(subtaskId);
-        }
+            removeTaskFromPrioritizedTasks(subtaskHashMap.remove(subtaskId));
+            statusIndex.remove(TaskTypes.SUBTASK, subtaskId);
+            searchIndex.remove(subtaskId);
+            versions.removed(TaskTypes.SUBTASK, subtaskId);
+            onRemoved(TaskTypes.SUBTASK, subtaskId);
+        });
         historyManager.remove(id);
         epicHashMap.remove(id);
+        epicRollups.remove(id);
+        statusIndex.remove(TaskTypes.EPIC, id);
+        searchIndex.remove(id);
+        versions.removed(TaskTypes.EPIC, id);
+        onRemoved(TaskTypes.EPIC, id);
+    }
+
+    // Пакет проверяется целиком до применения, поэтому применяется либо весь, либо ни одна операция
+    @Override
+    public List<Task> applyBatch(List<BatchOperation> operations) {
+        BatchValidator.validate(operations, (type, id) -> mapOf(type).get(id), overlapIndex);
+        Task[] result = new Task[operations.size()];
+
+        // Сначала удаления: задачи и подзадачи, затем эпики вместе с оставшимися подзадачами
+        for (int i = 0; i < result.length; i++) {
+            BatchOperation operation = operations.get(i);
+            if (operation.getAction() == BatchAction.DELETE && operation.getType() != TaskTypes.EPIC) {
+                result[i] = mapOf(operation.getType()).get(operation.getId());
+                if (operation.getType() == TaskTypes.TASK) {
+                    deleteTask(operation.getId());
+                } else {
+                    deleteSubtask(operation.getId());
+                }
+            }
+        }
+        for (int i = 0; i < result.length; i++) {
+            BatchOperation operation = operations.get(i);
+            if (operation.getAction() == BatchAction.DELETE && operation.getType() == TaskTypes.EPIC) {
+                result[i] = epicHashMap.get(operation.getId());
+                deleteEpic(operation.getId());
+            }
+        }
+
+        // Старое время всех изменяемых задач освобождается до того, как занимается новое
+        for (BatchOperation operation : operations) {
+            if (operation.getAction() == BatchAction.UPDATE && operation.getType() != TaskTypes.EPIC) {
+                removeTaskFromPrioritizedTasks(mapOf(operation.getType()).get(operation.getId()));
+            }
+        }
+        for (int i = 0; i < result.length; i++) {
+            BatchOperation operation = operations.get(i);
+            if (operation.getAction() == BatchAction.UPDATE) {
+                Task task = operation.getTask();
+                switch (operation.getType()) {
+                    case TaskTypes.TASK -> {
+                        putToPrioritizedTasks(task);
+                        storeTask(task);
+                    }
+                    case TaskTypes.SUBTASK -> {
+                        putToPrioritizedTasks(task);
+                        storeSubtask((Subtask) task);
+                    }
+                    case TaskTypes.EPIC -> storeEpic((Epic) task);
+                }
+                result[i] = task;
+            }
+        }
+
+        // Созданные задачи получают идентификаторы в порядке операций
+        for (int i = 0; i < result.length; i++) {
+            BatchOperation operation = operations.get(i);
+            if (operation.getAction() == BatchAction.CREATE) {
+                switch (operation.getType()) {
+                    case TaskTypes.TASK -> {
+                        Task newTask = newTask(operation.getTask());
+                        putToPrioritizedTasks(newTask);
+                        storeTask(newTask);
+                        result[i] = newTask;
+                        id++;
+                    }
+                    case TaskTypes.SUBTASK -> {
+                        Subtask newSubtask = newSubtask((Subtask) operation.getTask());
+                        putToPrioritizedTasks(newSubtask);
+                        storeSubtask(newSubtask);
+                        result[i] = newSubtask;
+                        id++;
+                    }
+                    case TaskTypes.EPIC -> {
+                        Epic newEpic = newEpic((Epic) operation.getTask());
+                        storeEpic(newEpic);
+                        result[i] = newEpic;
+                        id++;
+                    }
+                }
+            }
+        }
+        return List.of(result);
     }
 
     // Получение списка всех подзадач определённого эпика
-    private Set<Integer> getAllSubtaskIdsOfEpic(int epicId) {
+    private IntHashSet getAllSubtaskIdsOfEpic(int epicId) {
         return epicHashMap.get(epicId).getSubtaskIds();
     }
 
@@ -314,4 +728,136 @@ public class InMemoryTaskManager implements TaskManager {
     public List<Task> getHistory() {
         return historyManager.getHistory();
     }
+
+    @Override
+    public long getVersion(TaskTypes type) {
+        return versions.collection(type);
+    }
+
+    @Override
+    public long getVersion(TaskTypes type, int id) {
+        return versions.entity(type, id);
+    }
+
+    @Override
+    public long getPrioritizedVersion() {
+        return versions.prioritized();
+    }
+
+    @Override
+    public long getHistoryVersion() {
+        return versions.history();
+    }
+
+    // Отсортированный по времени старта список задач без повторов старта в виде SortedMap.
+    // Представления - подсписки, границы которых находятся двоичным поиском. TreeMap, созданный
+    // из такой карты, строит сбалансированное дерево за O(N), без сравнений и поворотов.
+    private static final class SortedTasks extends AbstractMap<LocalDateTime, Task>
+            implements SortedMap<LocalDateTime, Task> {
+        private final List<Task> sorted;
+
+        private SortedTasks(List<Task> sorted) {
+            this.sorted = sorted;
+        }
+
+        @Override
+        public Set<Entry<LocalDateTime, Task>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<LocalDateTime, Task>> iterator() {
+                    Iterator<Task> tasks = sorted.iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return tasks.hasNext();
+                        }
+
+                        @Override
+                        public Entry<LocalDateTime, Task> next() {
+                            Task task = tasks.next();
+                            return new SimpleImmutableEntry<>(task.getStartTime(), task);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return sorted.size();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return sorted.size();
+        }
+
+        @Override
+        public Task get(Object key) {
+            if (!(key instanceof LocalDateTime time)) {
+                return null;
+            }
+            int index = ceilingIndex(time);
+            return index < sorted.size() && sorted.get(index).getStartTime().equals(time) ? sorted.get(index) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Comparator<? super LocalDateTime> comparator() {
+            return null;
+        }
+
+        @Override
+        public LocalDateTime firstKey() {
+            if (sorted.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return sorted.getFirst().getStartTime();
+        }
+
+        @Override
+        public LocalDateTime lastKey() {
+            if (sorted.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return sorted.getLast().getStartTime();
+        }
+
+        @Override
+        public SortedMap<LocalDateTime, Task> subMap(LocalDateTime fromKey, LocalDateTime toKey) {
+            if (fromKey.isAfter(toKey)) {
+                throw new IllegalArgumentException("Начало диапазона позже конца");
+            }
+            return new SortedTasks(sorted.subList(ceilingIndex(fromKey), ceilingIndex(toKey)));
+        }
+
+        @Override
+        public SortedMap<LocalDateTime, Task> headMap(LocalDateTime toKey) {
+            return new SortedTasks(sorted.subList(0, ceilingIndex(toKey)));
+        }
+
+        @Override
+        public SortedMap<LocalDateTime, Task> tailMap(LocalDateTime fromKey) {
+            return new SortedTasks(sorted.subList(ceilingIndex(fromKey), sorted.size()));
+        }
+
+        // Позиция первой задачи, которая начинается не раньше time
+        private int ceilingIndex(LocalDateTime time) {
+            int low = 0;
+            int high = sorted.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (sorted.get(middle).getStartTime().isBefore(time)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
 }
@@ -0,0 +1,248 @@
+package manager;
+
+import entity.Task;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Индекс временных интервалов задач: AVL-дерево по времени старта,
+// в каждом узле хранится максимальное время окончания по поддереву.
+// Проверка пересечения и вставка выполняются за O(log N).
+public class IntervalIndex implements OverlapIndex {
+    private Node root;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    // Добавление задачи. Задача с тем же временем старта заменяется.
+    @Override
+    public void add(Task task) {
+        root = insert(root, task.getStartTime(), task.getEndTime(), task);
+    }
+
+    // Сбалансированное дерево строится из отсортированного списка за O(N), без поворотов
+    @Override
+    public void addAllSorted(List<Task> sorted) {
+        if (root != null) {
+            sorted.forEach(this::add);
+            return;
+        }
+        root = build(sorted, 0, sorted.size() - 1);
+        size = sorted.size();
+    }
+
+    private Node build(List<Task> sorted, int from, int to) {
+        if (from > to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Task task = sorted.get(middle);
+        Node node = new Node(task.getStartTime(), task.getEndTime(), task);
+        node.left = build(sorted, from, middle - 1);
+        node.right = build(sorted, middle + 1, to);
+        update(node);
+        return node;
+    }
+
+    // Удаление задачи по её времени старта
+    @Override
+    public void remove(Task task) {
+        if (task.getStartTime() != null) {
+            root = delete(root, task.getStartTime());
+        }
+    }
+
+    // Поиск задачи, время которой пересекается со временем переданной.
+    // Пересечением считаются: совпадающее время старта, старт внутри чужого интервала
+    // и чужой старт внутри интервала задачи, включая касание границ.
+    public Task findOverlap(Task task) {
+        LocalDateTime start = task.getStartTime();
+        LocalDateTime end = task.getEndTime();
+        if (start == null) {
+            return null;
+        }
+
+        Task before = findEndingAtOrAfter(start);
+        if (before != null) {
+            return before;
+        }
+
+        Node after = ceiling(start);
+        if (after != null && (after.start.equals(start) || !after.start.isAfter(end))) {
+            return after.task;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean overlaps(Task task) {
+        return findOverlap(task) != null;
+    }
+
+    // Задача со стартом раньше start, которая заканчивается не раньше start
+    private Task findEndingAtOrAfter(LocalDateTime start) {
+        Node node = root;
+        while (node != null) {
+            if (node.start.isBefore(start)) {
+                if (!node.end.isBefore(start)) {
+                    return node.task;
+                }
+                if (node.left != null && !node.left.maxEnd.isBefore(start)) {
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            } else {
+                node = node.left;
+            }
+        }
+        return null;
+    }
+
+    // Узел с минимальным временем старта, не меньшим start
+    private Node ceiling(LocalDateTime start) {
+        Node node = root;
+        Node result = null;
+        while (node != null) {
+            if (node.start.isBefore(start)) {
+                node = node.right;
+            } else {
+                result = node;
+                node = node.left;
+            }
+        }
+        return result;
+    }
+
+    private Node insert(Node node, LocalDateTime start, LocalDateTime end, Task task) {
+        if (node == null) {
+            size++;
+            return new Node(start, end, task);
+        }
+        int cmp = start.compareTo(node.start);
+        if (cmp < 0) {
+            node.left = insert(node.left, start, end, task);
+        } else if (cmp > 0) {
+            node.right = insert(node.right, start, end, task);
+        } else {
+            node.end = end;
+            node.task = task;
+        }
+        return balance(node);
+    }
+
+    private Node delete(Node node, LocalDateTime start) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = start.compareTo(node.start);
+        if (cmp < 0) {
+            node.left = delete(node.left, start);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node min = node.right;
+            while (min.left != null) {
+                min = min.left;
+            }
+            node.right = deleteMin(node.right);
+            min.left = node.left;
+            min.right = node.right;
+            node = min;
+        }
+        return balance(node);
+    }
+
+    private Node deleteMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        LocalDateTime maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static class Node {
+        final LocalDateTime start;
+        LocalDateTime end;
+        LocalDateTime maxEnd;
+        Task task;
+        int height;
+        Node left;
+        Node right;
+
+        Node(LocalDateTime start, LocalDateTime end, Task task) {
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+            this.task = task;
+            this.height = 1;
+        }
+    }
+}
@@ -1,11 +1,31 @@
 package manager;
 
+import java.time.Duration;
+
 public class Managers {
 
     public static TaskManager getDefault() {
         return new InMemoryTaskManager();
     }
 
+    // Менеджер, проверяющий пересечение задач по сетке временных слотов
+    public static TaskManager getWithTimeSlots(Duration granularity) {
+        return new InMemoryTaskManager(new TimeSlotIndex(granularity));
+    }
+
+    // Потокобезопасный менеджер для обработки запросов из нескольких потоков
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
+    // Потокобезопасная обёртка над любым менеджером: вызовы выполняются по одному
+    public static TaskManager getSynchronized(TaskManager taskManager) {
+        if (taskManager instanceof ConcurrentTaskManager || taskManager instanceof SynchronizedTaskManager) {
+            return taskManager;
+        }
+        return new SynchronizedTaskManager(taskManager);
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
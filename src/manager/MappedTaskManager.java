@@ -0,0 +1,724 @@
+package manager;
+
+import entity.BatchAction;
+import entity.BatchOperation;
+import entity.Epic;
+import entity.Status;
+import entity.Subtask;
+import entity.Task;
+import entity.TaskQuery;
+import entity.TaskTypes;
+import exception.NotFoundException;
+import util.IntHashSet;
+import util.IntObjectHashMap;
+
+import java.io.Closeable;
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+
+// Менеджер, задачи которого хранятся в отображённых в память файлах, а не в куче.
+// При запуске файлы только отображаются: id задачи - номер её слота, поэтому индекс по id готов сразу.
+// Остальные индексы (расписание, статусы, подзадачи эпиков, поиск) строятся при первом обращении
+// одним проходом по слотам и дальше поддерживаются при изменениях.
+// Объекты задач создаются при каждом чтении, время хранится с точностью до минуты.
+// В куче остаются только индексы и ограниченный кеш названий и описаний, поэтому память
+// не растёт вместе с объёмом текста задач.
+public class MappedTaskManager implements TaskManager, Closeable {
+    // Сколько символов названий и описаний по умолчанию держится в кеше
+    private static final long DEFAULT_CACHED_TEXT_CHARS = 4 * 1024 * 1024;
+
+    private final MappedTaskStore store;
+    // В истории только id в порядке просмотра: задачи читаются из файла при запросе истории,
+    // а не держатся в памяти целиком
+    private final Set<Integer> history = new LinkedHashSet<>();
+    private Schedule schedule;
+    private StatusIndex statusIndex;
+    private SearchIndex searchIndex;
+    private IntObjectHashMap<IntHashSet> epicSubtasks;
+    private final IntObjectHashMap<EpicRollup> epicRollups = new IntObjectHashMap<>();
+    // Версии не сохраняются в файл: после открытия у всех задач начальная версия
+    private final VersionCounter versions = new VersionCounter();
+
+    private MappedTaskManager(MappedTaskStore store) {
+        this.store = store;
+    }
+
+    // Открытие или создание хранилища в file и file.heap
+    public static MappedTaskManager open(File file) {
+        return open(file, DEFAULT_CACHED_TEXT_CHARS);
+    }
+
+    // Кеш строк ограничен cachedTextChars символами; ноль отключает кеш
+    public static MappedTaskManager open(File file, long cachedTextChars) {
+        return new MappedTaskManager(MappedTaskStore.open(file, cachedTextChars));
+    }
+
+    // Сброс всех изменений на диск
+    public void flush() {
+        store.force();
+    }
+
+    @Override
+    public void close() {
+        store.close();
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        List<Task> result = new ArrayList<>();
+        store.forEachId(TaskTypes.TASK, id -> result.add(store.scan(id)));
+        return result;
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        List<Subtask> result = new ArrayList<>();
+        store.forEachId(TaskTypes.SUBTASK, id -> result.add((Subtask) store.scan(id)));
+        return result;
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        List<Epic> result = new ArrayList<>();
+        store.forEachId(TaskTypes.EPIC, id -> result.add((Epic) withSubtaskIds(store.scan(id))));
+        return result;
+    }
+
+    @Override
+    public List<Task> getTasks(TaskQuery query) {
+        return page(TaskTypes.TASK, query, Task.class);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(TaskQuery query) {
+        return page(TaskTypes.SUBTASK, query, Subtask.class);
+    }
+
+    @Override
+    public List<Epic> getEpics(TaskQuery query) {
+        return page(TaskTypes.EPIC, query, Epic.class);
+    }
+
+    // Статус и время проверяются по слоту, задача читается целиком, только если попадает на страницу.
+    // Кандидаты берутся из индекса статусов, из расписания для окна по времени или из индекса статусов
+    // по всем статусам типа.
+    private <T extends Task> List<T> page(TaskTypes type, TaskQuery query, Class<T> taskClass) {
+        IntPredicate matches = id -> store.contains(type, id)
+                && query.matches(store.statusOf(id), store.startOf(id), store.endOf(id));
+        StatusIndex index = statusIndex();
+        int[] ids;
+        if (query.getStatus() != null) {
+            IntHashSet candidates = index.get(type, query.getStatus());
+            ids = PageIds.select(query, store.nextId(), candidates.size(), candidates::forEachInt, matches);
+        } else if (PageIds.hasTimeRange(query) && type != TaskTypes.EPIC) {
+            int[] candidates = PageIds.window(schedule().starts, query).stream()
+                    .filter(id -> store.contains(type, id))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            ids = PageIds.select(query, store.nextId(), candidates, matches);
+        } else {
+            int count = 0;
+            for (Status status : Status.values()) {
+                count += index.count(type, status);
+            }
+            ids = PageIds.select(query, store.nextId(), count, action -> {
+                for (Status status : Status.values()) {
+                    index.get(type, status).forEachInt(action);
+                }
+            }, matches);
+        }
+        List<T> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(taskClass.cast(readAny(id)));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getByStatus(Status status) {
+        List<Task> result = new ArrayList<>(countByStatus(status));
+        for (TaskTypes type : TaskTypes.values()) {
+            result.addAll(getByStatus(type, status));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskTypes type, Status status) {
+        IntHashSet ids = statusIndex().get(type, status);
+        List<Task> result = new ArrayList<>(ids.size());
+        ids.forEachInt(id -> result.add(readAny(id)));
+        return result;
+    }
+
+    @Override
+    public int countByStatus(Status status) {
+        int count = 0;
+        for (TaskTypes type : TaskTypes.values()) {
+            count += countByStatus(type, status);
+        }
+        return count;
+    }
+
+    @Override
+    public int countByStatus(TaskTypes type, Status status) {
+        return statusIndex().count(type, status);
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        int[] ids = searchIndex().search(query, limit);
+        List<Task> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(readAny(id));
+        }
+        return result;
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        for (int id : idsOf(TaskTypes.TASK)) {
+            deleteTask(id);
+        }
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        for (int id : idsOf(TaskTypes.SUBTASK)) {
+            unschedule(id);
+            discard(TaskTypes.SUBTASK, id);
+        }
+        epicSubtasks().forEachKey(epicId -> {
+            epicSubtasks.get(epicId).clear();
+            epicRollups.remove(epicId);
+            applyEpicRollup(epicId);
+        });
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        // Подзадачи эпиков собираются до удаления эпиков
+        IntObjectHashMap<IntHashSet> subtasksOfEpics = epicSubtasks();
+        for (int id : idsOf(TaskTypes.EPIC)) {
+            discard(TaskTypes.EPIC, id);
+        }
+        subtasksOfEpics.clear();
+        epicRollups.clear();
+        deleteAllSubtasks();
+    }
+
+    @Override
+    public Task getTask(int id) {
+        return getAndRemember(TaskTypes.TASK, id, "Task");
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        return (Subtask) getAndRemember(TaskTypes.SUBTASK, id, "Subtask");
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        return (Epic) getAndRemember(TaskTypes.EPIC, id, "Epic");
+    }
+
+    private Task getAndRemember(TaskTypes type, int id, String entityName) {
+        requireStored(type, id, entityName);
+        Task task = readAny(id);
+        history.remove(id);
+        history.add(id);
+        versions.viewed();
+        return task;
+    }
+
+    @Override
+    public void createTask(Task task) {
+        Task newTask = new Task(task.getName(), task.getDescription(), Status.NEW, store.nextId());
+        newTask.setStartTime(task.getStartTime());
+        newTask.setDuration(task.getDuration());
+        reschedule(null, newTask);
+        storeTask(newTask);
+    }
+
+    @Override
+    public void createSubtask(Subtask subtask) {
+        requireEpic(subtask.getEpicId());
+        Subtask newSubtask = new Subtask(subtask.getName(), subtask.getDescription(), Status.NEW, store.nextId(),
+                subtask.getEpicId());
+        newSubtask.setStartTime(subtask.getStartTime());
+        newSubtask.setDuration(subtask.getDuration());
+        reschedule(null, newSubtask);
+        storeSubtask(newSubtask);
+    }
+
+    @Override
+    public void createEpic(Epic epic) {
+        Epic newEpic = new Epic(epic.getName(), epic.getDescription(), Status.NEW, store.nextId());
+        storeEpic(newEpic);
+    }
+
+    // Слот задачи перезаписывается только задачей того же типа, иначе подзадача эпика
+    // стала бы задачей, а id за концом файла сдвинул бы счётчик идентификаторов
+    @Override
+    public void updateTask(Task task) {
+        requireStored(TaskTypes.TASK, task.getId(), "Task");
+        reschedule(store.read(task.getId(), false), task);
+        storeTask(task);
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        requireStored(TaskTypes.SUBTASK, subtask.getId(), "Subtask");
+        requireEpic(subtask.getEpicId());
+        reschedule(store.read(subtask.getId(), false), subtask);
+        storeSubtask(subtask);
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        requireStored(TaskTypes.EPIC, epic.getId(), "Epic");
+        storeEpic(epic);
+    }
+
+    @Override
+    public void deleteTask(int id) {
+        if (store.contains(TaskTypes.TASK, id)) {
+            unschedule(id);
+            discard(TaskTypes.TASK, id);
+        }
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        if (!store.contains(TaskTypes.SUBTASK, id)) {
+            return;
+        }
+        int epicId = store.epicIdOf(id);
+        unschedule(id);
+        discard(TaskTypes.SUBTASK, id);
+        epicSubtasks().get(epicId).remove(id);
+        rollupOf(epicId).remove(id);
+        applyEpicRollup(epicId);
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        if (!store.contains(TaskTypes.EPIC, id)) {
+            return;
+        }
+        epicSubtasks().get(id).forEachInt(subtaskId -> {
+            unschedule(subtaskId);
+            discard(TaskTypes.SUBTASK, subtaskId);
+        });
+        discard(TaskTypes.EPIC, id);
+        epicSubtasks.remove(id);
+        epicRollups.remove(id);
+    }
+
+    // Пакет проверяется целиком до применения, затем применяется в том же порядке, что и в InMemoryTaskManager
+    @Override
+    public List<Task> applyBatch(List<BatchOperation> operations) {
+        BatchValidator.validate(operations,
+                (type, id) -> store.contains(type, id) ? withSubtaskIds(store.read(id, false)) : null,
+                schedule());
+        Task[] result = new Task[operations.size()];
+
+        for (int i = 0; i < result.length; i++) {
+            BatchOperation operation = operations.get(i);
+            if (operation.getAction() == BatchAction.DELETE && operation.getType() != TaskTypes.EPIC) {
+                result[i] = readAny(operation.getId());
+                if (operation.getType() == TaskTypes.TASK) {
+                    deleteTask(operation.getId());
+                } else {
+                    deleteSubtask(operation.getId());
+                }
+            }
+        }
+        for (int i = 0; i < result.length; i++) {
+            BatchOperation operation = operations.get(i);
+            if (operation.getAction() == BatchAction.DELETE && operation.getType() == TaskTypes.EPIC) {
+                result[i] = readAny(operation.getId());
+                deleteEpic(operation.getId());
+            }
+        }
+
+        for (BatchOperation operation : operations) {
+            if (operation.getAction() == BatchAction.UPDATE && operation.getType() != TaskTypes.EPIC) {
+                unschedule(operation.getId());
+            }
+        }
+        for (int i = 0; i < result.length; i++) {
+            BatchOperation operation = operations.get(i);
+            if (operation.getAction() == BatchAction.UPDATE) {
+                Task task = operation.getTask();
+                switch (operation.getType()) {
+                    case TASK -> {
+                        schedule.add(task);
+                        storeTask(task);
+                    }
+                    case SUBTASK -> {
+                        schedule.add(task);
+                        storeSubtask((Subtask) task);
+                    }
+                    case EPIC -> storeEpic((Epic) task);
+                }
+                result[i] = task;
+            }
+        }
+
+        for (int i = 0; i < result.length; i++) {
+            BatchOperation operation = operations.get(i);
+            if (operation.getAction() == BatchAction.CREATE) {
+                Task task = operation.getTask();
+                int id = store.nextId();
+                switch (operation.getType()) {
+                    case TASK -> {
+                        Task newTask = new Task(task.getName(), task.getDescription(), Status.NEW, id);
+                        newTask.setStartTime(task.getStartTime());
+                        newTask.setDuration(task.getDuration());
+                        schedule.add(newTask);
+                        storeTask(newTask);
+                        result[i] = newTask;
+                    }
+                    case SUBTASK -> {
+                        Subtask newSubtask = new Subtask(task.getName(), task.getDescription(), Status.NEW, id,
+                                ((Subtask) task).getEpicId());
+                        newSubtask.setStartTime(task.getStartTime());
+                        newSubtask.setDuration(task.getDuration());
+                        schedule.add(newSubtask);
+                        storeSubtask(newSubtask);
+                        result[i] = newSubtask;
+                    }
+                    case EPIC -> {
+                        Epic newEpic = new Epic(task.getName(), task.getDescription(), Status.NEW, id);
+                        storeEpic(newEpic);
+                        result[i] = readAny(id);
+                    }
+                }
+            }
+        }
+        return List.of(result);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        List<Task> result = new ArrayList<>(history.size());
+        history.forEach(id -> result.add(readAny(id)));
+        return result;
+    }
+
+    @Override
+    public long getVersion(TaskTypes type) {
+        return versions.collection(type);
+    }
+
+    @Override
+    public long getVersion(TaskTypes type, int id) {
+        return versions.entity(type, id);
+    }
+
+    @Override
+    public long getPrioritizedVersion() {
+        return versions.prioritized();
+    }
+
+    @Override
+    public long getHistoryVersion() {
+        return versions.history();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return new ArrayList<>(getPrioritizedTasksView());
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime after, int limit) {
+        NavigableMap<LocalDateTime, Integer> starts = schedule().starts;
+        NavigableMap<LocalDateTime, Integer> tail = after == null ? starts : starts.tailMap(after, false);
+        return tail.values().stream()
+                .limit(limit)
+                .map(this::readAny)
+                .toList();
+    }
+
+    // Представление без копирования: задачи читаются из файла по мере обхода
+    @Override
+    public Collection<Task> getPrioritizedTasksView() {
+        Collection<Integer> ids = schedule().starts.values();
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Task> iterator() {
+                Iterator<Integer> iterator = ids.iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Task next() {
+                        return readAny(iterator.next());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ids.size();
+            }
+        };
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return List.of();
+        }
+        TreeMap<LocalDateTime, Integer> starts = schedule().starts;
+        List<Task> result = new ArrayList<>();
+        Map.Entry<LocalDateTime, Integer> before = starts.lowerEntry(from);
+        if (before != null && store.endOf(before.getValue()).isAfter(from)) {
+            result.add(readAny(before.getValue()));
+        }
+        starts.subMap(from, true, to, false).values().forEach(id -> result.add(readAny(id)));
+        return result;
+    }
+
+    private Task readAny(int id) {
+        return withSubtaskIds(store.read(id));
+    }
+
+    // Эпик получает идентификаторы своих подзадач
+    private Task withSubtaskIds(Task task) {
+        if (task instanceof Epic epic) {
+            epicSubtasks().get(epic.getId()).forEachInt(epic::addSubtaskId);
+        }
+        return task;
+    }
+
+    private int[] idsOf(TaskTypes type) {
+        IntHashSet ids = new IntHashSet();
+        store.forEachId(type, ids::add);
+        return ids.toIntArray();
+    }
+
+    private void requireStored(TaskTypes type, int id, String entityName) {
+        if (!store.contains(type, id)) {
+            throw new NotFoundException("entity." + entityName + " with id " + id + " not found");
+        }
+    }
+
+    private void requireEpic(int epicId) {
+        if (!store.contains(TaskTypes.EPIC, epicId)) {
+            throw new NotFoundException("entity.Epic not found");
+        }
+    }
+
+    private void storeTask(Task task) {
+        store.write(task);
+        indexStored(task);
+    }
+
+    // Подзадача переносится в список нового эпика, статус и время обоих эпиков пересчитываются
+    private void storeSubtask(Subtask subtask) {
+        int id = subtask.getId();
+        int oldEpicId = store.contains(TaskTypes.SUBTASK, id) ? store.epicIdOf(id) : 0;
+        IntObjectHashMap<IntHashSet> subtasksOfEpics = epicSubtasks();
+        store.write(subtask);
+        indexStored(subtask);
+        if (oldEpicId != 0 && oldEpicId != subtask.getEpicId() && subtasksOfEpics.containsKey(oldEpicId)) {
+            subtasksOfEpics.get(oldEpicId).remove(id);
+            rollupOf(oldEpicId).remove(id);
+            applyEpicRollup(oldEpicId);
+        }
+        subtasksOfEpics.get(subtask.getEpicId()).add(id);
+        rollupOf(subtask.getEpicId()).put(subtask);
+        applyEpicRollup(subtask.getEpicId());
+    }
+
+    // Статус и время эпика всегда вычисляются по подзадачам
+    private void storeEpic(Epic epic) {
+        IntObjectHashMap<IntHashSet> subtasksOfEpics = epicSubtasks();
+        store.write(epic);
+        if (!subtasksOfEpics.containsKey(epic.getId())) {
+            subtasksOfEpics.put(epic.getId(), new IntHashSet());
+        }
+        indexStored(epic);
+        applyEpicRollup(epic.getId());
+    }
+
+    // Пересчитанные статус и время записываются в слот эпика, название и описание не трогаются
+    private void applyEpicRollup(int epicId) {
+        EpicRollup rollup = rollupOf(epicId);
+        store.writeSummary(epicId, rollup.getStatus(), rollup.getStartTime(), rollup.getEndTime(),
+                rollup.getDuration());
+        if (statusIndex != null) {
+            statusIndex.update(new Epic(null, null, rollup.getStatus(), epicId));
+        }
+        versions.stored(TaskTypes.EPIC, epicId);
+    }
+
+    private void indexStored(Task task) {
+        if (statusIndex != null) {
+            statusIndex.update(task);
+        }
+        if (searchIndex != null) {
+            searchIndex.update(task);
+        }
+        versions.stored(task.getType(), task.getId());
+    }
+
+    private void discard(TaskTypes type, int id) {
+        history.remove(id);
+        store.remove(id);
+        if (statusIndex != null) {
+            statusIndex.remove(type, id);
+        }
+        if (searchIndex != null) {
+            searchIndex.remove(id);
+        }
+        versions.removed(type, id);
+    }
+
+    // Замена времени задачи в расписании. При пересечении остаётся старое время.
+    private void reschedule(Task oldTask, Task newTask) {
+        Schedule current = schedule();
+        if (oldTask != null) {
+            current.remove(oldTask);
+        }
+        if (current.overlaps(newTask)) {
+            if (oldTask != null) {
+                current.add(oldTask);
+            }
+            throw new IllegalArgumentException("Время задачи пересекается с существующей");
+        }
+        current.add(newTask);
+    }
+
+    private void unschedule(int id) {
+        LocalDateTime start = store.startOf(id);
+        if (schedule != null && start != null) {
+            schedule.starts.remove(start, id);
+        }
+    }
+
+    private Schedule schedule() {
+        if (schedule == null) {
+            schedule = new Schedule(store);
+            for (TaskTypes type : List.of(TaskTypes.TASK, TaskTypes.SUBTASK)) {
+                store.forEachId(type, id -> {
+                    LocalDateTime start = store.startOf(id);
+                    if (start != null) {
+                        schedule.starts.put(start, id);
+                    }
+                });
+            }
+        }
+        return schedule;
+    }
+
+    private StatusIndex statusIndex() {
+        if (statusIndex == null) {
+            statusIndex = new StatusIndex();
+            for (TaskTypes type : TaskTypes.values()) {
+                store.forEachId(type, id -> statusIndex.get(type, store.statusOf(id)).add(id));
+            }
+        }
+        return statusIndex;
+    }
+
+    private SearchIndex searchIndex() {
+        if (searchIndex == null) {
+            searchIndex = new SearchIndex();
+            for (TaskTypes type : TaskTypes.values()) {
+                store.forEachId(type, id -> searchIndex.update(store.scan(id)));
+            }
+        }
+        return searchIndex;
+    }
+
+    private IntObjectHashMap<IntHashSet> epicSubtasks() {
+        if (epicSubtasks == null) {
+            epicSubtasks = new IntObjectHashMap<>();
+            store.forEachId(TaskTypes.EPIC, id -> epicSubtasks.put(id, new IntHashSet()));
+            store.forEachId(TaskTypes.SUBTASK, id -> epicSubtasks.get(store.epicIdOf(id)).add(id));
+        }
+        return epicSubtasks;
+    }
+
+    // Накопленные показатели эпика строятся по его подзадачам при первом изменении
+    private EpicRollup rollupOf(int epicId) {
+        EpicRollup rollup = epicRollups.get(epicId);
+        if (rollup == null) {
+            rollup = new EpicRollup();
+            EpicRollup filled = rollup;
+            epicSubtasks().get(epicId).forEachInt(id -> filled.put((Subtask) store.read(id, false)));
+            epicRollups.put(epicId, rollup);
+        }
+        return rollup;
+    }
+
+    // Расписание: время старта задач и подзадач. Задачи в расписании не пересекаются,
+    // поэтому для проверки новой задачи достаточно соседей по времени старта.
+    // Время окончания соседей читается из хранилища.
+    private static final class Schedule implements OverlapIndex {
+        private final TreeMap<LocalDateTime, Integer> starts = new TreeMap<>();
+        private final MappedTaskStore store;
+
+        private Schedule(MappedTaskStore store) {
+            this.store = store;
+        }
+
+        // Как и в IntervalIndex, пересечением считаются совпадение стартов и касание границ
+        @Override
+        public boolean overlaps(Task task) {
+            if (task.getStartTime() == null || task.getType() == TaskTypes.EPIC) {
+                return false;
+            }
+            LocalDateTime start = key(task.getStartTime());
+            Map.Entry<LocalDateTime, Integer> before = starts.floorEntry(start);
+            if (before != null && !store.endOf(before.getValue()).isBefore(start)) {
+                return true;
+            }
+            Map.Entry<LocalDateTime, Integer> after = starts.higherEntry(start);
+            return after != null && !after.getKey().isAfter(start.plusMinutes(task.getDuration()));
+        }
+
+        @Override
+        public void add(Task task) {
+            if (task.getStartTime() != null && task.getType() != TaskTypes.EPIC) {
+                starts.put(key(task.getStartTime()), task.getId());
+            }
+        }
+
+        @Override
+        public void remove(Task task) {
+            if (task.getStartTime() != null) {
+                starts.remove(key(task.getStartTime()), task.getId());
+            }
+        }
+
+        @Override
+        public void clear() {
+            starts.clear();
+        }
+
+        // В хранилище время с точностью до минуты, ключи расписания совпадают с ним
+        private static LocalDateTime key(LocalDateTime time) {
+            return time.truncatedTo(ChronoUnit.MINUTES);
+        }
+    }
+}
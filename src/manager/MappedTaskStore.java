@@ -0,0 +1,361 @@
+package manager;
+
+import entity.Epic;
+import entity.Status;
+import entity.Subtask;
+import entity.Task;
+import entity.TaskTypes;
+import exception.ManagerLoadException;
+import exception.ManagerSaveException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.function.IntConsumer;
+
+// Хранилище задач в двух отображённых в память файлах.
+// Файл записей состоит из слотов постоянной длины, слот задачи - её идентификатор,
+// поэтому индекс по id не нужно строить: запись находится умножением.
+// Нулевой слот занят заголовком: сигнатура, версия, следующий id и конец кучи строк.
+// Названия и описания лежат в отдельном файле-куче и декодируются только при чтении задачи целиком;
+// строки недавно прочитанных задач остаются в ограниченном кеше.
+// Куча только растёт: строка, которая не помещается на старое место, дописывается в конец.
+// Размер каждого файла ограничен одним отображением, то есть 2 ГБ.
+class MappedTaskStore implements Closeable {
+    private static final int MAGIC = 0x544D474D;
+    private static final int VERSION = 1;
+    private static final int SLOT_BYTES = 64;
+    private static final int INITIAL_SLOTS = 64;
+    private static final int INITIAL_HEAP_BYTES = 64 * 1024;
+    private static final int NO_STRING = -1;
+    private static final TaskTypes[] TYPES = TaskTypes.values();
+    private static final Status[] STATUSES = Status.values();
+
+    // Смещения полей заголовка
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_NEXT_ID = 8;
+    private static final int HEADER_HEAP_END = 16;
+
+    // Смещения полей слота. Тип хранится как порядковый номер плюс один, ноль - пустой слот.
+    private static final int TYPE = 0;
+    private static final int STATUS = 1;
+    private static final int EPIC_ID = 4;
+    private static final int START = 8;
+    private static final int DURATION = 16;
+    private static final int END = 24;
+    private static final int NAME_OFFSET = 32;
+    private static final int NAME_LENGTH = 40;
+    private static final int DESCRIPTION_LENGTH = 44;
+    private static final int DESCRIPTION_OFFSET = 48;
+
+    private final FileChannel recordChannel;
+    private final FileChannel heapChannel;
+    private MappedByteBuffer records;
+    private MappedByteBuffer heap;
+    private final TextCache textCache;
+
+    private MappedTaskStore(FileChannel recordChannel, FileChannel heapChannel, TextCache textCache) {
+        this.recordChannel = recordChannel;
+        this.heapChannel = heapChannel;
+        this.textCache = textCache;
+    }
+
+    static File heapFileOf(File file) {
+        return new File(file.getPath() + ".heap");
+    }
+
+    // Открытие хранилища: файлы отображаются в память, читается только заголовок
+    static MappedTaskStore open(File file, long cachedTextChars) {
+        FileChannel recordChannel = null;
+        FileChannel heapChannel = null;
+        try {
+            recordChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.CREATE);
+            heapChannel = FileChannel.open(heapFileOf(file).toPath(), StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+            MappedTaskStore store = new MappedTaskStore(recordChannel, heapChannel,
+                    new TextCache(cachedTextChars));
+            boolean created = recordChannel.size() == 0;
+            // Чужой файл проверяется до отображения, иначе отображение увеличило бы его
+            if (!created && (recordChannel.size() < SLOT_BYTES || readMagic(recordChannel) != MAGIC)) {
+                throw new ManagerLoadException("Файл не является хранилищем задач: " + file);
+            }
+            store.records = recordChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    Math.max(recordChannel.size(), (long) INITIAL_SLOTS * SLOT_BYTES));
+            store.heap = heapChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    Math.max(heapChannel.size(), INITIAL_HEAP_BYTES));
+            if (created) {
+                store.records.putInt(HEADER_MAGIC, MAGIC)
+                        .putInt(HEADER_VERSION, VERSION)
+                        .putInt(HEADER_NEXT_ID, 1)
+                        .putLong(HEADER_HEAP_END, 0);
+            } else if (store.records.getInt(HEADER_VERSION) != VERSION) {
+                throw new ManagerLoadException("Неизвестная версия хранилища: " + store.records.getInt(HEADER_VERSION));
+            }
+            return store;
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(recordChannel);
+            closeQuietly(heapChannel);
+            if (e instanceof ManagerLoadException loadException) {
+                throw loadException;
+            }
+            throw new ManagerLoadException(e);
+        }
+    }
+
+    private static int readMagic(FileChannel channel) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+        while (magic.hasRemaining() && channel.read(magic, magic.position()) >= 0) {
+            // Чтение до заполнения буфера
+        }
+        return magic.getInt(HEADER_MAGIC);
+    }
+
+    // Идентификатор, который получит следующая созданная задача
+    int nextId() {
+        return records.getInt(HEADER_NEXT_ID);
+    }
+
+    void setNextId(int id) {
+        records.putInt(HEADER_NEXT_ID, id);
+    }
+
+    // Тип задачи с этим id или null, если такой задачи нет
+    TaskTypes typeOf(int id) {
+        if (id <= 0 || id >= nextId()) {
+            return null;
+        }
+        int type = records.get(slot(id) + TYPE);
+        return type == 0 ? null : TYPES[type - 1];
+    }
+
+    boolean contains(TaskTypes type, int id) {
+        return typeOf(id) == type;
+    }
+
+    Status statusOf(int id) {
+        return STATUSES[records.get(slot(id) + STATUS)];
+    }
+
+    int epicIdOf(int id) {
+        return records.getInt(slot(id) + EPIC_ID);
+    }
+
+    LocalDateTime startOf(int id) {
+        return BinarySnapshot.fromEpochMinute(records.getLong(slot(id) + START));
+    }
+
+    // Время окончания: у эпика хранится, у остальных задач вычисляется по старту и длительности
+    LocalDateTime endOf(int id) {
+        int slot = slot(id);
+        if (typeOf(id) == TaskTypes.EPIC) {
+            return BinarySnapshot.fromEpochMinute(records.getLong(slot + END));
+        }
+        long start = records.getLong(slot + START);
+        return start == BinarySnapshot.NO_TIME ? null
+                : BinarySnapshot.fromEpochMinute(start + records.getLong(slot + DURATION));
+    }
+
+    // Обход задач типа type в порядке id по байту типа в каждом слоте
+    void forEachId(TaskTypes type, IntConsumer action) {
+        byte wanted = (byte) (type.ordinal() + 1);
+        int next = nextId();
+        for (int id = 1; id < next; id++) {
+            if (records.get(slot(id) + TYPE) == wanted) {
+                action.accept(id);
+            }
+        }
+    }
+
+    // Задача целиком, вместе с названием и описанием
+    Task read(int id) {
+        return read(id, true);
+    }
+
+    // Задача без названия и описания: для пересчёта эпиков и индексов строки не декодируются
+    Task read(int id, boolean withText) {
+        return read(id, withText, true);
+    }
+
+    // Задача целиком при обходе всех задач: строки не попадают в кеш, чтобы обход
+    // не вытеснил из него часто читаемые задачи
+    Task scan(int id) {
+        return read(id, true, false);
+    }
+
+    private Task read(int id, boolean withText, boolean cacheText) {
+        TaskTypes type = typeOf(id);
+        if (type == null) {
+            return null;
+        }
+        int slot = slot(id);
+        String name = null;
+        String description = null;
+        if (withText) {
+            String[] text = textCache.get(id);
+            if (text != null) {
+                name = text[0];
+                description = text[1];
+            } else {
+                name = readString(records.getLong(slot + NAME_OFFSET), records.getInt(slot + NAME_LENGTH));
+                description = readString(records.getLong(slot + DESCRIPTION_OFFSET),
+                        records.getInt(slot + DESCRIPTION_LENGTH));
+                if (cacheText) {
+                    textCache.put(id, name, description);
+                }
+            }
+        }
+        Status status = statusOf(id);
+        LocalDateTime startTime = startOf(id);
+        long duration = records.getLong(slot + DURATION);
+        return switch (type) {
+            case TASK -> {
+                Task task = new Task(name, description, status, id);
+                task.setStartTime(startTime);
+                task.setDuration(duration);
+                yield task;
+            }
+            case SUBTASK -> {
+                Subtask subtask = new Subtask(name, description, status, id, epicIdOf(id));
+                subtask.setStartTime(startTime);
+                subtask.setDuration(duration);
+                yield subtask;
+            }
+            case EPIC -> {
+                Epic epic = new Epic(name, description, status, id);
+                epic.setStartTime(startTime);
+                epic.setEndTime(endOf(id));
+                epic.setDuration(duration);
+                yield epic;
+            }
+        };
+    }
+
+    // Запись задачи в её слот. Строки, которые не изменились, остаются на месте в куче.
+    void write(Task task) {
+        int id = task.getId();
+        ensureSlot(id);
+        int slot = slot(id);
+        boolean existing = records.get(slot + TYPE) != 0;
+        textCache.remove(id);
+        writeString(slot + NAME_OFFSET, slot + NAME_LENGTH, task.getName(), existing);
+        writeString(slot + DESCRIPTION_OFFSET, slot + DESCRIPTION_LENGTH, task.getDescription(), existing);
+        records.put(slot + TYPE, (byte) (task.getType().ordinal() + 1))
+                .put(slot + STATUS, (byte) task.getStatus().ordinal())
+                .putInt(slot + EPIC_ID, task instanceof Subtask subtask ? subtask.getEpicId() : 0)
+                .putLong(slot + START, BinarySnapshot.toEpochMinute(task.getStartTime()))
+                .putLong(slot + DURATION, task.getDuration())
+                .putLong(slot + END, task instanceof Epic epic
+                        ? BinarySnapshot.toEpochMinute(epic.getEndTime()) : BinarySnapshot.NO_TIME);
+        if (id >= nextId()) {
+            setNextId(id + 1);
+        }
+    }
+
+    // Запись статуса и времени, вычисленных по подзадачам эпика
+    void writeSummary(int id, Status status, LocalDateTime startTime, LocalDateTime endTime, long duration) {
+        int slot = slot(id);
+        records.put(slot + STATUS, (byte) status.ordinal())
+                .putLong(slot + START, BinarySnapshot.toEpochMinute(startTime))
+                .putLong(slot + DURATION, duration)
+                .putLong(slot + END, BinarySnapshot.toEpochMinute(endTime));
+    }
+
+    void remove(int id) {
+        if (typeOf(id) != null) {
+            records.put(slot(id) + TYPE, (byte) 0);
+            textCache.remove(id);
+        }
+    }
+
+    // Сброс изменённых страниц обоих файлов на диск
+    void force() {
+        records.force();
+        heap.force();
+    }
+
+    @Override
+    public void close() {
+        force();
+        closeQuietly(recordChannel);
+        closeQuietly(heapChannel);
+    }
+
+    private static int slot(int id) {
+        return id * SLOT_BYTES;
+    }
+
+    private void ensureSlot(int id) {
+        long needed = (long) (id + 1) * SLOT_BYTES;
+        if (needed > records.capacity()) {
+            records = remap(recordChannel, records, needed);
+        }
+    }
+
+    private String readString(long offset, int length) {
+        if (length == NO_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        heap.get((int) offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void writeString(int offsetField, int lengthField, String value, boolean existing) {
+        if (value == null) {
+            records.putInt(lengthField, NO_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        long offset;
+        // Строка не длиннее прежней записывается на её место
+        if (existing && bytes.length <= records.getInt(lengthField)) {
+            offset = records.getLong(offsetField);
+        } else {
+            offset = records.getLong(HEADER_HEAP_END);
+            long end = offset + bytes.length;
+            if (end > heap.capacity()) {
+                heap = remap(heapChannel, heap, end);
+            }
+            records.putLong(HEADER_HEAP_END, end);
+        }
+        heap.put((int) offset, bytes);
+        records.putLong(offsetField, offset).putInt(lengthField, bytes.length);
+    }
+
+    // Отображение растёт вдвое, пока не вместит needed байтов
+    private static MappedByteBuffer remap(FileChannel channel, MappedByteBuffer current, long needed) {
+        long size = current.capacity();
+        while (size < needed) {
+            size *= 2;
+        }
+        size = Math.min(size, Integer.MAX_VALUE);
+        if (size < needed) {
+            throw new ManagerSaveException("Хранилище задач превысило размер одного отображения");
+        }
+        try {
+            current.force();
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new ManagerSaveException(e);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Канал уже не нужен
+        }
+    }
+}
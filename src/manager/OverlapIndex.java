@@ -0,0 +1,23 @@
+package manager;
+
+import entity.Task;
+
+import java.util.List;
+
+// Индекс для проверки пересечения задач по времени
+public interface OverlapIndex {
+
+    // Пересекается ли время задачи со временем уже добавленных задач
+    boolean overlaps(Task task);
+
+    void add(Task task);
+
+    void remove(Task task);
+
+    void clear();
+
+    // Заполнение пустого индекса задачами, отсортированными по времени старта без повторов
+    default void addAllSorted(List<Task> sorted) {
+        sorted.forEach(this::add);
+    }
+}
@@ -0,0 +1,112 @@
+package manager;
+
+import entity.TaskQuery;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.NavigableMap;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+// Идентификаторы страницы: не больше limit наименьших подходящих id больше курсора, по возрастанию.
+// Кандидаты - id из индекса статусов, расписания или самого типа, среди которых есть все подходящие.
+// Сначала id перебираются подряд от курсора, но не больше, чем есть кандидатов: на плотных данных
+// страница так заполняется за O(limit). Если не заполнилась, недостающие id выбираются из кандидатов
+// ограниченной кучей. Стоимость страницы ограничена числом кандидатов, а не наибольшим выданным id.
+final class PageIds {
+
+    private PageIds() {
+    }
+
+    static int[] select(TaskQuery query, int nextId, int[] candidates, IntPredicate matches) {
+        return select(query, nextId, candidates.length, action -> {
+            for (int candidate : candidates) {
+                action.accept(candidate);
+            }
+        }, matches);
+    }
+
+    static int[] select(TaskQuery query, int nextId, int candidateCount, Consumer<IntConsumer> candidates,
+                        IntPredicate matches) {
+        int[] page = new int[Math.min(query.getLimit(), candidateCount)];
+        int size = 0;
+        long next = query.getAfterId() + 1L;
+        for (long walked = 0; walked < candidateCount && next < nextId && size < page.length; walked++, next++) {
+            if (matches.test((int) next)) {
+                page[size++] = (int) next;
+            }
+        }
+        if (size < page.length && next < nextId) {
+            Smallest rest = new Smallest(next - 1, page.length - size, matches);
+            candidates.accept(rest);
+            size += rest.drainSorted(page, size);
+        }
+        return size == page.length ? page : Arrays.copyOf(page, size);
+    }
+
+    // Задачи расписания, которые могут пересекаться с окном запроса. Задачи в расписании не пересекаются,
+    // поэтому из начавшихся до окна в него может попасть только последняя.
+    static <V> Collection<V> window(NavigableMap<LocalDateTime, V> schedule, TaskQuery query) {
+        NavigableMap<LocalDateTime, V> window = query.getTo() == null ? schedule : schedule.headMap(query.getTo(), false);
+        if (query.getFrom() != null) {
+            LocalDateTime before = window.lowerKey(query.getFrom());
+            window = window.tailMap(before == null ? query.getFrom() : before, true);
+        }
+        return window.values();
+    }
+
+    static boolean hasTimeRange(TaskQuery query) {
+        return query.getFrom() != null || query.getTo() != null;
+    }
+
+    // Наименьшие подходящие id больше after: куча с наибольшим из отобранных в корне
+    private static final class Smallest implements IntConsumer {
+        private final long after;
+        private final IntPredicate matches;
+        private final int[] heap;
+        private int size;
+
+        private Smallest(long after, int count, IntPredicate matches) {
+            this.after = after;
+            this.matches = matches;
+            heap = new int[count];
+        }
+
+        @Override
+        public void accept(int id) {
+            if (id <= after || (size == heap.length && id >= heap[0]) || !matches.test(id)) {
+                return;
+            }
+            if (size < heap.length) {
+                int child = size++;
+                while (child > 0 && heap[(child - 1) / 2] < id) {
+                    heap[child] = heap[(child - 1) / 2];
+                    child = (child - 1) / 2;
+                }
+                heap[child] = id;
+                return;
+            }
+            int parent = 0;
+            while (2 * parent + 1 < size) {
+                int child = 2 * parent + 1;
+                if (child + 1 < size && heap[child + 1] > heap[child]) {
+                    child++;
+                }
+                if (heap[child] <= id) {
+                    break;
+                }
+                heap[parent] = heap[child];
+                parent = child;
+            }
+            heap[parent] = id;
+        }
+
+        private int drainSorted(int[] target, int offset) {
+            Arrays.sort(heap, 0, size);
+            System.arraycopy(heap, 0, target, offset, size);
+            return size;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package manager;
+
+import entity.Task;
+import util.IntHashSet;
+import util.IntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// Инвертированный индекс по названию и описанию задач.
+// Для каждого слова хранятся идентификаторы задач, где оно встречается,
+// для каждой задачи - частоты её слов, чтобы при изменении убрать старые записи.
+// Результаты ранжируются по tf-idf, слова из названия весят больше слов из описания.
+class SearchIndex {
+    private static final int NAME_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final Comparator<Hit> BY_RANK = Comparator.comparingDouble((Hit hit) -> hit.score)
+            .reversed()
+            .thenComparingInt(hit -> hit.id);
+
+    private final Map<String, IntHashSet> postings = new HashMap<>();
+    private final IntObjectHashMap<Map<String, Integer>> documents = new IntObjectHashMap<>();
+
+    // Добавление задачи или замена её старых слов новыми
+    void update(Task task) {
+        remove(task.getId());
+        Map<String, Integer> terms = new HashMap<>();
+        for (String term : tokenize(task.getName())) {
+            terms.merge(term, NAME_WEIGHT, Integer::sum);
+        }
+        for (String term : tokenize(task.getDescription())) {
+            terms.merge(term, DESCRIPTION_WEIGHT, Integer::sum);
+        }
+        if (terms.isEmpty()) {
+            return;
+        }
+        documents.put(task.getId(), terms);
+        for (String term : terms.keySet()) {
+            postings.computeIfAbsent(term, key -> new IntHashSet()).add(task.getId());
+        }
+    }
+
+    void remove(int id) {
+        Map<String, Integer> terms = documents.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            IntHashSet ids = postings.get(term);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    // Идентификаторы не больше limit задач, содержащих хотя бы одно слово запроса,
+    // от наиболее подходящей к наименее подходящей
+    int[] search(String query, int limit) {
+        if (limit <= 0) {
+            return new int[0];
+        }
+        IntObjectHashMap<Hit> hits = new IntObjectHashMap<>();
+        for (String term : new LinkedHashSet<>(tokenize(query))) {
+            IntHashSet ids = postings.get(term);
+            if (ids == null) {
+                continue;
+            }
+            // Редкие слова весят больше частых
+            double idf = Math.log(1.0 + (double) documents.size() / ids.size());
+            ids.forEachInt(id -> {
+                Hit hit = hits.get(id);
+                if (hit == null) {
+                    hit = new Hit(id);
+                    hits.put(id, hit);
+                }
+                hit.score += documents.get(id).get(term) * idf;
+            });
+        }
+
+        // Куча из limit лучших совпадений, в вершине худшее из них
+        PriorityQueue<Hit> top = new PriorityQueue<>(BY_RANK.reversed());
+        for (Hit hit : hits.values()) {
+            top.add(hit);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        int[] result = new int[top.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = top.poll().id;
+        }
+        return result;
+    }
+
+    // Слова - последовательности букв и цифр в нижнем регистре
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        text.codePoints().forEach(codePoint -> {
+            if (Character.isLetterOrDigit(codePoint)) {
+                token.appendCodePoint(codePoint);
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString().toLowerCase(Locale.ROOT));
+                token.setLength(0);
+            }
+        });
+        if (!token.isEmpty()) {
+            tokens.add(token.toString().toLowerCase(Locale.ROOT));
+        }
+        return tokens;
+    }
+
+    private static final class Hit {
+        private final int id;
+        private double score;
+
+        private Hit(int id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package manager;
+
+import entity.Task;
+import exception.ManagerLoadException;
+import exception.ManagerSaveException;
+import util.IntHashSet;
+import util.IntObjectHashMap;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32C;
+
+// Снимок, разбитый на сегменты: в сегменте n лежат задачи с идентификаторами из
+// [n * SEGMENT_IDS, (n + 1) * SEGMENT_IDS), поэтому изменение одной задачи перезаписывает один сегмент,
+// а не весь снимок. Сегменты не перезаписываются на месте: каждое сохранение пишет изменённые сегменты
+// в новые файлы segment-<n>-<поколение>.csv, а затем атомарно заменяет манифест со списком текущих
+// файлов сегментов. Изменение, которое затрагивает несколько сегментов, например удаление эпика
+// с подзадачами в других сегментах, становится видно целиком или не видно совсем.
+// Прошлый манифест остаётся предыдущим поколением вместе со своими файлами. Если манифест
+// или любой его сегмент повреждён, загружается предыдущее поколение целиком, а не по сегментам.
+final class SegmentedSnapshot {
+    static final int SEGMENT_IDS = 1024;
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".csv";
+    private static final String MANIFEST = "manifest.csv";
+    private static final String GENERATION = "generation";
+
+    private SegmentedSnapshot() {
+    }
+
+    static boolean isSegmented(File file) {
+        return file.isDirectory();
+    }
+
+    static int segmentOf(int id) {
+        return id / SEGMENT_IDS;
+    }
+
+    static int firstIdOf(int segment) {
+        return segment * SEGMENT_IDS;
+    }
+
+    static File manifestFile(File directory) {
+        return new File(directory, MANIFEST);
+    }
+
+    // Текущий файл сегмента или null, если в снимке нет такого сегмента
+    static File segmentFile(File directory, int segment) {
+        Manifest manifest = readManifest(manifestFile(directory));
+        return manifest.segments.containsKey(segment)
+                ? generationFile(directory, segment, manifest.segments.get(segment))
+                : null;
+    }
+
+    static boolean hasPrevious(File directory) {
+        return FileBackedTaskManager.previousGenerationOf(manifestFile(directory)).exists();
+    }
+
+    // Все сегменты заново; сегментов, которых нет среди задач, в новом поколении не будет
+    static void writeAll(File directory, List<Task> tasks, boolean keepCurrent) {
+        IntObjectHashMap<List<Task>> segments = new IntObjectHashMap<>();
+        for (Task task : tasks) {
+            int segment = segmentOf(task.getId());
+            List<Task> segmentTasks = segments.get(segment);
+            if (segmentTasks == null) {
+                segmentTasks = new ArrayList<>();
+                segments.put(segment, segmentTasks);
+            }
+            segmentTasks.add(task);
+        }
+        segments.forEachKey(segment -> segments.get(segment).sort(Comparator.comparingInt(Task::getId)));
+        write(directory, segments, true, keepCurrent);
+    }
+
+    // Новое поколение, в котором segments заменяют свои сегменты, а пустой список удаляет сегмент.
+    // Остальные сегменты берутся из текущего манифеста или, если complete, не попадают в поколение.
+    // Если keepCurrent, текущий манифест становится предыдущим поколением; иначе он повреждён
+    // и просто заменяется, а предыдущее поколение остаётся прежним.
+    static void write(File directory, IntObjectHashMap<List<Task>> segments, boolean complete, boolean keepCurrent) {
+        File manifestFile = manifestFile(directory);
+        File previousManifest = FileBackedTaskManager.previousGenerationOf(manifestFile);
+        try {
+            Files.createDirectories(directory.toPath());
+            Manifest base = complete || !manifestFile.exists() ? new Manifest(0) : readManifest(manifestFile);
+            // Номер поколения больше всех файлов в каталоге, поэтому файлы живых поколений не перезаписываются
+            Manifest next = new Manifest(Math.max(base.generation, lastGenerationIn(directory)) + 1);
+            base.segments.forEachKey(segment -> next.segments.put(segment, base.segments.get(segment)));
+            segments.forEachKey(segment -> {
+                List<Task> segmentTasks = segments.get(segment);
+                if (segmentTasks.isEmpty()) {
+                    next.segments.remove(segment);
+                } else {
+                    CsvSnapshot.write(generationFile(directory, segment, next.generation), segmentTasks);
+                    next.segments.put(segment, next.generation);
+                }
+            });
+
+            File temp = new File(manifestFile.getPath() + ".tmp");
+            writeManifest(temp, next);
+            if (keepCurrent && manifestFile.exists()) {
+                Files.move(manifestFile.toPath(), previousManifest.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(temp.toPath(), manifestFile.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            FileBackedTaskManager.syncDirectory(directory.toPath());
+            deleteUnused(directory, next, previousManifest);
+        } catch (IOException e) {
+            throw new ManagerSaveException(e);
+        } catch (ManagerLoadException e) {
+            throw new ManagerSaveException("Не удалось прочитать манифест снимка", e);
+        }
+    }
+
+    // Задачи текущего поколения. Каталог без манифестов - пустой снимок.
+    static List<Task> read(File directory) {
+        File manifestFile = manifestFile(directory);
+        if (!manifestFile.exists() && !hasPrevious(directory)) {
+            return List.of();
+        }
+        return readGeneration(directory, manifestFile);
+    }
+
+    static List<Task> readPrevious(File directory) {
+        return readGeneration(directory, FileBackedTaskManager.previousGenerationOf(manifestFile(directory)));
+    }
+
+    private static List<Task> readGeneration(File directory, File manifestFile) {
+        Manifest manifest = readManifest(manifestFile);
+        List<Task> tasks = new ArrayList<>();
+        for (int segment : manifest.sortedSegments()) {
+            tasks.addAll(CsvSnapshot.read(generationFile(directory, segment, manifest.segments.get(segment))));
+        }
+        return tasks;
+    }
+
+    private static File generationFile(File directory, int segment, long generation) {
+        return new File(directory, PREFIX + segment + "-" + generation + SUFFIX);
+    }
+
+    // Остаются только файлы сегментов, на которые ссылается новый или предыдущий манифест
+    private static void deleteUnused(File directory, Manifest current, File previousManifest) throws IOException {
+        Set<String> used = new HashSet<>();
+        addFiles(used, current);
+        if (previousManifest.exists()) {
+            try {
+                addFiles(used, readManifest(previousManifest));
+            } catch (ManagerLoadException e) {
+                // Повреждённое предыдущее поколение не загрузится, его файлы не нужны
+            }
+        }
+        String[] names = directory.list();
+        if (names == null) {
+            return;
+        }
+        for (String name : names) {
+            if (name.startsWith(PREFIX) && !used.contains(name)) {
+                Files.deleteIfExists(new File(directory, name).toPath());
+            }
+        }
+    }
+
+    private static void addFiles(Set<String> names, Manifest manifest) {
+        manifest.segments.forEachKey(segment ->
+                names.add(PREFIX + segment + "-" + manifest.segments.get(segment) + SUFFIX));
+    }
+
+    // Наибольший номер поколения среди файлов сегментов в каталоге
+    private static long lastGenerationIn(File directory) {
+        String[] names = directory.list();
+        long last = 0;
+        if (names == null) {
+            return last;
+        }
+        for (String name : names) {
+            int separator = name.lastIndexOf('-');
+            if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX) || separator < PREFIX.length()) {
+                continue;
+            }
+            try {
+                last = Math.max(last, Long.parseLong(name.substring(separator + 1, name.length() - SUFFIX.length())));
+            } catch (NumberFormatException e) {
+                // Посторонний файл в каталоге снимка
+            }
+        }
+        return last;
+    }
+
+    // Манифест: номер поколения, строка "сегмент,поколение файла" на сегмент и контрольная сумма
+    private static void writeManifest(File target, Manifest manifest) throws IOException {
+        try (FileOutputStream stream = new FileOutputStream(target)) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+            CRC32C checksum = new CRC32C();
+            writeLine(writer, checksum, GENERATION + "," + manifest.generation);
+            for (int segment : manifest.sortedSegments()) {
+                writeLine(writer, checksum, segment + "," + manifest.segments.get(segment));
+            }
+            writer.write(CsvSnapshot.CHECKSUM + "," + Long.toHexString(checksum.getValue()) + System.lineSeparator());
+            writer.flush();
+            stream.getFD().sync();
+        }
+    }
+
+    private static Manifest readManifest(File source) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(source.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new ManagerLoadException(e);
+        }
+        try {
+            CRC32C checksum = new CRC32C();
+            String footer = lines.getLast();
+            if (!footer.startsWith(CsvSnapshot.CHECKSUM + ",")) {
+                throw new ManagerLoadException("Манифест снимка записан не до конца: " + source);
+            }
+            lines.subList(0, lines.size() - 1).forEach(line -> updateLine(checksum, line));
+            if (!footer.substring(CsvSnapshot.CHECKSUM.length() + 1).equals(Long.toHexString(checksum.getValue()))) {
+                throw new ManagerLoadException("Не совпадает контрольная сумма манифеста " + source);
+            }
+            String[] header = lines.getFirst().split(",");
+            if (!header[0].equals(GENERATION)) {
+                throw new ManagerLoadException("Нет номера поколения в манифесте " + source);
+            }
+            Manifest manifest = new Manifest(Long.parseLong(header[1]));
+            for (String line : lines.subList(1, lines.size() - 1)) {
+                String[] parts = line.split(",");
+                manifest.segments.put(Integer.parseInt(parts[0]), Long.parseLong(parts[1]));
+            }
+            return manifest;
+        } catch (ManagerLoadException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new ManagerLoadException("Повреждён манифест снимка " + source, e);
+        }
+    }
+
+    private static void writeLine(Writer writer, CRC32C checksum, String line) throws IOException {
+        writer.write(line);
+        writer.write(System.lineSeparator());
+        updateLine(checksum, line);
+    }
+
+    private static void updateLine(CRC32C checksum, String line) {
+        checksum.update(line.getBytes(StandardCharsets.UTF_8));
+        checksum.update('\n');
+    }
+
+    private static final class Manifest {
+        private final long generation;
+        // Номер поколения файла каждого сегмента
+        private final IntObjectHashMap<Long> segments = new IntObjectHashMap<>();
+
+        private Manifest(long generation) {
+            this.generation = generation;
+        }
+
+        private int[] sortedSegments() {
+            IntHashSet ordered = new IntHashSet();
+            segments.forEachKey(ordered::add);
+            int[] result = ordered.toIntArray();
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package manager;
+
+import entity.Status;
+import entity.Task;
+import entity.TaskTypes;
+import util.IntHashSet;
+
+// Вторичный индекс идентификаторов задач по типу и статусу.
+// Количество задач с нужным типом и статусом известно за O(1).
+class StatusIndex {
+    private final IntHashSet[][] ids = new IntHashSet[TaskTypes.values().length][Status.values().length];
+
+    StatusIndex() {
+        for (IntHashSet[] byStatus : ids) {
+            for (int i = 0; i < byStatus.length; i++) {
+                byStatus[i] = new IntHashSet();
+            }
+        }
+    }
+
+    // Добавление задачи или перенос её в индекс текущего статуса
+    void update(Task task) {
+        IntHashSet[] byStatus = ids[task.getType().ordinal()];
+        for (IntHashSet statusIds : byStatus) {
+            statusIds.remove(task.getId());
+        }
+        byStatus[task.getStatus().ordinal()].add(task.getId());
+    }
+
+    void remove(TaskTypes type, int id) {
+        for (IntHashSet statusIds : ids[type.ordinal()]) {
+            statusIds.remove(id);
+        }
+    }
+
+    void clear(TaskTypes type) {
+        for (IntHashSet statusIds : ids[type.ordinal()]) {
+            statusIds.clear();
+        }
+    }
+
+    IntHashSet get(TaskTypes type, Status status) {
+        return ids[type.ordinal()][status.ordinal()];
+    }
+
+    int count(TaskTypes type, Status status) {
+        return get(type, status).size();
+    }
+}
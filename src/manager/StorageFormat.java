@@ -0,0 +1,15 @@
+package manager;
+
+// Формат файла со снимком задач
+public enum StorageFormat {
+    // Текстовый формат: строка на задачу, подходит для импорта и экспорта
+    CSV,
+    // Текстовый формат, сжатый в GZIP: для длинных описаний файл в несколько раз меньше,
+    // но читается последовательно, а не кусками параллельно
+    CSV_GZIP,
+    // Двоичный формат: быстрее загружается и занимает меньше места
+    BINARY,
+    // Каталог с текстовыми сегментами по диапазонам идентификаторов: сохранение перезаписывает
+    // только сегменты с изменёнными задачами
+    SEGMENTED
+}
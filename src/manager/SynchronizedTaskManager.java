@@ -0,0 +1,207 @@
+package manager;
+
+import entity.BatchOperation;
+import entity.Epic;
+import entity.Status;
+import entity.Subtask;
+import entity.Task;
+import entity.TaskQuery;
+import entity.TaskTypes;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+// Обёртка, которая делает потокобезопасным любой менеджер: все вызовы выполняются по одному
+// под монитором обёртки. Подходит для менеджеров с файлами, например FileBackedTaskManager.
+// Возвращаются те же объекты задач, что хранит менеджер, поэтому эпик, прочитанный в одном потоке,
+// может измениться при изменении его подзадач в другом. ConcurrentTaskManager такого не допускает,
+// он публикует новые копии эпиков и не блокирует чтение.
+class SynchronizedTaskManager implements TaskManager {
+    private final TaskManager delegate;
+
+    SynchronizedTaskManager(TaskManager delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public synchronized List<Task> getTasks() {
+        return delegate.getTasks();
+    }
+
+    @Override
+    public synchronized List<Task> getByStatus(Status status) {
+        return delegate.getByStatus(status);
+    }
+
+    @Override
+    public synchronized List<Task> getByStatus(TaskTypes type, Status status) {
+        return delegate.getByStatus(type, status);
+    }
+
+    @Override
+    public synchronized int countByStatus(Status status) {
+        return delegate.countByStatus(status);
+    }
+
+    @Override
+    public synchronized int countByStatus(TaskTypes type, Status status) {
+        return delegate.countByStatus(type, status);
+    }
+
+    @Override
+    public synchronized List<Task> search(String query, int limit) {
+        return delegate.search(query, limit);
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtasks() {
+        return delegate.getSubtasks();
+    }
+
+    @Override
+    public synchronized List<Epic> getEpics() {
+        return delegate.getEpics();
+    }
+
+    @Override
+    public synchronized List<Task> getTasks(TaskQuery query) {
+        return delegate.getTasks(query);
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtasks(TaskQuery query) {
+        return delegate.getSubtasks(query);
+    }
+
+    @Override
+    public synchronized List<Epic> getEpics(TaskQuery query) {
+        return delegate.getEpics(query);
+    }
+
+    @Override
+    public synchronized void deleteAllTasks() {
+        delegate.deleteAllTasks();
+    }
+
+    @Override
+    public synchronized void deleteAllSubtasks() {
+        delegate.deleteAllSubtasks();
+    }
+
+    @Override
+    public synchronized void deleteAllEpics() {
+        delegate.deleteAllEpics();
+    }
+
+    @Override
+    public synchronized Task getTask(int id) {
+        return delegate.getTask(id);
+    }
+
+    @Override
+    public synchronized Subtask getSubtask(int id) {
+        return delegate.getSubtask(id);
+    }
+
+    @Override
+    public synchronized Epic getEpic(int id) {
+        return delegate.getEpic(id);
+    }
+
+    @Override
+    public synchronized void createTask(Task task) {
+        delegate.createTask(task);
+    }
+
+    @Override
+    public synchronized void createSubtask(Subtask subtask) {
+        delegate.createSubtask(subtask);
+    }
+
+    @Override
+    public synchronized void createEpic(Epic epic) {
+        delegate.createEpic(epic);
+    }
+
+    @Override
+    public synchronized void updateTask(Task task) {
+        delegate.updateTask(task);
+    }
+
+    @Override
+    public synchronized void updateSubtask(Subtask subtask) {
+        delegate.updateSubtask(subtask);
+    }
+
+    @Override
+    public synchronized void updateEpic(Epic epic) {
+        delegate.updateEpic(epic);
+    }
+
+    @Override
+    public synchronized void deleteTask(int id) {
+        delegate.deleteTask(id);
+    }
+
+    @Override
+    public synchronized void deleteSubtask(int id) {
+        delegate.deleteSubtask(id);
+    }
+
+    @Override
+    public synchronized void deleteEpic(int id) {
+        delegate.deleteEpic(id);
+    }
+
+    @Override
+    public synchronized List<Task> applyBatch(List<BatchOperation> operations) {
+        return delegate.applyBatch(operations);
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return delegate.getHistory();
+    }
+
+    @Override
+    public synchronized List<Task> getPrioritizedTasks() {
+        return delegate.getPrioritizedTasks();
+    }
+
+    @Override
+    public synchronized List<Task> getPrioritizedTasks(LocalDateTime after, int limit) {
+        return delegate.getPrioritizedTasks(after, limit);
+    }
+
+    @Override
+    public synchronized Collection<Task> getPrioritizedTasksView() {
+        // Представление копируется под блокировкой, иначе обход шёл бы без неё
+        return List.copyOf(delegate.getPrioritizedTasksView());
+    }
+
+    @Override
+    public synchronized List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return delegate.getTasksBetween(from, to);
+    }
+
+    @Override
+    public synchronized long getVersion(TaskTypes type) {
+        return delegate.getVersion(type);
+    }
+
+    @Override
+    public synchronized long getVersion(TaskTypes type, int id) {
+        return delegate.getVersion(type, id);
+    }
+
+    @Override
+    public synchronized long getPrioritizedVersion() {
+        return delegate.getPrioritizedVersion();
+    }
+
+    @Override
+    public synchronized long getHistoryVersion() {
+        return delegate.getHistoryVersion();
+    }
+}
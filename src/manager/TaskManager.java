@@ -1,9 +1,15 @@
 package manager;
 
+import entity.BatchOperation;
 import entity.Epic;
+import entity.Status;
 import entity.Subtask;
 import entity.Task;
+import entity.TaskQuery;
+import entity.TaskTypes;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface TaskManager {
@@ -11,12 +17,37 @@ public interface TaskManager {
     // Получение списка всех задач
     List<Task> getTasks();
 
+    // Получение задач всех типов с указанным статусом
+    List<Task> getByStatus(Status status);
+
+    // Получение задач указанного типа с указанным статусом
+    List<Task> getByStatus(TaskTypes type, Status status);
+
+    // Количество задач всех типов с указанным статусом
+    int countByStatus(Status status);
+
+    // Количество задач указанного типа с указанным статусом
+    int countByStatus(TaskTypes type, Status status);
+
+    // Поиск задач всех типов по словам в названии и описании.
+    // Возвращает не больше limit задач, от наиболее подходящей к наименее подходящей.
+    List<Task> search(String query, int limit);
+
     // Получение списка всех подзадач
     List<Subtask> getSubtasks();
 
     // Получение списка всех эпиков
     List<Epic> getEpics();
 
+    // Страница задач по возрастанию идентификатора, подходящих под фильтры запроса.
+    // Задачи отбираются по индексам статусов и расписания, поэтому все задачи не копируются
+    // и стоимость страницы не зависит от числа задач других типов и наибольшего id.
+    List<Task> getTasks(TaskQuery query);
+
+    List<Subtask> getSubtasks(TaskQuery query);
+
+    List<Epic> getEpics(TaskQuery query);
+
     // Удаление всех задач
     void deleteAllTasks();
 
@@ -62,8 +93,39 @@ public interface TaskManager {
     // Удаление эпика по идентификатору
     void deleteEpic(int id);
 
+    // Применение пакета операций создания, обновления и удаления.
+    // Весь пакет проверяется до применения: при ошибке в любой операции не применяется ни одна.
+    // Возвращает созданные, обновлённые или удалённые задачи в порядке операций.
+    List<Task> applyBatch(List<BatchOperation> operations);
+
     // Метод получения истории задач
     List<Task> getHistory();
 
     List<Task> getPrioritizedTasks();
+
+    // Страница задач в порядке приоритета: не больше limit задач со стартом позже after.
+    // Если after равен null, страница начинается с первой задачи.
+    List<Task> getPrioritizedTasks(LocalDateTime after, int limit);
+
+    // Неизменяемое представление задач в порядке приоритета без копирования
+    Collection<Task> getPrioritizedTasksView();
+
+    // Задачи в порядке приоритета, время которых пересекается с окном [from, to).
+    // Задача без продолжительности попадает в окно, если её старт внутри окна.
+    List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to);
+
+    // Версии для условных запросов: растут при каждом изменении данных и не повторяются, в том числе
+    // после перезапуска. Версию нужно получить до чтения данных, тогда данные не старше версии.
+
+    // Версия списка задач указанного типа
+    long getVersion(TaskTypes type);
+
+    // Версия задачи; у эпика меняется и при изменении его подзадач
+    long getVersion(TaskTypes type, int id);
+
+    // Версия списка задач в порядке приоритета
+    long getPrioritizedVersion();
+
+    // Версия истории просмотров
+    long getHistoryVersion();
 }
@@ -0,0 +1,76 @@
+package manager;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Названия и описания недавно прочитанных задач. Размер ограничен суммарной длиной строк,
+// а не числом задач, потому что описания бывают очень разной длины. При переполнении
+// вытесняются задачи, которые дольше всего не читались.
+final class TextCache {
+    private final long maxChars;
+    // Порядок обхода - от давно прочитанных к недавно прочитанным
+    private final LinkedHashMap<Integer, String[]> texts = new LinkedHashMap<>(16, 0.75f, true);
+    private long chars;
+    private long hits;
+    private long misses;
+
+    TextCache(long maxChars) {
+        this.maxChars = maxChars;
+    }
+
+    // Название и описание задачи или null, если их нет в кеше
+    String[] get(int id) {
+        String[] text = texts.get(id);
+        if (text == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return text;
+    }
+
+    // Строки длиннее всего кеша не кешируются
+    void put(int id, String name, String description) {
+        remove(id);
+        long length = lengthOf(name) + lengthOf(description);
+        if (length > maxChars) {
+            return;
+        }
+        texts.put(id, new String[]{name, description});
+        chars += length;
+        Iterator<Map.Entry<Integer, String[]>> eldest = texts.entrySet().iterator();
+        while (chars > maxChars) {
+            String[] evicted = eldest.next().getValue();
+            chars -= lengthOf(evicted[0]) + lengthOf(evicted[1]);
+            eldest.remove();
+        }
+    }
+
+    void remove(int id) {
+        String[] removed = texts.remove(id);
+        if (removed != null) {
+            chars -= lengthOf(removed[0]) + lengthOf(removed[1]);
+        }
+    }
+
+    int size() {
+        return texts.size();
+    }
+
+    long chars() {
+        return chars;
+    }
+
+    long hits() {
+        return hits;
+    }
+
+    long misses() {
+        return misses;
+    }
+
+    private static long lengthOf(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
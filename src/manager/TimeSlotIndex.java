@@ -0,0 +1,134 @@
+package manager;
+
+import entity.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+// Индекс занятости временных слотов: время делится на слоты заданной длины,
+// каждая задача занимает слоты от слота старта до слота окончания включительно.
+// Слоты хранятся в разреженном битовом массиве, разбитом на страницы,
+// поэтому проверка пересечения сводится к побитовому AND по словам страниц.
+// Для задач вне сетки слотов проверка строже интервальной: задачи,
+// попадающие в один слот, считаются пересекающимися.
+public class TimeSlotIndex implements OverlapIndex {
+    private static final int WORD_BITS = 64;
+    private static final int PAGE_WORDS = 64;
+    private static final int PAGE_BITS = WORD_BITS * PAGE_WORDS;
+
+    private final long slotSeconds;
+    private final Map<Long, long[]> pages = new HashMap<>();
+
+    public TimeSlotIndex(Duration granularity) {
+        if (granularity.getSeconds() <= 0) {
+            throw new IllegalArgumentException("Длительность слота должна быть не меньше секунды");
+        }
+        this.slotSeconds = granularity.getSeconds();
+    }
+
+    @Override
+    public boolean overlaps(Task task) {
+        if (task.getStartTime() == null) {
+            return false;
+        }
+        long first = firstSlot(task);
+        long last = lastSlot(task);
+        for (long slot = first; slot <= last; ) {
+            long pageNumber = Math.floorDiv(slot, PAGE_BITS);
+            long pageEnd = Math.min(last, (pageNumber + 1) * PAGE_BITS - 1);
+            long[] page = pages.get(pageNumber);
+            if (page != null && intersects(page, slot - pageNumber * PAGE_BITS, pageEnd - pageNumber * PAGE_BITS)) {
+                return true;
+            }
+            slot = pageEnd + 1;
+        }
+        return false;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task.getStartTime() != null) {
+            update(firstSlot(task), lastSlot(task), true);
+        }
+    }
+
+    @Override
+    public void remove(Task task) {
+        if (task.getStartTime() != null) {
+            update(firstSlot(task), lastSlot(task), false);
+        }
+    }
+
+    @Override
+    public void clear() {
+        pages.clear();
+    }
+
+    private long firstSlot(Task task) {
+        return Math.min(slotOf(task.getStartTime()), slotOf(task.getEndTime()));
+    }
+
+    private long lastSlot(Task task) {
+        return Math.max(slotOf(task.getStartTime()), slotOf(task.getEndTime()));
+    }
+
+    private long slotOf(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), slotSeconds);
+    }
+
+    private void update(long first, long last, boolean occupy) {
+        for (long slot = first; slot <= last; ) {
+            long pageNumber = Math.floorDiv(slot, PAGE_BITS);
+            long pageEnd = Math.min(last, (pageNumber + 1) * PAGE_BITS - 1);
+            int from = (int) (slot - pageNumber * PAGE_BITS);
+            int to = (int) (pageEnd - pageNumber * PAGE_BITS);
+            if (occupy) {
+                long[] page = pages.computeIfAbsent(pageNumber, n -> new long[PAGE_WORDS]);
+                for (int word = from / WORD_BITS; word <= to / WORD_BITS; word++) {
+                    page[word] |= mask(word, from, to);
+                }
+            } else {
+                long[] page = pages.get(pageNumber);
+                if (page != null) {
+                    for (int word = from / WORD_BITS; word <= to / WORD_BITS; word++) {
+                        page[word] &= ~mask(word, from, to);
+                    }
+                    if (isEmpty(page)) {
+                        pages.remove(pageNumber);
+                    }
+                }
+            }
+            slot = pageEnd + 1;
+        }
+    }
+
+    private static boolean intersects(long[] page, long from, long to) {
+        for (int word = (int) (from / WORD_BITS); word <= to / WORD_BITS; word++) {
+            if ((page[word] & mask(word, (int) from, (int) to)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Маска битов слова word, попадающих в диапазон [from, to] внутри страницы
+    private static long mask(int word, int from, int to) {
+        int wordStart = word * WORD_BITS;
+        int low = Math.max(from, wordStart) - wordStart;
+        int high = Math.min(to, wordStart + WORD_BITS - 1) - wordStart;
+        long upper = high == WORD_BITS - 1 ? -1L : (1L << (high + 1)) - 1;
+        return upper & (-1L << low);
+    }
+
+    private static boolean isEmpty(long[] page) {
+        for (long word : page) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,81 @@
+package manager;
+
+import entity.TaskTypes;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Версии списков и задач для условных запросов. Все версии выдаёт один счётчик, поэтому они
+// только растут и одно значение не достаётся двум изменениям. Счётчик начинается с текущего
+// времени в микросекундах: версии после перезапуска больше выданных до него, и клиент со старой
+// версией не получит ответ "не изменилось" на данные, которые поменялись.
+// Версия хранится только для задач, изменённых после запуска, у остальных она начальная.
+// Версия повышается после изменения данных, поэтому её нужно читать до чтения самих данных.
+final class VersionCounter {
+    private final long initial = System.currentTimeMillis() * 1000;
+    private final AtomicLong clock = new AtomicLong(initial);
+    private final AtomicLongArray collections = new AtomicLongArray(TaskTypes.values().length);
+    private final AtomicLong prioritized = new AtomicLong(initial);
+    private final AtomicLong history = new AtomicLong(initial);
+    private final Map<TaskTypes, ConcurrentHashMap<Integer, Long>> entities = new EnumMap<>(TaskTypes.class);
+
+    VersionCounter() {
+        for (TaskTypes type : TaskTypes.values()) {
+            collections.set(type.ordinal(), initial);
+            entities.put(type, new ConcurrentHashMap<>());
+        }
+    }
+
+    // Задача создана или изменена, в том числе пересчитаны статус и время эпика
+    void stored(TaskTypes type, int id) {
+        long version = clock.incrementAndGet();
+        entities.get(type).merge(id, version, Math::max);
+        advance(type, version);
+    }
+
+    void removed(TaskTypes type, int id) {
+        long version = clock.incrementAndGet();
+        entities.get(type).remove(id);
+        advance(type, version);
+    }
+
+    void cleared(TaskTypes type) {
+        long version = clock.incrementAndGet();
+        entities.get(type).clear();
+        advance(type, version);
+    }
+
+    // Задача добавлена в историю просмотров
+    void viewed() {
+        history.accumulateAndGet(clock.incrementAndGet(), Math::max);
+    }
+
+    long collection(TaskTypes type) {
+        return collections.get(type.ordinal());
+    }
+
+    long entity(TaskTypes type, int id) {
+        return entities.get(type).getOrDefault(id, initial);
+    }
+
+    long prioritized() {
+        return prioritized.get();
+    }
+
+    long history() {
+        return history.get();
+    }
+
+    private void advance(TaskTypes type, long version) {
+        collections.accumulateAndGet(type.ordinal(), version, Math::max);
+        // В расписании только задачи и подзадачи
+        if (type != TaskTypes.EPIC) {
+            prioritized.accumulateAndGet(version, Math::max);
+        }
+        // История отдаёт задачи целиком, поэтому меняется и при изменении задачи из неё
+        history.accumulateAndGet(version, Math::max);
+    }
+}
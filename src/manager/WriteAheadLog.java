@@ -0,0 +1,307 @@
+package manager;
+
+import exception.ManagerLoadException;
+import exception.ManagerSaveException;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Журнал изменений: по одной строке на изменение, строки только дописываются в конец файла.
+// Файл остаётся открытым между записями. Когда записи сбрасываются на диск, определяет DurabilityPolicy:
+// сразу, группой из фонового потока или фоновым потоком из ограниченной очереди.
+// Файл открывается, пишется и закрывается только под монитором журнала.
+class WriteAheadLog implements Closeable {
+    private static final int SEPARATOR_BYTES = System.lineSeparator().getBytes(StandardCharsets.UTF_8).length;
+    private static final long ASYNC_POLL_MILLIS = 100;
+
+    private final File file;
+    private final DurabilityPolicy durability;
+    private FileOutputStream stream;
+    private Writer writer;
+    // Размер журнала в байтах и число записей, чтобы вовремя запустить сжатие
+    private long size;
+    private int records;
+
+    // Фоновый поток групповой фиксации или асинхронной записи
+    private Thread background;
+    private volatile boolean running = true;
+    // Ошибка фонового потока, о ней сообщает следующая запись
+    private volatile IOException failure;
+    // Групповая фиксация: записи в файле, ещё не сброшенные на диск
+    private int pending;
+    private long firstPendingNanos;
+    // Асинхронная запись: записи в очереди и уже записанные фоновым потоком
+    private final BlockingQueue<String> queue;
+    private long enqueued;
+    private long written;
+
+    WriteAheadLog(File file) {
+        this(file, DurabilityPolicy.sync());
+    }
+
+    WriteAheadLog(File file, DurabilityPolicy durability) {
+        this.file = file;
+        this.durability = durability;
+        queue = durability.getMode() == DurabilityPolicy.Mode.ASYNC
+                ? new ArrayBlockingQueue<>(durability.getQueueCapacity())
+                : null;
+    }
+
+    void append(String record) {
+        if (failure != null) {
+            throw new ManagerSaveException("Не удалось записать журнал", failure);
+        }
+        try {
+            switch (durability.getMode()) {
+                case SYNC -> {
+                    synchronized (this) {
+                        write(record);
+                        sync();
+                    }
+                }
+                case GROUP_COMMIT -> {
+                    startBackground(this::groupCommitLoop);
+                    synchronized (this) {
+                        write(record);
+                        // Запись уходит в файл сразу, при падении процесса теряется только то, что не дошло до диска
+                        writer.flush();
+                        if (pending++ == 0) {
+                            firstPendingNanos = System.nanoTime();
+                        }
+                        notifyAll();
+                    }
+                }
+                case ASYNC -> {
+                    startBackground(this::asyncWriteLoop);
+                    enqueued++;
+                    queue.put(record);
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException(e);
+        }
+        size += record.getBytes(StandardCharsets.UTF_8).length + SEPARATOR_BYTES;
+        records++;
+    }
+
+    List<String> read() {
+        if (!file.exists()) {
+            return List.of();
+        }
+        try {
+            List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            size = file.length();
+            records = lines.size();
+            return lines;
+        } catch (IOException e) {
+            throw new ManagerLoadException(e);
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    int records() {
+        return records;
+    }
+
+    // Переименование журнала в target, следующая запись начнёт новый файл журнала
+    void rotateTo(File target) {
+        flushPending();
+        synchronized (this) {
+            closeStream();
+            if (file.exists()) {
+                try {
+                    Files.move(file.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    throw new ManagerSaveException(e);
+                }
+            }
+        }
+        size = 0;
+        records = 0;
+    }
+
+    // Очистка журнала после записи полного снимка
+    void reset() {
+        flushPending();
+        synchronized (this) {
+            closeStream();
+            try {
+                Files.write(file.toPath(), new byte[0]);
+            } catch (IOException e) {
+                throw new ManagerSaveException(e);
+            }
+        }
+        size = 0;
+        records = 0;
+    }
+
+    // Ожидание, пока все принятые записи окажутся на диске
+    void flushPending() {
+        try {
+            synchronized (this) {
+                if (durability.getMode() == DurabilityPolicy.Mode.ASYNC) {
+                    while (written < enqueued && failure == null) {
+                        wait();
+                    }
+                } else if (writer != null) {
+                    sync();
+                    pending = 0;
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException(e);
+        }
+        if (failure != null) {
+            throw new ManagerSaveException("Не удалось записать журнал", failure);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (background != null) {
+            synchronized (this) {
+                notifyAll();
+            }
+            try {
+                background.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            background = null;
+        }
+        synchronized (this) {
+            closeStream();
+        }
+    }
+
+    private void startBackground(Runnable loop) {
+        if (background == null) {
+            background = new Thread(loop, "wal-" + durability.getMode().name().toLowerCase());
+            background.setDaemon(true);
+            background.start();
+        }
+    }
+
+    // Сброс на диск накопившихся записей раз в интервал или после заданного числа записей.
+    // Сам fsync выполняется без монитора, чтобы не задерживать новые записи.
+    private void groupCommitLoop() {
+        try {
+            while (true) {
+                FileChannel channel;
+                synchronized (this) {
+                    while (running && pending == 0) {
+                        wait();
+                    }
+                    if (pending == 0) {
+                        return;
+                    }
+                    long waitNanos = firstPendingNanos + durability.getInterval().toNanos() - System.nanoTime();
+                    while (running && pending < durability.getMaxOperations() && waitNanos > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+                        waitNanos = firstPendingNanos + durability.getInterval().toNanos() - System.nanoTime();
+                    }
+                    if (pending == 0) {
+                        continue;
+                    }
+                    writer.flush();
+                    pending = 0;
+                    channel = stream.getChannel();
+                }
+                try {
+                    channel.force(false);
+                } catch (ClosedChannelException e) {
+                    // Журнал закрыт или переименован, при этом записи уже сброшены на диск
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Запись из очереди: всё, что накопилось в очереди, пишется и сбрасывается на диск одним fsync
+    private void asyncWriteLoop() {
+        List<String> drained = new ArrayList<>();
+        try {
+            while (running || !queue.isEmpty()) {
+                String record = queue.poll(ASYNC_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (record == null) {
+                    continue;
+                }
+                drained.add(record);
+                queue.drainTo(drained);
+                synchronized (this) {
+                    for (String line : drained) {
+                        write(line);
+                    }
+                    sync();
+                    written += drained.size();
+                    notifyAll();
+                }
+                drained.clear();
+            }
+        } catch (IOException e) {
+            failure = e;
+            synchronized (this) {
+                notifyAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(String record) throws IOException {
+        if (writer == null) {
+            stream = new FileOutputStream(file, true);
+            writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        }
+        writer.write(record);
+        writer.write(System.lineSeparator());
+    }
+
+    private void sync() throws IOException {
+        writer.flush();
+        stream.getChannel().force(false);
+    }
+
+    private void closeStream() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            sync();
+            writer.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException(e);
+        } finally {
+            writer = null;
+            stream = null;
+        }
+    }
+}
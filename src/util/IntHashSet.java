@@ -0,0 +1,188 @@
+package util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+// Компактное множество int без упаковки элементов.
+// Элементы лежат в плотном массиве, таблица с открытой адресацией хранит их позиции.
+// При удалении на место элемента переносится последний, поэтому порядок обхода
+// совпадает с порядком добавления, пока из множества ничего не удаляли.
+public class IntHashSet extends AbstractSet<Integer> {
+    private static final int MIN_CAPACITY = 4;
+
+    private int[] index;
+    private int[] elements;
+    private int size;
+
+    public IntHashSet() {
+        allocate(MIN_CAPACITY);
+    }
+
+    public IntHashSet(IntHashSet other) {
+        index = other.index.clone();
+        elements = other.elements.clone();
+        size = other.size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int element) {
+        return slotOf(element) >= 0;
+    }
+
+    public boolean add(int element) {
+        int mask = index.length - 1;
+        int slot = hash(element) & mask;
+        while (index[slot] != 0) {
+            if (elements[index[slot] - 1] == element) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size == elements.length) {
+            grow();
+            return add(element);
+        }
+        elements[size] = element;
+        index[slot] = ++size;
+        return true;
+    }
+
+    public boolean remove(int element) {
+        int slot = slotOf(element);
+        if (slot < 0) {
+            return false;
+        }
+        int position = index[slot] - 1;
+        deleteSlot(slot);
+        size--;
+        if (position != size) {
+            // Переносим последний элемент на освободившуюся позицию
+            int last = elements[size];
+            elements[position] = last;
+            index[slotOf(last)] = position + 1;
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(index, 0);
+        size = 0;
+    }
+
+    public void forEachInt(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(elements[i]);
+        }
+    }
+
+    public int[] toIntArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && contains((int) (Integer) o);
+    }
+
+    @Override
+    public boolean add(Integer element) {
+        return add((int) element);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Integer && remove((int) (Integer) o);
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<>() {
+            private int position;
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return position < size;
+            }
+
+            @Override
+            public Integer next() {
+                if (position >= size) {
+                    throw new NoSuchElementException();
+                }
+                last = position;
+                return elements[position++];
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                // На место удалённого встаёт последний элемент, его нужно обойти повторно
+                IntHashSet.this.remove(elements[last]);
+                position = last;
+                last = -1;
+            }
+        };
+    }
+
+    private int slotOf(int element) {
+        int mask = index.length - 1;
+        int slot = hash(element) & mask;
+        while (index[slot] != 0) {
+            if (elements[index[slot] - 1] == element) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void deleteSlot(int slot) {
+        int mask = index.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (index[next] != 0) {
+            int ideal = hash(elements[index[next] - 1]) & mask;
+            if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+                index[hole] = index[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        index[hole] = 0;
+    }
+
+    private void allocate(int capacity) {
+        elements = new int[capacity];
+        index = new int[capacity * 2];
+    }
+
+    private void grow() {
+        int[] oldElements = elements;
+        allocate(elements.length * 2);
+        System.arraycopy(oldElements, 0, elements, 0, size);
+        int mask = index.length - 1;
+        for (int position = 0; position < size; position++) {
+            int slot = hash(elements[position]) & mask;
+            while (index[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = position + 1;
+        }
+    }
+
+    private static int hash(int element) {
+        int h = element * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
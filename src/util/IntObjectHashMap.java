@@ -0,0 +1,221 @@
+package util;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+// Отображение int -> объект без упаковки ключей и без узлов на каждую запись.
+// Записи лежат в плотных массивах ключей и значений в порядке добавления,
+// а таблица с открытой адресацией хранит номера позиций в этих массивах.
+// Удалённая запись оставляет пустую позицию, позиции уплотняются при росте.
+// Значения null не поддерживаются.
+public class IntObjectHashMap<V> {
+    private static final int MIN_CAPACITY = 8;
+
+    private int[] index;
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int end;
+
+    public IntObjectHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntObjectHashMap(int expectedSize) {
+        allocate(Math.max(MIN_CAPACITY, expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return position(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int position = position(key);
+        return position >= 0 ? (V) values[position] : null;
+    }
+
+    // Добавление или замена значения. Возвращает предыдущее значение.
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        int mask = index.length - 1;
+        int slot = hash(key) & mask;
+        while (index[slot] != 0) {
+            int position = index[slot] - 1;
+            if (keys[position] == key) {
+                V old = (V) values[position];
+                values[position] = value;
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (end == keys.length) {
+            // Позиции закончились: уплотняем, если удалённых много, иначе растём
+            resize(size < keys.length / 2 ? keys.length : keys.length * 2);
+            return put(key, value);
+        }
+        keys[end] = key;
+        values[end] = value;
+        index[slot] = end + 1;
+        end++;
+        size++;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int mask = index.length - 1;
+        int slot = hash(key) & mask;
+        while (index[slot] != 0) {
+            int position = index[slot] - 1;
+            if (keys[position] == key) {
+                V old = (V) values[position];
+                values[position] = null;
+                size--;
+                deleteSlot(slot);
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public void clear() {
+        Arrays.fill(index, 0);
+        Arrays.fill(values, 0, end, null);
+        size = 0;
+        end = 0;
+    }
+
+    public void forEachKey(IntConsumer action) {
+        for (int position = 0; position < end; position++) {
+            if (values[position] != null) {
+                action.accept(keys[position]);
+            }
+        }
+    }
+
+    // Представление значений в порядке добавления без копирования
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator(0);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int position(int key) {
+        int mask = index.length - 1;
+        int slot = hash(key) & mask;
+        while (index[slot] != 0) {
+            int position = index[slot] - 1;
+            if (keys[position] == key) {
+                return position;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Удаление из таблицы с обратным сдвигом, без меток удаления
+    private void deleteSlot(int slot) {
+        int mask = index.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (index[next] != 0) {
+            int ideal = hash(keys[index[next] - 1]) & mask;
+            if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+                index[hole] = index[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        index[hole] = 0;
+    }
+
+    private void allocate(int capacity) {
+        int positions = Integer.highestOneBit(capacity - 1) << 1;
+        keys = new int[positions];
+        values = new Object[positions];
+        index = new int[positions * 2];
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        int oldEnd = end;
+        allocate(capacity);
+        end = 0;
+        int mask = index.length - 1;
+        for (int position = 0; position < oldEnd; position++) {
+            if (oldValues[position] != null) {
+                keys[end] = oldKeys[position];
+                values[end] = oldValues[position];
+                int slot = hash(keys[end]) & mask;
+                while (index[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                index[slot] = end + 1;
+                end++;
+            }
+        }
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private class ValueIterator implements Iterator<V> {
+        private int position;
+
+        ValueIterator(int position) {
+            this.position = position;
+            skipRemoved();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < end;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (position >= end) {
+                throw new NoSuchElementException();
+            }
+            V value = (V) values[position++];
+            skipRemoved();
+            return value;
+        }
+
+        private void skipRemoved() {
+            while (position < end && values[position] == null) {
+                position++;
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package http;
+
+import entity.Task;
+import manager.ConcurrentTaskManager;
+import manager.TaskManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final CountDownLatch release = new CountDownLatch(1);
+    // История и расписание отвечают, только когда тест их отпустит
+    private final TaskManager manager = new ConcurrentTaskManager() {
+        @Override
+        public List<Task> getHistory() {
+            awaitRelease();
+            return super.getHistory();
+        }
+
+        @Override
+        public Collection<Task> getPrioritizedTasksView() {
+            awaitRelease();
+            return super.getPrioritizedTasksView();
+        }
+    };
+
+    private void awaitRelease() {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @AfterEach
+    public void shutDown() {
+        release.countDown();
+        HttpTaskServer.stop();
+    }
+
+    private CompletableFuture<HttpResponse<String>> getAsync(String path) {
+        return client.sendAsync(HttpRequest.newBuilder(URI.create("http://localhost:8080" + path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:8080" + path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    // Ответ уходит клиенту до того, как фильтр вернёт разрешения, поэтому число запросов ждётся
+    private static void awaitInFlight(AdmissionControl admissionControl, int expected) throws InterruptedException {
+        for (int i = 0; i < 500 && admissionControl.getInFlight() != expected; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, admissionControl.getInFlight());
+    }
+
+    @Test
+    public void requestsOverLimitsAreRejectedWithRetryAfter() throws Exception {
+        AdmissionControl admissionControl = new AdmissionControl(2, 3).withEndpointLimit("/history", 1);
+        new HttpTaskServer(manager, null, admissionControl).start();
+
+        CompletableFuture<HttpResponse<String>> history = getAsync("/history");
+        awaitInFlight(admissionControl, 1);
+        HttpResponse<String> limited = get("/history");
+        assertEquals(429, limited.statusCode());
+        assertEquals("3", limited.headers().firstValue("Retry-After").orElseThrow());
+
+        CompletableFuture<HttpResponse<String>> prioritized = getAsync("/prioritized");
+        awaitInFlight(admissionControl, 2);
+        HttpResponse<String> overloaded = get("/tasks");
+        assertEquals(503, overloaded.statusCode());
+        assertEquals("3", overloaded.headers().firstValue("Retry-After").orElseThrow());
+
+        // Счётчики читаются и при перегрузке
+        HttpResponse<String> counters = get("/admission");
+        assertEquals(200, counters.statusCode());
+        assertTrue(counters.body().contains("\"rejectedOverloaded\":1"));
+
+        release.countDown();
+        assertEquals(200, history.get(10, TimeUnit.SECONDS).statusCode());
+        assertEquals(200, prioritized.get(10, TimeUnit.SECONDS).statusCode());
+        awaitInFlight(admissionControl, 0);
+        assertEquals(200, get("/tasks").statusCode());
+        assertEquals(3, admissionControl.getAdmitted());
+        assertEquals(1, admissionControl.getRejectedOverloaded());
+        assertEquals(1, admissionControl.getRejectedByEndpoint("/history"));
+        assertEquals(0, admissionControl.getRejectedByEndpoint("/tasks"));
+    }
+
+    @Test
+    public void requestsOverExecutorQueueAreRejected() throws Exception {
+        AdmissionControl admissionControl = new AdmissionControl(16, 2);
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) HttpTaskServer.platformThreads(1, 1);
+        new HttpTaskServer(manager, executor, admissionControl).start();
+
+        // Единственный поток занят, второй запрос ждёт в очереди
+        CompletableFuture<HttpResponse<String>> history = getAsync("/history");
+        awaitInFlight(admissionControl, 1);
+        CompletableFuture<HttpResponse<String>> prioritized = getAsync("/prioritized");
+        for (int i = 0; i < 500 && executor.getQueue().isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, executor.getQueue().size());
+
+        // Третьему нет места в очереди: ответ приходит сразу, хотя поток ещё занят
+        HttpResponse<String> overloaded = get("/tasks");
+        assertEquals(503, overloaded.statusCode());
+        assertEquals("2", overloaded.headers().firstValue("Retry-After").orElseThrow());
+        assertFalse(history.isDone());
+
+        release.countDown();
+        assertEquals(200, history.get(10, TimeUnit.SECONDS).statusCode());
+        assertEquals(200, prioritized.get(10, TimeUnit.SECONDS).statusCode());
+        assertEquals(1, admissionControl.getRejectedOverloaded());
+        assertEquals(2, admissionControl.getAdmitted());
+    }
+
+    @Test
+    public void invalidLimitsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionControl(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> AdmissionControl.defaults().withEndpointLimit("/tasks", 0));
+        assertEquals(16, AdmissionControl.defaults().getEndpointLimit("/batch"));
+    }
+}
@@ -0,0 +1,94 @@
+package http;
+
+import com.google.gson.Gson;
+import entity.Epic;
+import entity.Status;
+import entity.Subtask;
+import entity.Task;
+import manager.InMemoryTaskManager;
+import manager.TaskManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchHandlerTest {
+    TaskManager manager = new InMemoryTaskManager();
+    HttpTaskServer taskServer = new HttpTaskServer(manager);
+    Gson gson = HttpTaskServer.getGson();
+
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        manager.deleteAllTasks();
+        manager.deleteAllSubtasks();
+        manager.deleteAllEpics();
+        taskServer.start();
+    }
+
+    @AfterEach
+    public void shutDown() {
+        taskServer.stop();
+    }
+
+    private HttpResponse<String> postBatch(String body) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/batch");
+        HttpRequest request = HttpRequest.newBuilder().uri(url).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    public void testPostBatch() throws IOException, InterruptedException {
+        manager.createTask(new Task("Old", "Task to delete"));
+        manager.createEpic(new Epic("Epic", "Epic for subtasks"));
+
+        Task task = new Task("Test 1", "Testing task 1");
+        task.setStartTime(LocalDateTime.of(2024, 1, 1, 10, 0));
+        task.setDuration(30);
+        Subtask subtask = new Subtask("Test 2", "Testing subtask 2", 2);
+        subtask.setDuration(15);
+        String body = "[{\"action\":\"CREATE\",\"type\":\"TASK\",\"task\":" + gson.toJson(task) + "},"
+                + "{\"action\":\"CREATE\",\"type\":\"SUBTASK\",\"task\":" + gson.toJson(subtask) + "},"
+                + "{\"action\":\"DELETE\",\"type\":\"TASK\",\"id\":1}]";
+
+        HttpResponse<String> response = postBatch(body);
+
+        assertEquals(200, response.statusCode());
+        Task deleted = new Task("Old", "Task to delete", Status.NEW, 1);
+        assertEquals(gson.toJson(List.of(manager.getTask(3), manager.getSubtask(4), deleted)), response.body());
+        assertEquals(1, manager.getTasks().size());
+        assertEquals(1, manager.getSubtasks().size());
+        assertEquals(List.of(manager.getTask(3)), manager.getPrioritizedTasks());
+    }
+
+    @Test
+    public void testPostBatchRejected() throws IOException, InterruptedException {
+        Task task = new Task("Test 1", "Testing task 1");
+        task.setStartTime(LocalDateTime.of(2024, 1, 1, 10, 0));
+        task.setDuration(30);
+        String create = "{\"action\":\"CREATE\",\"type\":\"TASK\",\"task\":" + gson.toJson(task) + "}";
+
+        assertEquals(406, postBatch("[" + create + "," + create + "]").statusCode());
+        assertEquals(404, postBatch("[" + create + ",{\"action\":\"DELETE\",\"type\":\"EPIC\",\"id\":7}]").statusCode());
+        assertEquals(400, postBatch("[{\"action\":\"MOVE\",\"type\":\"TASK\",\"id\":1}]").statusCode());
+        assertEquals(400, postBatch("{}").statusCode());
+        // Пропущенные и неверные поля отклоняются проверкой, а не случайным исключением
+        assertEquals(400, postBatch("[" + create + ",{\"type\":\"TASK\",\"id\":1}]").statusCode());
+        assertEquals(400, postBatch("[{\"action\":\"DELETE\",\"type\":null,\"id\":1}]").statusCode());
+        assertEquals(400, postBatch("[{\"action\":\"DELETE\",\"type\":\"TASK\",\"id\":[1]}]").statusCode());
+        assertEquals(400, postBatch("[{\"action\":\"CREATE\",\"type\":\"TASK\"}]").statusCode());
+        assertEquals(400, postBatch("[" + create + ",1]").statusCode());
+        assertEquals(400, postBatch("").statusCode());
+        assertEquals(List.of(), manager.getTasks());
+    }
+}
@@ -194,4 +194,27 @@ class EpicHandlerTest {
         assertEquals(404, response.statusCode());
         assertThrows(NotFoundException.class, () -> manager.getEpic(1));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCachedEpicFollowsSubtasks() throws IOException, InterruptedException {
+        manager.createEpic(new Epic("Epic", "Testing epic"));
+        int epicId = manager.getEpics().getFirst().getId();
+        manager.createSubtask(new Subtask("Subtask", "Testing subtask", epicId));
+        int subtaskId = manager.getSubtasks().getFirst().getId();
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/epics/" + epicId)).GET().build();
+        String first = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+        assertEquals(first, client.send(request, HttpResponse.BodyHandlers.ofString()).body());
+        assertEquals(1, taskServer.getResponseCache().getHits());
+
+        // Эпик пересчитывается по подзадаче, поэтому закешированный ответ больше не подходит
+        manager.updateSubtask(new Subtask("Subtask", "Testing subtask", Status.DONE, subtaskId, epicId));
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertEquals(Status.DONE, gson.fromJson(response.body(), Epic.class).getStatus());
+        assertEquals(gson.toJson(manager.getEpic(epicId)), response.body());
+        assertEquals(1, taskServer.getResponseCache().getHits());
+    }
+}
@@ -72,4 +72,24 @@ class HistoryHandlerTest {
         assertEquals(200, response.statusCode());
         assertEquals(taskJson, response.body());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testHistoryNotModified() throws IOException, InterruptedException {
+        manager.createTask(new Task("Test 1", "Testing task 1"));
+        int id = manager.getTasks().getFirst().getId();
+        manager.getTask(id);
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/history");
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder().uri(url).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        String etag = response.headers().firstValue("ETag").orElseThrow();
+
+        HttpRequest conditional = HttpRequest.newBuilder().uri(url).header("If-None-Match", etag).GET().build();
+        assertEquals(304, client.send(conditional, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        // Новый просмотр меняет историю
+        manager.getTask(id);
+        assertEquals(200, client.send(conditional, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+}
@@ -0,0 +1,78 @@
+package http;
+
+import entity.Task;
+import manager.ConcurrentTaskManager;
+import manager.InMemoryTaskManager;
+import manager.TaskManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpTaskServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @AfterEach
+    public void shutDown() {
+        HttpTaskServer.stop();
+    }
+
+    @Test
+    public void concurrentRequestsGetDistinctIds() throws IOException {
+        TaskManager manager = new InMemoryTaskManager();
+        new HttpTaskServer(manager).start();
+
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String json = HttpTaskServer.getGson().toJson(new Task("Task " + i, "description"));
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks"))
+                    .POST(HttpRequest.BodyPublishers.ofString(json)).build();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        responses.forEach(response -> assertEquals(201, response.join().statusCode()));
+
+        List<Task> tasks = manager.getTasks();
+        assertEquals(50, tasks.size());
+        assertEquals(50, tasks.stream().map(Task::getId).distinct().count());
+    }
+
+    @Test
+    public void slowRequestDoesNotBlockOthers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        TaskManager manager = new ConcurrentTaskManager() {
+            @Override
+            public List<Task> getHistory() {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getHistory();
+            }
+        };
+        new HttpTaskServer(manager, HttpTaskServer.platformThreads(2)).start();
+
+        CompletableFuture<HttpResponse<String>> slow = client.sendAsync(
+                HttpRequest.newBuilder(URI.create("http://localhost:8080/history")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> fast = client.send(
+                HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, fast.statusCode());
+        assertFalse(slow.isDone());
+
+        release.countDown();
+        assertEquals(200, slow.get(10, TimeUnit.SECONDS).statusCode());
+    }
+}
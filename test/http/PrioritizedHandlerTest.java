@@ -69,4 +69,66 @@ class PrioritizedHandlerTest {
         assertEquals(taskJson, response.body());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testGetPrioritizedPage() throws IOException, InterruptedException {
+        // создаём три задачи подряд
+        LocalDateTime start = LocalDateTime.now();
+        for (int i = 0; i < 3; i++) {
+            Task task = new Task("Test " + i, "Testing task " + i);
+            task.setDuration(5);
+            task.setStartTime(start.plusMinutes(10L * i));
+            manager.createTask(task);
+        }
+        List<Task> tasksFromManager = manager.getPrioritizedTasks();
+
+        // запрашиваем первую страницу
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/prioritized?limit=2");
+        HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(gson.toJson(tasksFromManager.subList(0, 2)), response.body());
+        String cursor = response.headers().firstValue("X-Next-Cursor").orElseThrow();
+
+        // запрашиваем следующую страницу по курсору
+        URI nextUrl = URI.create("http://localhost:8080/prioritized?limit=2&after=" + cursor);
+        HttpRequest nextRequest = HttpRequest.newBuilder().uri(nextUrl).GET().build();
+        HttpResponse<String> nextResponse = client.send(nextRequest, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, nextResponse.statusCode());
+        assertEquals(gson.toJson(tasksFromManager.subList(2, 3)), nextResponse.body());
+        assertTrue(nextResponse.headers().firstValue("X-Next-Cursor").isEmpty());
+    }
+
+    @Test
+    public void testGetPrioritizedBadLimit() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/prioritized?limit=abc");
+        HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    public void testGetPrioritizedBetween() throws IOException, InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        for (int i = 0; i < 3; i++) {
+            Task task = new Task("Test " + i, "Testing task " + i);
+            task.setDuration(5);
+            task.setStartTime(start.plusMinutes(10L * i));
+            manager.createTask(task);
+        }
+        String taskJson = gson.toJson(manager.getPrioritizedTasks().subList(1, 3));
+
+        // окно с 10:12 до 10:30 захватывает вторую и третью задачи
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/prioritized?from=01.01.2024T10:12:00&to=01.01.2024T10:30:00");
+        HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(taskJson, response.body());
+    }
+}
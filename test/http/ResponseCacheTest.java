@@ -0,0 +1,44 @@
+package http;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+    private static ResponseCache.Response body(String text) {
+        return new ResponseCache.Response(text.getBytes(StandardCharsets.UTF_8), null);
+    }
+
+    @Test
+    void responseIsServedOnlyForItsVersion() {
+        ResponseCache cache = new ResponseCache(1024);
+        ResponseCache.Response response = body("[]");
+        cache.put("/tasks", 5, response);
+        assertSame(response, cache.get("/tasks", 5));
+        assertNull(cache.get("/tasks", 6));
+        assertNull(cache.get("/epics", 5));
+
+        // Ответ для новой версии заменяет старый
+        cache.put("/tasks", 6, body("[1]"));
+        assertEquals("[1]", new String(cache.get("/tasks", 6).body(), StandardCharsets.UTF_8));
+        assertNull(cache.get("/tasks", 5));
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.getHits());
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    void sizeStaysWithinLimit() {
+        ResponseCache cache = new ResponseCache(1024);
+        for (int i = 0; i < 20; i++) {
+            cache.put("/tasks/" + i, 1, body("x".repeat(100)));
+        }
+        assertTrue(cache.getBytes() <= 1024);
+        assertTrue(cache.size() > 0 && cache.size() < 20);
+
+        cache.put("/big", 1, body("x".repeat(2000)));
+        assertNull(cache.get("/big", 1));
+    }
+}
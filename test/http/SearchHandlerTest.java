@@ -0,0 +1,71 @@
+package http;
+
+import com.google.gson.Gson;
+import entity.Epic;
+import entity.Subtask;
+import entity.Task;
+import manager.InMemoryTaskManager;
+import manager.TaskManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchHandlerTest {
+    TaskManager manager = new InMemoryTaskManager();
+    HttpTaskServer taskServer = new HttpTaskServer(manager);
+    Gson gson = HttpTaskServer.getGson();
+
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        manager.deleteAllTasks();
+        manager.deleteAllSubtasks();
+        manager.deleteAllEpics();
+        taskServer.start();
+    }
+
+    @AfterEach
+    public void shutDown() {
+        taskServer.stop();
+    }
+
+    @Test
+    public void testSearch() throws IOException, InterruptedException {
+        // создаём задачи разных типов
+        manager.createTask(new Task("Отчёт", "Подготовить квартальный отчёт"));
+        manager.createEpic(new Epic("Переезд", "Переезд в новый офис"));
+        manager.createSubtask(new Subtask("Коробки", "Упаковать отчёт в коробки", 2));
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/search?q="
+                + URLEncoder.encode("отчёт", StandardCharsets.UTF_8) + "&limit=1");
+        HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(gson.toJson(List.of(manager.getTask(1))), response.body());
+        assertEquals(List.of(manager.getTask(1), manager.getSubtask(3)), manager.search("отчёт", 10));
+    }
+
+    @Test
+    public void testSearchBadRequest() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        for (String query : List.of("", "?limit=5", "?q=test&limit=0", "?q=test&limit=abc")) {
+            URI url = URI.create("http://localhost:8080/search" + query);
+            HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, response.statusCode());
+        }
+    }
+}
@@ -3,6 +3,7 @@ package http;
 import com.google.gson.Gson;
 import entity.Status;
 import entity.Task;
+import entity.TaskTypes;
 import exception.NotFoundException;
 import manager.InMemoryTaskManager;
 import manager.TaskManager;
@@ -222,4 +223,85 @@ class TaskHandlerTest {
         assertEquals(200, response.statusCode());
         assertThrows(NotFoundException.class, () -> manager.getTask(1));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetTasksByStatus() throws IOException, InterruptedException {
+        // создаём две задачи и переводим одну в работу
+        manager.createTask(new Task("Test 1", "Testing task 1"));
+        manager.createTask(new Task("Test 2", "Testing task 2"));
+        Task task = manager.getTasks().getLast();
+        manager.updateTask(new Task(task.getName(), task.getDescription(), Status.IN_PROGRESS, task.getId()));
+
+        String taskJson = gson.toJson(manager.getByStatus(TaskTypes.TASK, Status.IN_PROGRESS));
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks?status=in_progress");
+        HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(taskJson, response.body());
+        assertEquals(1, manager.countByStatus(TaskTypes.TASK, Status.IN_PROGRESS));
+
+        URI badUrl = URI.create("http://localhost:8080/tasks?status=unknown");
+        HttpRequest badRequest = HttpRequest.newBuilder().uri(badUrl).GET().build();
+        assertEquals(400, client.send(badRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    public void testGetTasksPage() throws IOException, InterruptedException {
+        // создаём три задачи и запрашиваем их страницами по две
+        for (int i = 1; i <= 3; i++) {
+            manager.createTask(new Task("Test " + i, "Testing task " + i));
+        }
+        List<Task> tasks = manager.getTasks();
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks?limit=2")).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(gson.toJson(tasks.subList(0, 2)), response.body());
+        String cursor = response.headers().firstValue("X-Next-Cursor").orElseThrow();
+        assertEquals(String.valueOf(tasks.get(1).getId()), cursor);
+
+        HttpRequest next = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks?limit=2&cursor=" + cursor)).GET().build();
+        HttpResponse<String> last = client.send(next, HttpResponse.BodyHandlers.ofString());
+        assertEquals(gson.toJson(tasks.subList(2, 3)), last.body());
+        assertTrue(last.headers().firstValue("X-Next-Cursor").isEmpty());
+
+        for (String query : List.of("limit=0", "limit=5000", "cursor=abc", "from=bad", "limit=2&status=unknown")) {
+            HttpRequest badRequest = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/tasks?" + query)).GET().build();
+            assertEquals(400, client.send(badRequest, HttpResponse.BodyHandlers.ofString()).statusCode(), query);
+        }
+    }
+
+    @Test
+    public void testConditionalGet() throws IOException, InterruptedException {
+        manager.createTask(new Task("Test 1", "Testing task 1"));
+        int id = manager.getTasks().getFirst().getId();
+
+        HttpClient client = HttpClient.newHttpClient();
+        for (URI url : List.of(URI.create("http://localhost:8080/tasks"),
+                URI.create("http://localhost:8080/tasks/" + id))) {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder().uri(url).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            String etag = response.headers().firstValue("ETag").orElseThrow();
+
+            // Пока задачи не менялись, тело не отправляется
+            HttpRequest conditional = HttpRequest.newBuilder().uri(url).header("If-None-Match", etag).GET().build();
+            HttpResponse<String> notModified = client.send(conditional, HttpResponse.BodyHandlers.ofString());
+            assertEquals(304, notModified.statusCode(), url.toString());
+            assertEquals("", notModified.body());
+            assertEquals(etag, notModified.headers().firstValue("ETag").orElseThrow());
+
+            manager.updateTask(new Task("Test 1", "Testing task 1", Status.DONE, id));
+            HttpResponse<String> changed = client.send(conditional, HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, changed.statusCode(), url.toString());
+            assertNotEquals(etag, changed.headers().firstValue("ETag").orElseThrow());
+        }
+    }
+}
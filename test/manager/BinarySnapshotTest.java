@@ -0,0 +1,122 @@
+package manager;
+
+import entity.Epic;
+import entity.Status;
+import entity.Subtask;
+import entity.Task;
+import entity.TaskTypes;
+import exception.ManagerLoadException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinarySnapshotTest {
+    private File file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = File.createTempFile("tasks", ".bin");
+    }
+
+    @AfterEach
+    void tearDown() {
+        file.delete();
+    }
+
+    private static List<Task> sample() {
+        Task task = new Task("задача, с запятой", null, Status.DONE, 1);
+        task.setStartTime(LocalDateTime.of(2024, 5, 1, 10, 30));
+        task.setDuration(45);
+        Epic epic = new Epic("epic", "описание", Status.IN_PROGRESS, 2);
+        epic.setStartTime(LocalDateTime.of(1969, 12, 31, 23, 59));
+        epic.setEndTime(LocalDateTime.of(2024, 5, 2, 0, 0));
+        epic.setDuration(120);
+        Subtask subtask = new Subtask("x".repeat(100_000), "", Status.NEW, 3, 2);
+        return List.of(task, epic, subtask);
+    }
+
+    @Test
+    void roundTrip() {
+        List<Task> tasks = sample();
+        BinarySnapshot.write(file, tasks);
+        assertTrue(BinarySnapshot.isBinary(file));
+
+        List<Task> loaded = BinarySnapshot.read(file);
+        assertEquals(tasks.size(), loaded.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(tasks.get(i).toString(), loaded.get(i).toString());
+            assertEquals(tasks.get(i).getClass(), loaded.get(i).getClass());
+        }
+        assertNull(loaded.getFirst().getDescription());
+        assertEquals(2, ((Subtask) loaded.getLast()).getEpicId());
+    }
+
+    @Test
+    void timesKeepSecondsAndNanos() {
+        Task task = new Task("name", "description", Status.NEW, 1);
+        task.setStartTime(LocalDateTime.of(2024, 5, 1, 10, 30, 59, 123));
+        Epic epic = new Epic("epic", "description", Status.NEW, 2);
+        epic.setStartTime(LocalDateTime.of(1969, 12, 31, 23, 59, 30));
+        epic.setEndTime(LocalDateTime.of(2024, 5, 1, 11, 0, 1, 999_999_999));
+        BinarySnapshot.write(file, List.of(task, epic));
+
+        List<Task> loaded = BinarySnapshot.read(file);
+        assertEquals(task.getStartTime(), loaded.getFirst().getStartTime());
+        assertEquals(epic.getStartTime(), loaded.getLast().getStartTime());
+        assertEquals(epic.getEndTime(), ((Epic) loaded.getLast()).getEndTime());
+    }
+
+    @Test
+    void firstVersionWithMinutesIsRead() throws IOException {
+        byte[] name = "name".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        buffer.putInt(0x544D4742).put((byte) 1).putInt(1)
+                .put((byte) TaskTypes.TASK.ordinal()).put((byte) Status.NEW.ordinal()).putInt(1)
+                .putLong(LocalDateTime.of(2024, 5, 1, 10, 30).toEpochSecond(ZoneOffset.UTC) / 60)
+                .putLong(15).putLong(BinarySnapshot.NO_TIME)
+                .putInt(name.length).put(name).putInt(-1);
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) checksum.getValue());
+        Files.write(file.toPath(), Arrays.copyOf(buffer.array(), buffer.position()));
+
+        Task loaded = BinarySnapshot.read(file).getFirst();
+        assertEquals(LocalDateTime.of(2024, 5, 1, 10, 30), loaded.getStartTime());
+        assertEquals(15, loaded.getDuration());
+        assertEquals("name", loaded.getName());
+        assertNull(loaded.getDescription());
+    }
+
+    @Test
+    void corruptionIsDetected() throws IOException {
+        BinarySnapshot.write(file, sample());
+        byte[] content = Files.readAllBytes(file.toPath());
+
+        byte[] flipped = content.clone();
+        flipped[20] ^= 1;
+        Files.write(file.toPath(), flipped);
+        assertThrows(ManagerLoadException.class, () -> BinarySnapshot.read(file));
+
+        Files.write(file.toPath(), Arrays.copyOf(content, content.length - 1));
+        assertThrows(ManagerLoadException.class, () -> BinarySnapshot.read(file));
+    }
+
+    @Test
+    void csvIsNotBinary() throws IOException {
+        Files.writeString(file.toPath(), "id,type,name,status,description,startTime,endTime,duration,epic");
+        assertFalse(BinarySnapshot.isBinary(file));
+    }
+}
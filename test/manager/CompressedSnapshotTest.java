@@ -0,0 +1,91 @@
+package manager;
+
+import entity.Epic;
+import entity.Status;
+import entity.Subtask;
+import entity.Task;
+import exception.ManagerLoadException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedSnapshotTest {
+    private File file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = File.createTempFile("tasks", ".csv.gz");
+    }
+
+    @AfterEach
+    void tearDown() {
+        file.delete();
+    }
+
+    private static List<Task> sample(int count) {
+        List<Task> tasks = new ArrayList<>();
+        Epic epic = new Epic("epic", "описание эпика", Status.IN_PROGRESS, 1);
+        epic.setStartTime(LocalDateTime.of(2024, 5, 1, 10, 0));
+        epic.setEndTime(LocalDateTime.of(2024, 5, 2, 0, 0));
+        epic.setDuration(60);
+        tasks.add(epic);
+        for (int id = 2; id <= count; id++) {
+            Task task = id % 2 == 0
+                    ? new Task("task" + id, "длинное описание задачи ".repeat(20), Status.NEW, id)
+                    : new Subtask("subtask" + id, "описание подзадачи ".repeat(20), Status.DONE, id, 1);
+            task.setStartTime(LocalDateTime.of(2024, 5, 1, 10, 0).plusMinutes(id));
+            task.setDuration(1);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    @Test
+    void roundTrip() {
+        List<Task> tasks = sample(1000);
+        CompressedSnapshot.write(file, tasks);
+        assertTrue(CompressedSnapshot.isCompressed(file));
+
+        List<Task> loaded = CompressedSnapshot.read(file);
+        assertEquals(tasks.stream().map(Task::toString).toList(), loaded.stream().map(Task::toString).toList());
+        assertEquals(Subtask.class, loaded.get(2).getClass());
+    }
+
+    @Test
+    void compressedFileIsSmallerThanCsv() throws IOException {
+        List<Task> tasks = sample(1000);
+        CompressedSnapshot.write(file, tasks);
+        File plain = File.createTempFile("tasks", ".csv");
+        try {
+            CsvSnapshot.write(plain, tasks);
+            assertFalse(CompressedSnapshot.isCompressed(plain));
+            assertTrue(file.length() * 5 < plain.length());
+        } finally {
+            plain.delete();
+        }
+    }
+
+    @Test
+    void corruptionIsDetected() throws IOException {
+        CompressedSnapshot.write(file, sample(100));
+        byte[] content = Files.readAllBytes(file.toPath());
+
+        Files.write(file.toPath(), Arrays.copyOf(content, content.length / 2));
+        assertThrows(ManagerLoadException.class, () -> CompressedSnapshot.read(file));
+
+        byte[] flipped = content.clone();
+        flipped[content.length / 2] ^= 1;
+        Files.write(file.toPath(), flipped);
+        assertThrows(ManagerLoadException.class, () -> CompressedSnapshot.read(file));
+    }
+}
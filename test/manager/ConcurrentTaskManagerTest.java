@@ -0,0 +1,247 @@
+package manager;
+
+import entity.BatchAction;
+import entity.BatchOperation;
+import entity.Epic;
+import entity.Status;
+import entity.Subtask;
+import entity.Task;
+import entity.TaskQuery;
+import entity.TaskTypes;
+import exception.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest {
+    private static final int THREADS = 8;
+    private static final int PER_THREAD = 500;
+
+    private ConcurrentTaskManager taskManager;
+
+    @BeforeEach
+    void setUp() {
+        taskManager = new ConcurrentTaskManager();
+    }
+
+    private static void runInParallel(Runnable action) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            executor.submit(action);
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void createTasksConcurrently() throws InterruptedException {
+        runInParallel(() -> {
+            for (int i = 0; i < PER_THREAD; i++) {
+                taskManager.createTask(new Task("task", "description"));
+            }
+        });
+
+        List<Task> tasks = taskManager.getTasks();
+        Set<Integer> ids = new HashSet<>();
+        tasks.forEach(task -> ids.add(task.getId()));
+        assertEquals(THREADS * PER_THREAD, tasks.size());
+        assertEquals(THREADS * PER_THREAD, ids.size());
+    }
+
+    @Test
+    void onlyOneOfOverlappingTasksIsScheduled() throws InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        AtomicInteger conflicts = new AtomicInteger();
+        runInParallel(() -> {
+            for (int i = 0; i < PER_THREAD; i++) {
+                Task task = new Task("task", "description");
+                task.setStartTime(start.plusMinutes(i * 10L));
+                task.setDuration(5);
+                try {
+                    taskManager.createTask(task);
+                } catch (IllegalArgumentException e) {
+                    conflicts.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(PER_THREAD, taskManager.getPrioritizedTasks().size());
+        assertEquals((THREADS - 1) * PER_THREAD, conflicts.get());
+    }
+
+    @Test
+    void epicStaysConsistentWithSubtasks() throws InterruptedException {
+        taskManager.createEpic(new Epic("epic", "description"));
+        int epicId = taskManager.getEpics().getFirst().getId();
+
+        runInParallel(() -> {
+            for (int i = 0; i < PER_THREAD; i++) {
+                taskManager.createSubtask(new Subtask("subtask", "description", epicId));
+            }
+        });
+
+        Epic epic = taskManager.getEpic(epicId);
+        assertEquals(THREADS * PER_THREAD, epic.getSubtaskIds().size());
+        assertEquals(THREADS * PER_THREAD, taskManager.getSubtasks().size());
+
+        Subtask subtask = taskManager.getSubtasks().getFirst();
+        taskManager.updateSubtask(new Subtask("subtask", "description", Status.IN_PROGRESS, subtask.getId(), epicId));
+        assertEquals(Status.IN_PROGRESS, taskManager.getEpic(epicId).getStatus());
+
+        taskManager.deleteEpic(epicId);
+        assertTrue(taskManager.getSubtasks().isEmpty());
+        assertTrue(taskManager.getEpics().isEmpty());
+    }
+
+    @Test
+    void batchIsAppliedAtomicallyAgainstConcurrentCreates() throws InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        AtomicInteger batches = new AtomicInteger();
+        runInParallel(() -> {
+            for (int i = 0; i < PER_THREAD / 10; i++) {
+                List<BatchOperation> operations = new ArrayList<>();
+                for (int j = 0; j < 10; j++) {
+                    Task task = new Task("task", "description");
+                    task.setStartTime(start.plusMinutes((i * 10L + j) * 10));
+                    task.setDuration(5);
+                    operations.add(new BatchOperation(BatchAction.CREATE, task));
+                }
+                try {
+                    taskManager.applyBatch(operations);
+                    batches.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    // Время уже занято другим пакетом
+                }
+            }
+        });
+
+        assertEquals(PER_THREAD / 10, batches.get());
+        assertEquals(PER_THREAD, taskManager.getTasks().size());
+        assertEquals(PER_THREAD, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void pagesFollowIds() {
+        taskManager.createEpic(new Epic("epic", "description"));
+        for (int i = 0; i < 4; i++) {
+            taskManager.createTask(new Task("task" + i, "description"));
+        }
+        taskManager.createSubtask(new Subtask("subtask", "description", 1));
+        taskManager.updateTask(new Task("done", "description", Status.DONE, 3));
+
+        assertEquals(List.of(2, 3), taskManager.getTasks(new TaskQuery(0, 2)).stream().map(Task::getId).toList());
+        assertEquals(List.of(4, 5), taskManager.getTasks(new TaskQuery(3, 2)).stream().map(Task::getId).toList());
+        assertEquals(List.of(3), taskManager.getTasks(new TaskQuery(0, 10).withStatus(Status.DONE))
+                .stream().map(Task::getId).toList());
+        assertEquals(List.of(6), taskManager.getSubtasks(new TaskQuery(0, 10)).stream().map(Task::getId).toList());
+        assertEquals(List.of(1), taskManager.getEpics(new TaskQuery(0, 10)).stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void epicVersionFollowsSubtasks() {
+        taskManager.createEpic(new Epic("epic", "description"));
+        taskManager.createSubtask(new Subtask("subtask", "description", 1));
+        long epic = taskManager.getVersion(TaskTypes.EPIC, 1);
+        long subtask = taskManager.getVersion(TaskTypes.SUBTASK, 2);
+
+        taskManager.updateSubtask(new Subtask("subtask", "description", Status.DONE, 2, 1));
+        assertTrue(taskManager.getVersion(TaskTypes.SUBTASK, 2) > subtask);
+        assertTrue(taskManager.getVersion(TaskTypes.EPIC, 1) > epic);
+
+        epic = taskManager.getVersion(TaskTypes.EPIC);
+        taskManager.deleteSubtask(2);
+        assertTrue(taskManager.getVersion(TaskTypes.EPIC) > epic);
+    }
+
+    @Test
+    void batchDoesNotRestoreConcurrentlyDeletedTasks() throws InterruptedException {
+        for (int i = 0; i < PER_THREAD; i++) {
+            taskManager.createTask(new Task("task", "description"));
+        }
+        AtomicInteger threads = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        runInParallel(() -> {
+            int thread = threads.getAndIncrement();
+            try {
+                if (thread % 2 == 0) {
+                    // Задачи удаляются по одной вперемешку с пакетами
+                    for (int id = 1; id <= PER_THREAD; id++) {
+                        taskManager.deleteTask(id);
+                        if (id % 10 == 0) {
+                            Thread.sleep(1);
+                        }
+                    }
+                    return;
+                }
+                // Пакеты изменяют или удаляют все ещё не удалённые задачи
+                for (int round = 0; round < 100; round++) {
+                    List<BatchOperation> operations = new ArrayList<>();
+                    for (Task task : taskManager.getTasks()) {
+                        operations.add(thread % 4 == 1
+                                ? new BatchOperation(BatchAction.UPDATE,
+                                new Task("updated", "description", Status.DONE, task.getId()))
+                                : new BatchOperation(TaskTypes.TASK, task.getId()));
+                    }
+                    try {
+                        taskManager.applyBatch(operations);
+                    } catch (NotFoundException e) {
+                        // Задачу пакета уже удалил другой поток
+                    }
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+
+        assertNull(failure.get());
+        assertTrue(taskManager.getTasks().isEmpty());
+        assertEquals(0, taskManager.countByStatus(TaskTypes.TASK, Status.DONE));
+    }
+
+    @Test
+    void pagesSkipIdsOfOtherTypes() {
+        taskManager.createTask(new Task("first", "description"));
+        for (int i = 0; i < 3000; i++) {
+            taskManager.createEpic(new Epic("epic" + i, "description"));
+        }
+        taskManager.createTask(new Task("second", "description"));
+        taskManager.createTask(new Task("third", "description"));
+        taskManager.updateTask(new Task("done", "description", Status.DONE, 3003));
+
+        assertEquals(List.of(1, 3002), taskManager.getTasks(new TaskQuery(0, 2)).stream().map(Task::getId).toList());
+        assertEquals(List.of(3003), taskManager.getTasks(new TaskQuery(3002, 2)).stream().map(Task::getId).toList());
+        assertEquals(List.of(3003), taskManager.getTasks(new TaskQuery(0, 10).withStatus(Status.DONE))
+                .stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void rejectedCreateDoesNotUseId() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        Task first = new Task("first", "description");
+        first.setStartTime(start);
+        first.setDuration(60);
+        taskManager.createTask(first);
+        taskManager.createEpic(new Epic("epic", "description"));
+        Task overlapping = new Task("overlapping", "description");
+        overlapping.setStartTime(start.plusMinutes(30));
+        Subtask overlappingSubtask = new Subtask("overlapping", "description", 2);
+        overlappingSubtask.setStartTime(start.plusMinutes(15));
+
+        assertThrows(IllegalArgumentException.class, () -> taskManager.createTask(overlapping));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.createSubtask(overlappingSubtask));
+        taskManager.createTask(new Task("next", "description"));
+        assertEquals(List.of(1, 3), taskManager.getTasks().stream().map(Task::getId).sorted().toList());
+    }
+}
@@ -0,0 +1,105 @@
+package manager;
+
+import entity.Epic;
+import entity.Status;
+import entity.Subtask;
+import entity.Task;
+import exception.ManagerLoadException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvSnapshotTest {
+    private File file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = File.createTempFile("tasks", ".csv");
+    }
+
+    @AfterEach
+    void tearDown() {
+        file.delete();
+    }
+
+    // Достаточно строк, чтобы файл делился на несколько кусков
+    private static List<Task> manyTasks() {
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Epic("epic", "описание эпика", Status.NEW, 1));
+        for (int i = 2; i < 40_000; i++) {
+            Task task = i % 2 == 0
+                    ? new Task("задача" + i, "описание " + "x".repeat(i % 50), Status.IN_PROGRESS, i)
+                    : new Subtask("подзадача" + i, "описание", Status.DONE, i, 1);
+            task.setStartTime(LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(i * 10L));
+            task.setDuration(5);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static List<String> lines(List<Task> tasks) {
+        return tasks.stream().map(Task::toString).toList();
+    }
+
+    @Test
+    void readsChunksInFileOrder() {
+        List<Task> tasks = manyTasks();
+        CsvSnapshot.write(file, tasks);
+        assertTrue(file.length() > 2 * 1024 * 1024);
+        assertEquals(lines(tasks), lines(CsvSnapshot.read(file)));
+    }
+
+    @Test
+    void checksumDoesNotDependOnLineSeparator() throws IOException {
+        List<Task> tasks = manyTasks();
+        CsvSnapshot.write(file, tasks);
+        String content = Files.readString(file.toPath()).replace(System.lineSeparator(), "\n");
+        Files.writeString(file.toPath(), content.replace("\n", "\r\n"));
+        assertEquals(lines(tasks), lines(CsvSnapshot.read(file)));
+
+        Files.writeString(file.toPath(), content.replace("задача30000,", "задача30001,"));
+        assertThrows(ManagerLoadException.class, () -> CsvSnapshot.read(file));
+    }
+
+    @Test
+    void legacyFileWithoutChecksum() throws IOException {
+        Task task = new Task("name", "description", Status.NEW, 1);
+        Files.writeString(file.toPath(), CsvSnapshot.LEGACY_HEADER + "\n" + task, StandardCharsets.UTF_8);
+        assertEquals(List.of(task.toString()), lines(CsvSnapshot.read(file)));
+
+        Files.writeString(file.toPath(), "");
+        assertEquals(List.of(), CsvSnapshot.read(file));
+    }
+
+    @Test
+    void brokenLineIsReported() throws IOException {
+        CsvSnapshot.write(file, manyTasks());
+        String content = Files.readString(file.toPath());
+        Files.writeString(file.toPath(), content.replace("20000,TASK,", "20000,UNKNOWN,"));
+        assertThrows(ManagerLoadException.class, () -> CsvSnapshot.read(file));
+    }
+
+    @Test
+    void versionedFileCutAtLineBoundaryIsRejected() throws IOException {
+        CsvSnapshot.write(file, manyTasks());
+        // Без строки с контрольной суммой и последней задачи снимок выглядел бы целым
+        List<String> content = Files.readAllLines(file.toPath());
+        List<String> cut = content.subList(0, content.size() - 2);
+        Files.write(file.toPath(), cut);
+        assertThrows(ManagerLoadException.class, () -> CsvSnapshot.read(file));
+        BufferedReader reader = new BufferedReader(new StringReader(String.join("\n", cut)));
+        assertThrows(ManagerLoadException.class, () -> CsvSnapshot.read(reader, file));
+    }
+}
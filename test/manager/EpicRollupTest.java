@@ -0,0 +1,69 @@
+package manager;
+
+import entity.Epic;
+import entity.Status;
+import entity.Subtask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EpicRollupTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private EpicRollup rollup;
+
+    @BeforeEach
+    void setUp() {
+        rollup = new EpicRollup();
+    }
+
+    private Subtask subtask(int id, Status status, int startMinute, int duration) {
+        Subtask subtask = new Subtask("subtask" + id, "description", status, id, 1);
+        subtask.setStartTime(BASE.plusMinutes(startMinute));
+        subtask.setDuration(duration);
+        return subtask;
+    }
+
+    @Test
+    void status() {
+        assertEquals(Status.NEW, rollup.getStatus());
+        rollup.put(subtask(2, Status.NEW, 0, 10));
+        assertEquals(Status.NEW, rollup.getStatus());
+        rollup.put(subtask(3, Status.IN_PROGRESS, 20, 10));
+        assertEquals(Status.IN_PROGRESS, rollup.getStatus());
+        rollup.put(subtask(3, Status.DONE, 20, 10));
+        rollup.put(subtask(2, Status.DONE, 0, 10));
+        assertEquals(Status.DONE, rollup.getStatus());
+        rollup.remove(2);
+        rollup.remove(3);
+        assertEquals(Status.NEW, rollup.getStatus());
+    }
+
+    @Test
+    void times() {
+        rollup.put(subtask(2, Status.NEW, 0, 10));
+        rollup.put(subtask(3, Status.NEW, 0, 30));
+        rollup.put(subtask(4, Status.NEW, 100, 5));
+
+        Epic epic = new Epic("epic", "description", 1);
+        rollup.applyTo(epic);
+        assertEquals(BASE, epic.getStartTime());
+        assertEquals(BASE.plusMinutes(105), epic.getEndTime());
+        assertEquals(45, epic.getDuration());
+
+        rollup.remove(4);
+        rollup.remove(3);
+        rollup.applyTo(epic);
+        assertEquals(BASE, epic.getStartTime());
+        assertEquals(BASE.plusMinutes(10), epic.getEndTime());
+        assertEquals(10, epic.getDuration());
+
+        rollup.remove(2);
+        rollup.applyTo(epic);
+        assertNull(epic.getStartTime());
+        assertNull(epic.getEndTime());
+        assertEquals(0, epic.getDuration());
+    }
+}
@@ -1,9 +1,14 @@
 package manager;
 
+import entity.BatchAction;
+import entity.BatchOperation;
 import entity.Epic;
 import entity.Status;
 import entity.Subtask;
 import entity.Task;
+import entity.TaskTypes;
+import exception.ManagerLoadException;
+import exception.ManagerSaveException;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -13,10 +18,17 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Writer;
 import java.nio.file.Files;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class FileBackedTaskManagerTest {
 
@@ -36,11 +48,12 @@ class FileBackedTaskManagerTest {
     @AfterAll
     static void tearDown() {
         tempFile.delete();
+        FileBackedTaskManager.previousGenerationOf(tempFile).delete();
     }
 
     @Test
     void save() {
-        String test1 = "id,type,name,status,description,startTime,endTime,duration,epic" + System.lineSeparator();
+        String test1 = "id,type,name,status,description,startTime,endTime,duration,epic,v2" + System.lineSeparator();
         Task testTask = new Task("name", "description", Status.NEW, 1);
         testTask.setStartTime(LocalDateTime.now());
         testTask.setDuration(55);
@@ -50,24 +63,32 @@ class FileBackedTaskManagerTest {
         String test3 = test2 + testEpic + System.lineSeparator() + testSubtask + System.lineSeparator();
         try {
             taskManager.createTask(testTask);
-            String textInFile2 = Files.readString(tempFile.toPath());
+            String textInFile2 = withoutChecksum(Files.readString(tempFile.toPath()));
             assertEquals(test2, textInFile2);
 
             taskManager.createEpic(testEpic);
             taskManager.createSubtask(testSubtask);
-            String textInFile3 = Files.readString(tempFile.toPath());
+            String textInFile3 = withoutChecksum(Files.readString(tempFile.toPath()));
             assertEquals(test3, textInFile3);
 
 
             taskManager.deleteAllTasks();
             taskManager.deleteAllEpics();
-            String textInFile4 = Files.readString(tempFile.toPath());
+            String textInFile4 = withoutChecksum(Files.readString(tempFile.toPath()));
             assertEquals(test1, textInFile4);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    // Последняя строка снимка - контрольная сумма, остальное сравнивается как есть
+    private static String withoutChecksum(String snapshot) {
+        String withoutLastSeparator = snapshot.substring(0, snapshot.length() - System.lineSeparator().length());
+        int footer = withoutLastSeparator.lastIndexOf(System.lineSeparator()) + System.lineSeparator().length();
+        assertTrue(withoutLastSeparator.substring(footer).startsWith("checksum,"));
+        return snapshot.substring(0, footer);
+    }
+
     @Test
     void loadFromFile() {
         String sep = System.lineSeparator();
@@ -94,4 +115,396 @@ class FileBackedTaskManagerTest {
         assertEquals(List.of(testSubtask), taskManager.getSubtasks());
         assertEquals(List.of(testEpic), taskManager.getEpics());
     }
-}
\ No newline at end of file
+
+    @Test
+    void applyBatchSavesOnce() throws IOException {
+        File batchFile = File.createTempFile("batch", ".csv");
+        FileBackedTaskManager batchManager = new FileBackedTaskManager(batchFile);
+        Epic epic = new Epic("epic", "description", Status.NEW, 1);
+        batchManager.createEpic(epic);
+        File tempSnapshot = new File(batchFile.getPath() + ".tmp");
+        tempSnapshot.mkdir();
+
+        // Вместо временного файла каталог: сохранение после каждой операции упало бы на первой
+        List<BatchOperation> operations = List.of(
+                new BatchOperation(BatchAction.CREATE, new Task("task", "description")),
+                new BatchOperation(BatchAction.CREATE, new Subtask("subtask", "description", 1)));
+        assertThrows(ManagerSaveException.class, () -> batchManager.applyBatch(operations));
+        assertEquals(2, batchManager.getTasks().size() + batchManager.getSubtasks().size());
+
+        tempSnapshot.delete();
+        batchManager.applyBatch(List.of(new BatchOperation(TaskTypes.TASK, 2)));
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(batchFile);
+        assertEquals(List.of(), loaded.getTasks());
+        assertEquals(batchManager.getSubtasks(), loaded.getSubtasks());
+        batchFile.delete();
+        FileBackedTaskManager.previousGenerationOf(batchFile).delete();
+    }
+
+    private static List<String> snapshotOf(TaskManager manager) {
+        List<String> lines = new ArrayList<>();
+        manager.getTasks().forEach(task -> lines.add(task.toString()));
+        manager.getEpics().forEach(epic -> lines.add(epic.toString()));
+        manager.getSubtasks().forEach(subtask -> lines.add(subtask.toString()));
+        return lines;
+    }
+
+    @Test
+    void writeAheadLogReplay() throws IOException {
+        File logged = File.createTempFile("logged", ".csv");
+        File logFile = FileBackedTaskManager.logFileOf(logged);
+        FileBackedTaskManager manager = FileBackedTaskManager.loadWithLog(logged);
+        manager.createTask(new Task("task", "description"));
+        manager.createEpic(new Epic("epic", "description"));
+        manager.createSubtask(new Subtask("subtask", "description", 2));
+        manager.createTask(new Task("removed", "description"));
+        manager.updateSubtask(new Subtask("subtask", "done", Status.DONE, 3, 2));
+        manager.deleteTask(4);
+        List<String> expected = snapshotOf(manager);
+        manager.close();
+
+        // Снимок не перезаписывался, все изменения только в журнале
+        assertEquals(0, logged.length());
+        assertEquals(8, Files.readAllLines(logFile.toPath()).size());
+
+        FileBackedTaskManager restored = FileBackedTaskManager.loadWithLog(logged);
+        assertEquals(expected, snapshotOf(restored));
+        restored.createTask(new Task("next", "description"));
+        assertEquals(5, restored.getTasks().getLast().getId());
+
+        restored.checkpoint();
+        assertEquals(0, logFile.length());
+        restored.deleteAllEpics();
+        List<String> afterCheckpoint = snapshotOf(restored);
+        restored.close();
+        assertEquals(afterCheckpoint, snapshotOf(FileBackedTaskManager.loadWithLog(logged)));
+        logged.delete();
+        logFile.delete();
+        FileBackedTaskManager.previousGenerationOf(logged).delete();
+    }
+
+    @Test
+    void writeAheadLogSkipsUnfinishedBatchAndTornRecord() throws IOException {
+        File logged = File.createTempFile("logged", ".csv");
+        File logFile = FileBackedTaskManager.logFileOf(logged);
+        Task task = new Task("task", "description", Status.NEW, 1);
+        String sep = System.lineSeparator();
+        try (Writer writer = new FileWriter(logFile)) {
+            writer.write("U," + task + sep + "B" + sep + "D,TASK,1" + sep + "U,2,TASK,torn");
+        }
+
+        FileBackedTaskManager restored = FileBackedTaskManager.loadWithLog(logged);
+        assertEquals(List.of(task.toString()), snapshotOf(restored));
+        restored.close();
+        logged.delete();
+        logFile.delete();
+        FileBackedTaskManager.previousGenerationOf(logged).delete();
+    }
+
+    @Test
+    void writeAheadLogKeepsRecordsAfterUnfinishedBatch() throws IOException {
+        File logged = File.createTempFile("logged", ".csv");
+        File logFile = FileBackedTaskManager.logFileOf(logged);
+        Task first = new Task("first", "description", Status.NEW, 1);
+        Task second = new Task("second", "description", Status.NEW, 2);
+        String sep = System.lineSeparator();
+        // Отменённый пакет и пакет, оборванный падением процесса
+        try (Writer writer = new FileWriter(logFile)) {
+            writer.write("U," + first + sep + "B" + sep + "D,TASK,1" + sep + "A" + sep
+                    + "U," + second + sep + "B" + sep + "D,TASK,2" + sep);
+        }
+
+        FileBackedTaskManager restored = FileBackedTaskManager.loadWithLog(logged);
+        assertEquals(List.of(first.toString(), second.toString()), snapshotOf(restored));
+        // Оборванный пакет не остаётся в журнале, и следующие записи не попадают в него
+        assertEquals(0, logFile.length());
+        restored.updateTask(new Task("renamed", "description", Status.DONE, 1));
+        restored.createTask(new Task("third", "description"));
+        List<String> expected = snapshotOf(restored);
+        restored.close();
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadWithLog(logged);
+        assertEquals(expected, snapshotOf(reloaded));
+        reloaded.close();
+        logged.delete();
+        logFile.delete();
+        FileBackedTaskManager.previousGenerationOf(logged).delete();
+    }
+
+    @Test
+    void writeAheadLogCompaction() throws IOException {
+        File logged = File.createTempFile("compacted", ".csv");
+        File logFile = FileBackedTaskManager.logFileOf(logged);
+        File sealedLog = FileBackedTaskManager.sealedLogFileOf(logged);
+        FileBackedTaskManager manager = FileBackedTaskManager.loadWithLog(logged, Long.MAX_VALUE, 5);
+        for (int i = 0; i < 12; i++) {
+            manager.createTask(new Task("task" + i, "description"));
+            manager.awaitCompaction();
+        }
+        List<String> expected = snapshotOf(manager);
+        manager.close();
+
+        // Журнал сжимается после каждых пяти записей, в нём остаются только последние
+        assertEquals(2, Files.readAllLines(logFile.toPath()).size());
+        assertEquals(12, Files.readAllLines(logged.toPath()).size());
+        assertFalse(sealedLog.exists());
+        FileBackedTaskManager restored = FileBackedTaskManager.loadWithLog(logged);
+        assertEquals(expected, snapshotOf(restored));
+        restored.close();
+        logged.delete();
+        logFile.delete();
+        FileBackedTaskManager.previousGenerationOf(logged).delete();
+    }
+
+    @Test
+    void writeAheadLogRecoversUnfinishedCompaction() throws IOException {
+        File logged = File.createTempFile("compacted", ".csv");
+        File logFile = FileBackedTaskManager.logFileOf(logged);
+        File sealedLog = FileBackedTaskManager.sealedLogFileOf(logged);
+        Task sealed = new Task("sealed", "description", Status.NEW, 1);
+        Task current = new Task("current", "description", Status.NEW, 2);
+        String sep = System.lineSeparator();
+        try (Writer writer = new FileWriter(sealedLog)) {
+            writer.write("U," + sealed + sep);
+        }
+        try (Writer writer = new FileWriter(logFile)) {
+            writer.write("U," + current + sep);
+        }
+
+        FileBackedTaskManager restored = FileBackedTaskManager.loadWithLog(logged);
+        restored.awaitCompaction();
+        assertEquals(List.of(sealed.toString(), current.toString()), snapshotOf(restored));
+        assertFalse(sealedLog.exists());
+        assertEquals(List.of(sealed.toString()), snapshotOf(FileBackedTaskManager.loadFromFile(logged)));
+        restored.close();
+        logged.delete();
+        logFile.delete();
+        FileBackedTaskManager.previousGenerationOf(logged).delete();
+    }
+
+    @Test
+    void writeAheadLogDurabilityModes() throws IOException {
+        for (DurabilityPolicy durability : List.of(DurabilityPolicy.groupCommit(Duration.ofMillis(10), 16),
+                DurabilityPolicy.async(8))) {
+            File logged = File.createTempFile("durable", ".csv");
+            FileBackedTaskManager manager = FileBackedTaskManager.loadWithLog(logged, durability);
+            manager.createEpic(new Epic("epic", "description"));
+            for (int i = 0; i < 100; i++) {
+                manager.createSubtask(new Subtask("subtask" + i, "description", 1));
+            }
+            manager.deleteSubtask(50);
+            manager.flush();
+            List<String> expected = snapshotOf(manager);
+
+            assertEquals(expected, snapshotOf(FileBackedTaskManager.loadWithLog(logged)));
+            manager.close();
+            logged.delete();
+            FileBackedTaskManager.logFileOf(logged).delete();
+        }
+    }
+
+    @Test
+    void corruptedSnapshotFallsBackToPreviousGeneration() throws IOException {
+        File snapshot = File.createTempFile("generations", ".csv");
+        File previous = FileBackedTaskManager.previousGenerationOf(snapshot);
+        FileBackedTaskManager manager = new FileBackedTaskManager(snapshot);
+        manager.createTask(new Task("first", "description"));
+        List<String> firstGeneration = snapshotOf(manager);
+        manager.createTask(new Task("second", "description"));
+        assertEquals(snapshotOf(manager), snapshotOf(FileBackedTaskManager.loadFromFile(snapshot)));
+
+        // Снимок оборван посередине строки
+        byte[] content = Files.readAllBytes(snapshot.toPath());
+        Files.write(snapshot.toPath(), Arrays.copyOf(content, content.length - 20));
+        assertEquals(firstGeneration, snapshotOf(FileBackedTaskManager.loadFromFile(snapshot)));
+
+        // Без предыдущего поколения повреждённый снимок не загружается
+        previous.delete();
+        assertThrows(ManagerLoadException.class, () -> FileBackedTaskManager.loadFromFile(snapshot));
+        snapshot.delete();
+    }
+
+    @Test
+    void checksumMismatchIsDetected() throws IOException {
+        File snapshot = File.createTempFile("checksum", ".csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(snapshot);
+        manager.createTask(new Task("name", "description"));
+        FileBackedTaskManager.previousGenerationOf(snapshot).delete();
+
+        // Строка остаётся разборчивой, но отличается от записанной
+        String content = Files.readString(snapshot.toPath());
+        Files.writeString(snapshot.toPath(), content.replace("description", "descriptioN"));
+        assertThrows(ManagerLoadException.class, () -> FileBackedTaskManager.loadFromFile(snapshot));
+        snapshot.delete();
+    }
+
+    @Test
+    void binaryFormatIsDetectedOnLoad() throws IOException {
+        File snapshot = File.createTempFile("binary", ".bin");
+        File exported = File.createTempFile("exported", ".csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(snapshot, StorageFormat.BINARY);
+        Task task = new Task("name", "description");
+        task.setStartTime(LocalDateTime.of(2024, 1, 1, 9, 0));
+        task.setDuration(30);
+        manager.createTask(task);
+        manager.createEpic(new Epic("epic", "description"));
+        manager.createSubtask(new Subtask("subtask", "description", 2));
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(snapshot);
+        assertEquals(StorageFormat.BINARY, loaded.getFormat());
+        assertEquals(snapshotOf(manager), snapshotOf(loaded));
+
+        // Экспорт в CSV загружается тем же методом
+        loaded.exportTo(exported, StorageFormat.CSV);
+        FileBackedTaskManager imported = FileBackedTaskManager.loadFromFile(exported);
+        assertEquals(StorageFormat.CSV, imported.getFormat());
+        assertEquals(snapshotOf(manager), snapshotOf(imported));
+        snapshot.delete();
+        FileBackedTaskManager.previousGenerationOf(snapshot).delete();
+        exported.delete();
+    }
+
+    @Test
+    void loadFromFileRebuildsDerivedState() throws IOException {
+        File snapshot = File.createTempFile("rebuilt", ".csv");
+        String sep = System.lineSeparator();
+        Task task = new Task("task", "description", Status.NEW, 7);
+        task.setStartTime(LocalDateTime.of(2024, 1, 1, 12, 0));
+        task.setDuration(30);
+        Epic epic = new Epic("epic", "description", Status.NEW, 2);
+        Subtask subtask = new Subtask("subtask", "description", Status.DONE, 3, 2);
+        subtask.setStartTime(LocalDateTime.of(2024, 1, 1, 9, 0));
+        subtask.setDuration(60);
+        try (Writer writer = new FileWriter(snapshot)) {
+            writer.write("id,type,name,status,description,startTime,endTime,duration,epic" + sep
+                    + task + sep + epic + sep + subtask + sep);
+        }
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(snapshot);
+        assertEquals(List.of(3, 7), loaded.getPrioritizedTasks().stream().map(Task::getId).toList());
+        Epic loadedEpic = loaded.getEpic(2);
+        assertEquals(List.of(3), List.copyOf(loadedEpic.getSubtaskIds()));
+        assertEquals(Status.DONE, loadedEpic.getStatus());
+        assertEquals(subtask.getEndTime(), loadedEpic.getEndTime());
+
+        Task overlapping = new Task("overlapping", "description");
+        overlapping.setStartTime(LocalDateTime.of(2024, 1, 1, 12, 15));
+        assertThrows(IllegalArgumentException.class, () -> loaded.createTask(overlapping));
+        loaded.createTask(new Task("next", "description"));
+        assertEquals(List.of(7, 8), loaded.getTasks().stream().map(Task::getId).sorted().toList());
+        snapshot.delete();
+        FileBackedTaskManager.previousGenerationOf(snapshot).delete();
+    }
+
+    @Test
+    void compressedFormatIsDetectedOnLoad() throws IOException {
+        File snapshot = File.createTempFile("compressed", ".csv.gz");
+        FileBackedTaskManager manager = new FileBackedTaskManager(snapshot, StorageFormat.CSV_GZIP);
+        manager.createTask(new Task("name", "description"));
+        manager.createEpic(new Epic("epic", "description"));
+        manager.createSubtask(new Subtask("subtask", "description", 2));
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(snapshot);
+        assertEquals(StorageFormat.CSV_GZIP, loaded.getFormat());
+        assertEquals(snapshotOf(manager), snapshotOf(loaded));
+        snapshot.delete();
+        FileBackedTaskManager.previousGenerationOf(snapshot).delete();
+    }
+
+    @Test
+    void orphanSubtasksAreDroppedOnLoad() throws IOException {
+        File snapshot = File.createTempFile("orphans", ".csv");
+        Epic epic = new Epic("epic", "description", Status.NEW, 1);
+        Subtask subtask = new Subtask("subtask", "description", Status.DONE, 2, 1);
+        Subtask orphan = new Subtask("orphan", "description", Status.NEW, 5, 4);
+        orphan.setStartTime(LocalDateTime.of(2024, 1, 1, 9, 0));
+        CsvSnapshot.write(snapshot, List.of(epic, subtask, orphan));
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(snapshot);
+        assertEquals(List.of(2), loaded.getSubtasks().stream().map(Task::getId).toList());
+        assertEquals(List.of(), loaded.getPrioritizedTasks());
+        // Идентификатор пропущенной подзадачи не достаётся новой задаче
+        loaded.createTask(new Task("next", "description"));
+        assertEquals(List.of(6), loaded.getTasks().stream().map(Task::getId).toList());
+        snapshot.delete();
+        FileBackedTaskManager.previousGenerationOf(snapshot).delete();
+    }
+
+    @Test
+    void damagedSnapshotDoesNotBecomePreviousGeneration() throws IOException {
+        File snapshot = File.createTempFile("generations", ".csv");
+        File previous = FileBackedTaskManager.previousGenerationOf(snapshot);
+        FileBackedTaskManager manager = new FileBackedTaskManager(snapshot);
+        manager.createTask(new Task("first", "description"));
+        List<String> firstGeneration = snapshotOf(manager);
+        manager.createTask(new Task("second", "description"));
+        Files.writeString(snapshot.toPath(), Files.readString(snapshot.toPath()).replace("second", "damaged"));
+
+        FileBackedTaskManager restored = FileBackedTaskManager.loadFromFile(snapshot);
+        restored.createTask(new Task("third", "description"));
+        // Предыдущим поколением остаётся целый снимок, а не тот, что не прошёл проверку
+        assertEquals(firstGeneration, snapshotOf(FileBackedTaskManager.loadFromFile(previous)));
+        List<String> restoredGeneration = snapshotOf(restored);
+        assertEquals(restoredGeneration, snapshotOf(FileBackedTaskManager.loadFromFile(snapshot)));
+
+        // Следующее сохранение снова сдвигает поколения
+        restored.createTask(new Task("fourth", "description"));
+        assertEquals(restoredGeneration, snapshotOf(FileBackedTaskManager.loadFromFile(previous)));
+        snapshot.delete();
+        previous.delete();
+    }
+
+    @Test
+    void legacyTasksStartingTogetherAreLoaded() throws IOException {
+        File snapshot = File.createTempFile("duplicates", ".csv");
+        Task first = new Task("first", "description", Status.NEW, 1);
+        first.setStartTime(LocalDateTime.of(2024, 1, 1, 9, 0));
+        Task second = new Task("second", "description", Status.NEW, 2);
+        second.setStartTime(LocalDateTime.of(2024, 1, 1, 9, 0));
+        Epic epic = new Epic("epic", "description", Status.NEW, 3);
+        Subtask subtask = new Subtask("subtask", "description", Status.NEW, 4, 3);
+        subtask.setStartTime(LocalDateTime.of(2024, 1, 1, 9, 0));
+        // Файл старого формата: без версии в заголовке и без контрольной суммы
+        Files.writeString(snapshot.toPath(), String.join("\n", CsvSnapshot.LEGACY_HEADER,
+                first.toString(), second.toString(), epic.toString(), subtask.toString()));
+
+        // Все задачи загружаются, в расписании только задача с меньшим id
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(snapshot);
+        assertEquals(2, manager.getTasks().size());
+        assertEquals(1, manager.getSubtasks().size());
+        assertEquals(Set.of(4), manager.getEpic(3).getSubtaskIds());
+        assertEquals(List.of(first), manager.getPrioritizedTasks());
+
+        // Задача вне расписания не вытесняет занявшую её время при обновлении и удалении
+        Task moved = new Task("second", "description", Status.NEW, 2);
+        moved.setStartTime(LocalDateTime.of(2024, 1, 1, 9, 0));
+        assertThrows(IllegalArgumentException.class, () -> manager.updateTask(moved));
+        assertEquals(List.of(first), manager.getPrioritizedTasks());
+        manager.deleteSubtask(4);
+        assertEquals(List.of(first), manager.getPrioritizedTasks());
+        moved.setStartTime(LocalDateTime.of(2024, 1, 1, 12, 0));
+        manager.updateTask(moved);
+        assertEquals(List.of(first, moved), manager.getPrioritizedTasks());
+        snapshot.delete();
+        FileBackedTaskManager.previousGenerationOf(snapshot).delete();
+    }
+
+    @Test
+    void binaryFormatKeepsSeconds() throws IOException {
+        File snapshot = File.createTempFile("binary", ".bin");
+        FileBackedTaskManager manager = new FileBackedTaskManager(snapshot, StorageFormat.BINARY);
+        Task first = new Task("first", "description");
+        first.setStartTime(LocalDateTime.of(2024, 1, 1, 10, 0, 10));
+        manager.createTask(first);
+        Task second = new Task("second", "description");
+        second.setStartTime(LocalDateTime.of(2024, 1, 1, 10, 0, 40));
+        manager.createTask(second);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(snapshot);
+        assertEquals(snapshotOf(manager), snapshotOf(loaded));
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0, 40), loaded.getTask(2).getStartTime());
+        assertEquals(2, loaded.getPrioritizedTasks().size());
+        snapshot.delete();
+        FileBackedTaskManager.previousGenerationOf(snapshot).delete();
+    }
+}
@@ -1,15 +1,21 @@
 package manager;
 
+import entity.BatchAction;
+import entity.BatchOperation;
 import entity.Epic;
 import entity.Status;
 import entity.Subtask;
 import entity.Task;
+import entity.TaskQuery;
+import entity.TaskTypes;
+import exception.NotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -171,4 +177,238 @@ class InMemoryTaskManagerTest {
         assertFalse(taskManager.getHistory().contains(subtask1));
         assertFalse(taskManager.getHistory().contains(subtask2));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getTasksBetween() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 10, 0);
+        for (int i = 0; i < 5; i++) {
+            Task task = new Task("task" + i, "description");
+            task.setStartTime(base.plusMinutes(20L * i));
+            task.setDuration(15);
+            taskManager.createTask(task);
+        }
+        List<Task> prioritized = taskManager.getPrioritizedTasks();
+
+        // окно захватывает конец второй задачи и начало четвёртой
+        assertEquals(prioritized.subList(1, 4), taskManager.getTasksBetween(base.plusMinutes(30), base.plusMinutes(61)));
+        // окно между задачами
+        assertEquals(List.of(), taskManager.getTasksBetween(base.plusMinutes(15), base.plusMinutes(20)));
+        // граница окна не включает задачу, которая в ней начинается
+        assertEquals(prioritized.subList(0, 1), taskManager.getTasksBetween(base, base.plusMinutes(20)));
+    }
+
+    @Test
+    void getByStatus() {
+        assertEquals(3, taskManager.countByStatus(Status.NEW));
+        assertEquals(List.of(subtask1), taskManager.getByStatus(TaskTypes.SUBTASK, Status.NEW));
+
+        taskManager.updateSubtask(subtask2);
+        assertEquals(List.of(subtask2), taskManager.getByStatus(TaskTypes.SUBTASK, Status.IN_PROGRESS));
+        assertEquals(List.of(epic1), taskManager.getByStatus(TaskTypes.EPIC, Status.IN_PROGRESS));
+        assertEquals(2, taskManager.countByStatus(Status.IN_PROGRESS));
+        assertEquals(0, taskManager.countByStatus(TaskTypes.SUBTASK, Status.NEW));
+
+        taskManager.deleteEpic(2);
+        assertEquals(0, taskManager.countByStatus(Status.IN_PROGRESS));
+        assertEquals(List.of(taskManager.getTask(1)), taskManager.getByStatus(Status.NEW));
+    }
+
+    @Test
+    void search() {
+        assertEquals(List.of(taskManager.getTask(1)), taskManager.search("TASK1", 10));
+        assertEquals(List.of(taskManager.getSubtask(3)), taskManager.search("subtask1Disc", 10));
+
+        taskManager.updateTask(new Task("renamed", "task1Disc", Status.NEW, 1));
+        assertEquals(List.of(), taskManager.search("task1", 10));
+        assertEquals(1, taskManager.search("renamed", 10).getFirst().getId());
+
+        taskManager.deleteEpic(2);
+        assertEquals(List.of(), taskManager.search("epic1 subtask1", 10));
+    }
+
+    @Test
+    void updateTaskReschedules() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Task first = new Task("first", "description");
+        first.setStartTime(start);
+        first.setDuration(30);
+        taskManager.createTask(first);
+        Task second = new Task("second", "description");
+        second.setStartTime(start.plusHours(1));
+        second.setDuration(30);
+        taskManager.createTask(second);
+
+        Task moved = new Task("first", "description", Status.NEW, 4);
+        moved.setStartTime(start.plusHours(2));
+        moved.setDuration(30);
+        taskManager.updateTask(moved);
+        assertEquals(List.of(taskManager.getTask(5), moved), taskManager.getPrioritizedTasks());
+
+        Task conflicting = new Task("first", "description", Status.NEW, 4);
+        conflicting.setStartTime(start.plusHours(1).plusMinutes(10));
+        conflicting.setDuration(30);
+        assertThrows(IllegalArgumentException.class, () -> taskManager.updateTask(conflicting));
+        assertEquals(List.of(taskManager.getTask(5), moved), taskManager.getPrioritizedTasks());
+    }
+
+    @Test
+    void applyBatch() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Task scheduled = new Task("scheduled", "description");
+        scheduled.setStartTime(start);
+        scheduled.setDuration(30);
+        taskManager.createTask(scheduled);
+
+        // Новая задача занимает время удаляемой, подзадача переезжает на освободившееся место
+        Task created = new Task("created", "description");
+        created.setStartTime(start);
+        created.setDuration(60);
+        Subtask movedSubtask = new Subtask("subtask1", "subtask1Disc", Status.DONE, 3, 2);
+        movedSubtask.setStartTime(start.plusHours(2));
+        movedSubtask.setDuration(15);
+        List<Task> result = taskManager.applyBatch(List.of(
+                new BatchOperation(BatchAction.CREATE, created),
+                new BatchOperation(TaskTypes.TASK, 4),
+                new BatchOperation(BatchAction.UPDATE, movedSubtask),
+                new BatchOperation(TaskTypes.TASK, 1)));
+
+        assertEquals(5, result.get(0).getId());
+        assertEquals(List.of(4, 3, 1), result.subList(1, 4).stream().map(Task::getId).toList());
+        assertEquals(List.of(taskManager.getTask(5)), taskManager.getTasks());
+        assertEquals(List.of(taskManager.getTask(5), movedSubtask), taskManager.getPrioritizedTasks());
+        assertEquals(Status.DONE, taskManager.getEpic(2).getStatus());
+    }
+
+    @Test
+    void applyBatchIsAllOrNothing() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Task first = new Task("first", "description");
+        first.setStartTime(start);
+        first.setDuration(30);
+        Task second = new Task("second", "description");
+        second.setStartTime(start.plusMinutes(30));
+        second.setDuration(30);
+
+        // Касание границ внутри пакета считается пересечением
+        assertThrows(IllegalArgumentException.class, () -> taskManager.applyBatch(List.of(
+                new BatchOperation(TaskTypes.TASK, 1),
+                new BatchOperation(BatchAction.CREATE, first),
+                new BatchOperation(BatchAction.CREATE, second))));
+        assertThrows(NotFoundException.class, () -> taskManager.applyBatch(List.of(
+                new BatchOperation(BatchAction.CREATE, first),
+                new BatchOperation(TaskTypes.SUBTASK, 99))));
+        assertThrows(NotFoundException.class, () -> taskManager.applyBatch(List.of(
+                new BatchOperation(TaskTypes.EPIC, 2),
+                new BatchOperation(BatchAction.CREATE, new Subtask("subtask", "description", 2)))));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.applyBatch(List.of(
+                new BatchOperation(TaskTypes.TASK, 1),
+                new BatchOperation(TaskTypes.TASK, 1))));
+
+        assertEquals(1, taskManager.getTasks().size());
+        assertEquals(List.of(), taskManager.getPrioritizedTasks());
+        assertDoesNotThrow(() -> taskManager.createTask(first));
+        assertEquals(4, taskManager.getTasks().getLast().getId());
+    }
+
+    @Test
+    void pagesFollowIdsAndFilters() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < 5; i++) {
+            Task task = new Task("task" + i, "description");
+            task.setStartTime(start.plusHours(i));
+            task.setDuration(30);
+            taskManager.createTask(task);
+        }
+        taskManager.updateTask(new Task("done", "description", Status.DONE, 5));
+
+        List<Task> first = taskManager.getTasks(new TaskQuery(0, 3));
+        assertEquals(List.of(1, 4, 5), first.stream().map(Task::getId).toList());
+        List<Task> second = taskManager.getTasks(new TaskQuery(5, 3));
+        assertEquals(List.of(6, 7, 8), second.stream().map(Task::getId).toList());
+        assertEquals(List.of(), taskManager.getTasks(new TaskQuery(8, 3)));
+
+        assertEquals(List.of(5), taskManager.getTasks(new TaskQuery(0, 10).withStatus(Status.DONE))
+                .stream().map(Task::getId).toList());
+        // Окно [11:15, 12:00) задевает задачу 11:00-11:30 и не включает задачу, начинающуюся в 12:00
+        assertEquals(List.of(6), taskManager.getTasks(new TaskQuery(0, 10)
+                .withTimeRange(start.plusMinutes(135), start.plusHours(3))).stream().map(Task::getId).toList());
+        // Задача 5 после обновления без времени и в окно не попадает
+        assertEquals(List.of(6, 7, 8), taskManager.getTasks(new TaskQuery(0, 10)
+                .withTimeRange(start.plusHours(2), null)).stream().map(Task::getId).toList());
+
+        assertEquals(List.of(3), taskManager.getSubtasks(new TaskQuery(0, 10)).stream().map(Task::getId).toList());
+        assertEquals(List.of(2), taskManager.getEpics(new TaskQuery(1, 1)).stream().map(Task::getId).toList());
+        assertThrows(IllegalArgumentException.class, () -> new TaskQuery(0, 0));
+    }
+
+    @Test
+    void versionsChangeOnlyWithTheirData() {
+        long tasks = taskManager.getVersion(TaskTypes.TASK);
+        long epics = taskManager.getVersion(TaskTypes.EPIC);
+        long task = taskManager.getVersion(TaskTypes.TASK, 1);
+        long epic = taskManager.getVersion(TaskTypes.EPIC, 2);
+        long prioritized = taskManager.getPrioritizedVersion();
+        long history = taskManager.getHistoryVersion();
+
+        // Просмотр меняет только историю
+        taskManager.getTask(1);
+        assertTrue(taskManager.getHistoryVersion() > history);
+        assertEquals(tasks, taskManager.getVersion(TaskTypes.TASK));
+        assertEquals(prioritized, taskManager.getPrioritizedVersion());
+
+        // Изменение подзадачи меняет и её эпик
+        taskManager.updateSubtask(new Subtask("subtask1", "subtask1Disc", Status.DONE, 3, 2));
+        assertTrue(taskManager.getVersion(TaskTypes.EPIC) > epics);
+        assertTrue(taskManager.getVersion(TaskTypes.EPIC, 2) > epic);
+        assertTrue(taskManager.getPrioritizedVersion() > prioritized);
+        assertEquals(tasks, taskManager.getVersion(TaskTypes.TASK));
+        assertEquals(task, taskManager.getVersion(TaskTypes.TASK, 1));
+
+        // Эпиков нет в расписании
+        prioritized = taskManager.getPrioritizedVersion();
+        taskManager.updateEpic(new Epic("renamed", "epic1Disc", 2));
+        assertEquals(prioritized, taskManager.getPrioritizedVersion());
+
+        taskManager.deleteAllTasks();
+        assertTrue(taskManager.getVersion(TaskTypes.TASK) > tasks);
+        assertTrue(taskManager.getPrioritizedVersion() > prioritized);
+    }
+
+    @Test
+    void pagesSkipIdsOfOtherTypes() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        taskManager.createTask(new Task("first", "description"));
+        taskManager.createTask(new Task("second", "description"));
+        for (int i = 0; i < 3000; i++) {
+            taskManager.createEpic(new Epic("epic" + i, "description"));
+        }
+        taskManager.createTask(new Task("third", "description"));
+        taskManager.createTask(new Task("fourth", "description"));
+        Task timed = new Task("timed", "description");
+        timed.setStartTime(start);
+        timed.setDuration(30);
+        taskManager.createTask(timed);
+        taskManager.updateTask(new Task("done", "description", Status.DONE, 3007));
+
+        // Задачи 1, 4 и 5, эпики 2 и 6-3005, задачи 3006-3008. Страница дополняется задачами
+        // после тысяч чужих id и продолжается с курсора.
+        assertEquals(List.of(1, 4, 5, 3006), taskManager.getTasks(new TaskQuery(0, 4)).stream().map(Task::getId).toList());
+        assertEquals(List.of(3007, 3008), taskManager.getTasks(new TaskQuery(3006, 3)).stream().map(Task::getId).toList());
+        assertEquals(List.of(3007), taskManager.getTasks(new TaskQuery(0, 10).withStatus(Status.DONE))
+                .stream().map(Task::getId).toList());
+        assertEquals(List.of(3008), taskManager.getTasks(new TaskQuery(0, 10).withTimeRange(start, null))
+                .stream().map(Task::getId).toList());
+        assertEquals(List.of(3004, 3005), taskManager.getEpics(new TaskQuery(3003, 5)).stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void updateEpicKeepsSubtaskIds() {
+        taskManager.updateEpic(new Epic("renamed", "epic1Disc", 2));
+        assertEquals(Set.of(3), taskManager.getEpic(2).getSubtaskIds());
+        assertEquals("renamed", taskManager.getEpic(2).getName());
+
+        // Подзадачи удаляются вместе с обновлённым эпиком
+        taskManager.deleteEpic(2);
+        assertEquals(testList, taskManager.getSubtasks());
+    }
+}
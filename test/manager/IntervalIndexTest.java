@@ -0,0 +1,104 @@
+package manager;
+
+import entity.Status;
+import entity.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalIndexTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private IntervalIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new IntervalIndex();
+    }
+
+    private Task task(int id, int startMinute, int duration) {
+        Task task = new Task("task" + id, "description", Status.NEW, id);
+        task.setStartTime(BASE.plusMinutes(startMinute));
+        task.setDuration(duration);
+        return task;
+    }
+
+    @Test
+    void overlaps() {
+        index.add(task(1, 10, 10));
+
+        assertTrue(index.overlaps(task(2, 10, 0)));
+        assertTrue(index.overlaps(task(2, 15, 30)));
+        assertTrue(index.overlaps(task(2, 0, 10)));
+        assertTrue(index.overlaps(task(2, 20, 5)));
+        assertTrue(index.overlaps(task(2, 0, 60)));
+        assertFalse(index.overlaps(task(2, 0, 9)));
+        assertFalse(index.overlaps(task(2, 21, 5)));
+    }
+
+    @Test
+    void remove() {
+        Task task = task(1, 10, 10);
+        index.add(task);
+        index.remove(task);
+
+        assertEquals(0, index.size());
+        assertFalse(index.overlaps(task(2, 10, 10)));
+    }
+
+    // Результат совпадает с попарной проверкой по всем задачам
+    @Test
+    void matchesPairwiseCheck() {
+        Random random = new Random(42);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 2000; i++) {
+            Task candidate = task(i, random.nextInt(50_000), random.nextInt(30));
+            boolean expected = tasks.stream().anyMatch(t -> !isValidTime(t, candidate));
+            assertEquals(expected, index.overlaps(candidate));
+            if (!expected) {
+                tasks.add(candidate);
+                index.add(candidate);
+            }
+            if (!tasks.isEmpty() && random.nextInt(5) == 0) {
+                index.remove(tasks.remove(random.nextInt(tasks.size())));
+            }
+        }
+        assertEquals(tasks.size(), index.size());
+    }
+
+    private static boolean isValidTime(Task task1, Task task2) {
+        if (task1.getStartTime().isBefore(task2.getStartTime())) {
+            return task1.getEndTime().isBefore(task2.getStartTime());
+        } else if (task2.getStartTime().isBefore(task1.getStartTime())) {
+            return task2.getEndTime().isBefore(task1.getStartTime());
+        }
+        return false;
+    }
+
+    @Test
+    void addAllSortedBuildsSameIndexAsAdd() {
+        List<Task> sorted = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            sorted.add(task(i + 1, i * 20, 10));
+        }
+        index.addAllSorted(sorted);
+        assertEquals(1000, index.size());
+
+        Random random = new Random(7);
+        IntervalIndex expected = new IntervalIndex();
+        sorted.forEach(expected::add);
+        for (int i = 0; i < 2000; i++) {
+            Task probe = task(-1, random.nextInt(21000) - 100, random.nextInt(30));
+            assertEquals(expected.findOverlap(probe), index.findOverlap(probe));
+        }
+        index.remove(sorted.get(500));
+        assertFalse(index.overlaps(task(-1, 10000, 5)));
+        index.add(task(2000, 10000, 5));
+        assertTrue(index.overlaps(task(-1, 10004, 1)));
+    }
+}
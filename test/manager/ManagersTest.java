@@ -1,7 +1,10 @@
 package manager;
 
+import entity.Task;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class ManagersTest {
@@ -10,6 +13,20 @@ class ManagersTest {
     public void notNull() {
         assertNotNull(Managers.getDefault());
         assertNotNull(Managers.getDefaultHistory());
+        assertNotNull(Managers.getWithTimeSlots(Duration.ofMinutes(1)));
+        assertNotNull(Managers.getConcurrent());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void synchronizedWrapsOnlyUnsafeManagers() {
+        TaskManager concurrent = Managers.getConcurrent();
+        assertSame(concurrent, Managers.getSynchronized(concurrent));
+
+        TaskManager inMemory = Managers.getDefault();
+        TaskManager wrapped = Managers.getSynchronized(inMemory);
+        assertNotSame(inMemory, wrapped);
+        assertSame(wrapped, Managers.getSynchronized(wrapped));
+        wrapped.createTask(new Task("name", "description"));
+        assertEquals(inMemory.getTasks(), wrapped.getTasks());
+    }
+}
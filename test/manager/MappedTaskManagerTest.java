@@ -0,0 +1,292 @@
+package manager;
+
+import entity.BatchAction;
+import entity.BatchOperation;
+import entity.Epic;
+import entity.Status;
+import entity.Subtask;
+import entity.Task;
+import entity.TaskQuery;
+import entity.TaskTypes;
+import exception.ManagerLoadException;
+import exception.NotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedTaskManagerTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 9, 0);
+
+    private File file;
+    private MappedTaskManager taskManager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = File.createTempFile("mapped", ".tasks");
+        file.delete();
+        taskManager = MappedTaskManager.open(file);
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskManager.close();
+        file.delete();
+        MappedTaskStore.heapFileOf(file).delete();
+    }
+
+    private MappedTaskManager reopen() {
+        taskManager.close();
+        taskManager = MappedTaskManager.open(file);
+        return taskManager;
+    }
+
+    private static Task timed(String name, LocalDateTime start, long minutes) {
+        Task task = new Task(name, "description");
+        task.setStartTime(start);
+        task.setDuration(minutes);
+        return task;
+    }
+
+    private static List<String> lines(List<? extends Task> tasks) {
+        return tasks.stream().map(Task::toString).toList();
+    }
+
+    @Test
+    void tasksSurviveReopen() {
+        taskManager.createTask(timed("task", START, 30));
+        taskManager.createEpic(new Epic("epic", "описание"));
+        Subtask subtask = new Subtask("subtask", null, 2);
+        subtask.setStartTime(START.plusHours(1));
+        subtask.setDuration(15);
+        taskManager.createSubtask(subtask);
+        taskManager.updateTask(new Task("renamed", "longer description", Status.DONE, 1));
+        taskManager.createTask(new Task("removed", "description"));
+        taskManager.deleteTask(4);
+        List<String> tasks = lines(taskManager.getTasks());
+        List<String> subtasks = lines(taskManager.getSubtasks());
+        List<String> epics = lines(taskManager.getEpics());
+
+        MappedTaskManager reopened = reopen();
+        assertEquals(tasks, lines(reopened.getTasks()));
+        assertEquals(subtasks, lines(reopened.getSubtasks()));
+        assertEquals(epics, lines(reopened.getEpics()));
+        assertNull(reopened.getSubtask(3).getDescription());
+        assertThrows(NotFoundException.class, () -> reopened.getTask(4));
+        assertThrows(NotFoundException.class, () -> reopened.getTask(2));
+
+        // Идентификаторы продолжаются после последнего выданного, удалённые не переиспользуются
+        reopened.createTask(new Task("next", "description"));
+        assertEquals(5, reopened.getTasks().getLast().getId());
+    }
+
+    @Test
+    void epicFollowsSubtasks() {
+        taskManager.createEpic(new Epic("epic", "description"));
+        Subtask first = new Subtask("first", "description", 1);
+        first.setStartTime(START);
+        first.setDuration(10);
+        taskManager.createSubtask(first);
+        taskManager.createSubtask(new Subtask("second", "description", 1));
+
+        MappedTaskManager reopened = reopen();
+        reopened.updateSubtask(new Subtask("first", "description", Status.DONE, 2, 1));
+        Epic epic = reopened.getEpic(1);
+        assertEquals(Status.DONE, epic.getStatus());
+        assertEquals(List.of(2, 3), epic.getSubtaskIds().stream().sorted().toList());
+        assertNull(epic.getStartTime());
+
+        reopened.updateSubtask(new Subtask("second", "description", Status.IN_PROGRESS, 3, 1));
+        assertEquals(Status.IN_PROGRESS, reopened.getEpic(1).getStatus());
+        assertEquals(1, reopened.countByStatus(TaskTypes.EPIC, Status.IN_PROGRESS));
+
+        reopened.deleteEpic(1);
+        assertEquals(List.of(), reopened.getSubtasks());
+        assertEquals(0, reopened.countByStatus(Status.IN_PROGRESS));
+    }
+
+    @Test
+    void overlappingTimeIsRejectedAfterReopen() {
+        taskManager.createTask(timed("first", START, 30));
+        MappedTaskManager reopened = reopen();
+
+        assertThrows(IllegalArgumentException.class, () -> reopened.createTask(timed("second", START.plusMinutes(30), 5)));
+        reopened.createTask(timed("second", START.plusMinutes(31), 5));
+        reopened.createTask(timed("before", START.minusMinutes(10), 5));
+        assertEquals(List.of(3, 1, 2), reopened.getPrioritizedTasks().stream().map(Task::getId).toList());
+        assertEquals(List.of(1, 2), reopened.getTasksBetween(START.plusMinutes(10), START.plusHours(1))
+                .stream().map(Task::getId).toList());
+
+        // Перенос задачи освобождает её прежнее время
+        Task moved = timed("first", START.plusHours(2), 30);
+        moved.setId(1);
+        reopened.updateTask(moved);
+        reopened.createTask(timed("third", START, 30));
+        assertEquals(4, reopened.getPrioritizedTasks(START.minusMinutes(1), 1).getFirst().getId());
+    }
+
+    @Test
+    void searchAndBatch() {
+        taskManager.createTask(new Task("Купить молоко", "в магазине"));
+        taskManager.createEpic(new Epic("Переезд", "собрать вещи"));
+        MappedTaskManager reopened = reopen();
+        assertEquals(List.of(1), reopened.search("молоко", 10).stream().map(Task::getId).toList());
+
+        List<BatchOperation> invalid = List.of(
+                new BatchOperation(BatchAction.CREATE, new Subtask("упаковать", "коробки", 2)),
+                new BatchOperation(TaskTypes.TASK, 7));
+        assertThrows(NotFoundException.class, () -> reopened.applyBatch(invalid));
+        assertEquals(List.of(), reopened.getSubtasks());
+
+        List<Task> applied = reopened.applyBatch(List.of(
+                new BatchOperation(BatchAction.CREATE, new Subtask("упаковать", "коробки", 2)),
+                new BatchOperation(TaskTypes.TASK, 1)));
+        assertEquals(3, applied.getFirst().getId());
+        assertEquals(List.of(), reopened.getTasks());
+        assertEquals(List.of(3), reopened.search("коробки", 10).stream().map(Task::getId).toList());
+        assertEquals(List.of(), reopened.search("молоко", 10));
+    }
+
+    @Test
+    void filesGrowBeyondInitialMapping() {
+        String description = "x".repeat(1000);
+        for (int i = 0; i < 300; i++) {
+            taskManager.createTask(new Task("task" + i, description));
+        }
+        MappedTaskManager reopened = reopen();
+        assertEquals(300, reopened.getTasks().size());
+        assertEquals(description, reopened.getTask(300).getDescription());
+    }
+
+    @Test
+    void foreignFileIsRejected() throws IOException {
+        File foreign = File.createTempFile("foreign", ".csv");
+        Files.writeString(foreign.toPath(), "id,type,name,status,description,startTime,endTime,duration,epic");
+        assertThrows(ManagerLoadException.class, () -> MappedTaskManager.open(foreign));
+        assertEquals(63, foreign.length());
+        foreign.delete();
+        MappedTaskStore.heapFileOf(foreign).delete();
+    }
+
+    @Test
+    void cachedTextFollowsUpdates() {
+        taskManager.close();
+        taskManager = MappedTaskManager.open(file, 100);
+        taskManager.createTask(new Task("name", "description"));
+        taskManager.createTask(new Task("other", "x".repeat(200)));
+        assertEquals("description", taskManager.getTask(1).getDescription());
+
+        // Строки в кеше заменяются при изменении и удалении задачи
+        taskManager.updateTask(new Task("name", "новое описание", Status.NEW, 1));
+        assertEquals("новое описание", taskManager.getTask(1).getDescription());
+        taskManager.updateTask(new Task("name", null, Status.NEW, 1));
+        assertNull(taskManager.getTask(1).getDescription());
+        assertEquals("x".repeat(200), taskManager.getTask(2).getDescription());
+        taskManager.deleteTask(1);
+        assertThrows(NotFoundException.class, () -> taskManager.getTask(1));
+        assertEquals(List.of(2), taskManager.search("other", 10).stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void pagesAreFilteredBeforeReading() {
+        taskManager.createTask(timed("first", START, 30));
+        taskManager.createEpic(new Epic("epic", "description"));
+        taskManager.createTask(timed("second", START.plusHours(1), 30));
+        taskManager.createTask(new Task("untimed", "description"));
+        MappedTaskManager reopened = reopen();
+
+        assertEquals(List.of(1, 3), reopened.getTasks(new TaskQuery(0, 2)).stream().map(Task::getId).toList());
+        assertEquals(List.of(4), reopened.getTasks(new TaskQuery(3, 2)).stream().map(Task::getId).toList());
+        assertEquals(List.of(3), reopened.getTasks(new TaskQuery(0, 10).withTimeRange(START.plusMinutes(30), null))
+                .stream().map(Task::getId).toList());
+        assertEquals(List.of(2), reopened.getEpics(new TaskQuery(0, 10).withStatus(Status.NEW))
+                .stream().map(Task::getId).toList());
+        assertEquals(List.of(), reopened.getSubtasks(new TaskQuery(0, 10)));
+    }
+
+    @Test
+    void versionsFollowStoredChanges() {
+        taskManager.createEpic(new Epic("epic", "description"));
+        taskManager.createSubtask(new Subtask("subtask", "description", 1));
+        long epic = taskManager.getVersion(TaskTypes.EPIC, 1);
+        long prioritized = taskManager.getPrioritizedVersion();
+        long history = taskManager.getHistoryVersion();
+
+        taskManager.getSubtask(2);
+        assertTrue(taskManager.getHistoryVersion() > history);
+        assertEquals(epic, taskManager.getVersion(TaskTypes.EPIC, 1));
+
+        taskManager.updateSubtask(new Subtask("subtask", "description", Status.DONE, 2, 1));
+        assertTrue(taskManager.getVersion(TaskTypes.EPIC, 1) > epic);
+        assertTrue(taskManager.getPrioritizedVersion() > prioritized);
+
+        long subtasks = taskManager.getVersion(TaskTypes.SUBTASK);
+        taskManager.deleteEpic(1);
+        assertTrue(taskManager.getVersion(TaskTypes.SUBTASK) > subtasks);
+    }
+
+    @Test
+    void updateKeepsTypeOfSlot() {
+        taskManager.createEpic(new Epic("epic", "description"));
+        taskManager.createSubtask(new Subtask("subtask", "description", 1));
+        taskManager.createTask(new Task("task", "description"));
+
+        assertThrows(NotFoundException.class,
+                () -> taskManager.updateTask(new Task("task", "description", Status.DONE, 2)));
+        assertThrows(NotFoundException.class,
+                () -> taskManager.updateSubtask(new Subtask("subtask", "description", Status.DONE, 3, 1)));
+        assertThrows(NotFoundException.class, () -> taskManager.updateEpic(new Epic("epic", "description", 2)));
+        // Идентификатор за концом файла не сдвигает счётчик
+        assertThrows(NotFoundException.class,
+                () -> taskManager.updateTask(new Task("task", "description", Status.DONE, 100)));
+
+        assertEquals(List.of(2), taskManager.getEpic(1).getSubtaskIds().stream().toList());
+        assertEquals(Status.NEW, taskManager.getSubtask(2).getStatus());
+        taskManager.createTask(new Task("next", "description"));
+        assertEquals(4, taskManager.getTasks().getLast().getId());
+    }
+
+    @Test
+    void pagesSkipIdsOfOtherTypes() {
+        taskManager.createTask(new Task("first", "description"));
+        for (int i = 0; i < 3000; i++) {
+            taskManager.createEpic(new Epic("epic" + i, "description"));
+        }
+        taskManager.createTask(timed("second", START, 30));
+        taskManager.createTask(new Task("third", "description"));
+        MappedTaskManager reopened = reopen();
+
+        assertEquals(List.of(1, 3002), reopened.getTasks(new TaskQuery(0, 2)).stream().map(Task::getId).toList());
+        assertEquals(List.of(3003), reopened.getTasks(new TaskQuery(3002, 2)).stream().map(Task::getId).toList());
+        assertEquals(List.of(3002), reopened.getTasks(new TaskQuery(0, 10).withTimeRange(START, START.plusHours(1)))
+                .stream().map(Task::getId).toList());
+        assertEquals(List.of(2999, 3000), reopened.getEpics(new TaskQuery(2998, 2)).stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void historyReadsTasksWhenRequested() {
+        taskManager.createTask(new Task("first", "description"));
+        taskManager.createEpic(new Epic("epic", "description"));
+        taskManager.createSubtask(new Subtask("subtask", "description", 2));
+        taskManager.getTask(1);
+        taskManager.getEpic(2);
+        taskManager.getTask(1);
+
+        // История хранит id, поэтому показывает задачи в текущем виде
+        taskManager.updateTask(new Task("renamed", "description", Status.DONE, 1));
+        List<Task> history = taskManager.getHistory();
+        assertEquals(List.of(2, 1), history.stream().map(Task::getId).toList());
+        assertEquals("renamed", history.getLast().getName());
+        assertEquals(List.of(3), List.copyOf(((Epic) history.getFirst()).getSubtaskIds()));
+
+        taskManager.deleteAllEpics();
+        assertEquals(List.of(1), taskManager.getHistory().stream().map(Task::getId).toList());
+    }
+}
@@ -0,0 +1,74 @@
+package manager;
+
+import entity.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+    private SearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SearchIndex();
+    }
+
+    private Task task(int id, String name, String description) {
+        Task task = new Task(name, description);
+        task.setId(id);
+        return task;
+    }
+
+    @Test
+    void tokenize() {
+        assertEquals(List.of("купить", "молоко", "2", "л", "milk"), SearchIndex.tokenize("Купить МОЛОКО, 2 л. (milk)"));
+        assertEquals(List.of(), SearchIndex.tokenize(null));
+        assertEquals(List.of(), SearchIndex.tokenize(" ,.! "));
+    }
+
+    @Test
+    void searchRanksNameAboveDescription() {
+        index.update(task(1, "Отчёт", "Подготовить квартальный отчёт"));
+        index.update(task(2, "Встреча", "Обсудить отчёт"));
+        index.update(task(3, "Покупки", "Купить хлеб"));
+
+        assertArrayEquals(new int[]{1, 2}, index.search("отчёт", 10));
+        assertArrayEquals(new int[]{3}, index.search("ХЛЕБ", 10));
+        assertArrayEquals(new int[0], index.search("билеты", 10));
+        assertArrayEquals(new int[0], index.search("", 10));
+    }
+
+    @Test
+    void searchPrefersRareTermsAndMoreMatches() {
+        index.update(task(1, "a", "общий"));
+        index.update(task(2, "b", "общий"));
+        index.update(task(3, "c", "общий редкий"));
+
+        assertArrayEquals(new int[]{3, 1, 2}, index.search("общий редкий", 10));
+        assertArrayEquals(new int[]{3}, index.search("общий редкий", 1));
+        assertArrayEquals(new int[0], index.search("общий", 0));
+    }
+
+    @Test
+    void updateReplacesOldTerms() {
+        index.update(task(1, "Старое название", "описание"));
+        index.update(task(1, "Новое название", "описание"));
+
+        assertArrayEquals(new int[0], index.search("старое", 10));
+        assertArrayEquals(new int[]{1}, index.search("новое", 10));
+        assertArrayEquals(new int[]{1}, index.search("название описание", 10));
+    }
+
+    @Test
+    void remove() {
+        index.update(task(1, "Задача", "один"));
+        index.update(task(2, "Задача", "два"));
+        index.remove(1);
+        index.remove(5);
+
+        assertArrayEquals(new int[]{2}, index.search("задача один", 10));
+    }
+}
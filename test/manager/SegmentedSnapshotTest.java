@@ -0,0 +1,172 @@
+package manager;
+
+import entity.BatchAction;
+import entity.BatchOperation;
+import entity.Epic;
+import entity.Status;
+import entity.Subtask;
+import entity.Task;
+import entity.TaskTypes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedSnapshotTest {
+    private File directory;
+    private FileBackedTaskManager taskManager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("segments").toFile();
+        taskManager = new FileBackedTaskManager(directory, StorageFormat.SEGMENTED);
+    }
+
+    @AfterEach
+    void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    // Задачи с id от 1 до count, то есть в сегментах от 0 до count / SEGMENT_IDS
+    private void createTasks(int count) {
+        List<BatchOperation> operations = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            operations.add(new BatchOperation(BatchAction.CREATE, new Task("task" + i, "description")));
+        }
+        taskManager.applyBatch(operations);
+    }
+
+    private Object fileKey(int segment) throws IOException {
+        return Files.readAttributes(SegmentedSnapshot.segmentFile(directory, segment).toPath(),
+                BasicFileAttributes.class).fileKey();
+    }
+
+    private static List<String> lines(List<? extends Task> tasks) {
+        return tasks.stream().map(Task::toString).toList();
+    }
+
+    @Test
+    void saveRewritesOnlyChangedSegments() throws IOException {
+        createTasks(2100);
+        Object first = fileKey(0);
+        Object second = fileKey(1);
+        Object third = fileKey(2);
+
+        taskManager.updateTask(new Task("renamed", "description", Status.DONE, 1500));
+        assertEquals(first, fileKey(0));
+        assertNotEquals(second, fileKey(1));
+        assertEquals(third, fileKey(2));
+
+        // Сегмент, в котором не осталось задач, удаляется
+        List<BatchOperation> deletes = new ArrayList<>();
+        for (int id = 2048; id <= 2100; id++) {
+            deletes.add(new BatchOperation(TaskTypes.TASK, id));
+        }
+        taskManager.applyBatch(deletes);
+        assertNull(SegmentedSnapshot.segmentFile(directory, 2));
+        assertEquals(first, fileKey(0));
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(directory);
+        assertEquals(StorageFormat.SEGMENTED, loaded.getFormat());
+        assertEquals(lines(taskManager.getTasks()), lines(loaded.getTasks()));
+        assertEquals("renamed", loaded.getTask(1500).getName());
+    }
+
+    @Test
+    void epicAndSubtasksInDifferentSegments() {
+        createTasks(1100);
+        taskManager.createEpic(new Epic("epic", "description"));
+        taskManager.deleteTask(5);
+        taskManager.createSubtask(new Subtask("subtask", "description", 1101));
+        taskManager.updateSubtask(new Subtask("subtask", "description", Status.DONE, 1102, 1101));
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(directory);
+        assertEquals(Status.DONE, loaded.getEpic(1101).getStatus());
+        assertEquals(List.of(1102), loaded.getEpic(1101).getSubtaskIds().stream().toList());
+        assertEquals(1099, loaded.getTasks().size());
+
+        taskManager.deleteAllTasks();
+        assertNull(SegmentedSnapshot.segmentFile(directory, 0));
+        loaded = FileBackedTaskManager.loadFromFile(directory);
+        assertEquals(List.of(), loaded.getTasks());
+        assertEquals(1, loaded.getEpics().size());
+    }
+
+    @Test
+    void corruptedSegmentFallsBackToPreviousGeneration() throws IOException {
+        createTasks(3);
+        taskManager.updateTask(new Task("renamed", "description", Status.DONE, 2));
+        File segment = SegmentedSnapshot.segmentFile(directory, 0);
+        Files.writeString(segment.toPath(), Files.readString(segment.toPath()).replace("renamed", "damaged"));
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(directory);
+        assertEquals("task2", loaded.getTask(2).getName());
+        assertEquals(3, loaded.getTasks().size());
+    }
+
+    @Test
+    void interruptedReplacementKeepsPreviousGeneration() throws IOException {
+        createTasks(3);
+        File manifest = SegmentedSnapshot.manifestFile(directory);
+        // Сбой между переименованиями: текущего манифеста нет, осталось только предыдущее поколение
+        Files.move(manifest.toPath(), FileBackedTaskManager.previousGenerationOf(manifest).toPath());
+
+        assertEquals(3, FileBackedTaskManager.loadFromFile(directory).getTasks().size());
+    }
+
+    @Test
+    void exportToSegments() throws IOException {
+        createTasks(1500);
+        File exported = Files.createTempDirectory("exported").toFile();
+        try {
+            taskManager.exportTo(exported, StorageFormat.SEGMENTED);
+            assertEquals(lines(taskManager.getTasks()),
+                    lines(FileBackedTaskManager.loadFromFile(exported).getTasks()));
+        } finally {
+            for (File file : exported.listFiles()) {
+                file.delete();
+            }
+            exported.delete();
+        }
+    }
+
+    @Test
+    void changeAcrossSegmentsFallsBackAsWhole() throws IOException {
+        taskManager.createEpic(new Epic("epic", "description"));
+        createTasks(1100);
+        taskManager.createSubtask(new Subtask("subtask", "description", 1));
+        // Эпик в сегменте 0, его подзадача в сегменте 1: удаление меняет оба сегмента в одном поколении
+        taskManager.deleteEpic(1);
+        File segment = SegmentedSnapshot.segmentFile(directory, 1);
+        Files.writeString(segment.toPath(), Files.readString(segment.toPath()).replace("task1100", "damaged"));
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(directory);
+        assertEquals(List.of(1102), loaded.getEpic(1).getSubtaskIds().stream().toList());
+        loaded.updateSubtask(new Subtask("renamed", "description", Status.DONE, 1102, 1));
+        assertEquals(Status.DONE, loaded.getEpic(1).getStatus());
+
+        // Следующее сохранение не делает повреждённое поколение предыдущим
+        FileBackedTaskManager.loadFromFile(directory).deleteTask(2);
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(directory);
+        assertEquals(1099, reloaded.getTasks().size());
+        assertEquals(1, reloaded.getSubtasks().size());
+        Files.delete(SegmentedSnapshot.manifestFile(directory).toPath());
+        FileBackedTaskManager previous = FileBackedTaskManager.loadFromFile(directory);
+        assertEquals(1100, previous.getTasks().size());
+        assertEquals(1, previous.getEpics().size());
+    }
+}
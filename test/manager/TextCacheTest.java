@@ -0,0 +1,40 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextCacheTest {
+    @Test
+    void leastRecentlyReadTextIsEvicted() {
+        TextCache cache = new TextCache(10);
+        cache.put(1, "ab", "cd");
+        cache.put(2, "ef", null);
+        cache.put(3, "gh", "ij");
+        assertNotNull(cache.get(1));
+
+        // Место освобождается за счёт задачи 2, которую дольше всего не читали
+        cache.put(4, "kl", null);
+        assertNull(cache.get(2));
+        assertArrayEquals(new String[]{"ab", "cd"}, cache.get(1));
+        assertEquals(3, cache.size());
+        assertTrue(cache.chars() <= 10);
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void replacedAndOversizedTextIsNotKept() {
+        TextCache cache = new TextCache(10);
+        cache.put(1, "abc", "def");
+        cache.put(1, "a", null);
+        assertEquals(1, cache.chars());
+        assertArrayEquals(new String[]{"a", null}, cache.get(1));
+
+        cache.put(2, "x".repeat(11), null);
+        assertNull(cache.get(2));
+        cache.remove(1);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.chars());
+    }
+}
@@ -0,0 +1,56 @@
+package manager;
+
+import entity.Status;
+import entity.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeSlotIndexTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private Task task(int id, int startMinute, int duration) {
+        Task task = new Task("task" + id, "description", Status.NEW, id);
+        task.setStartTime(BASE.plusMinutes(startMinute));
+        task.setDuration(duration);
+        return task;
+    }
+
+    @Test
+    void overlapsOnMinuteGrid() {
+        TimeSlotIndex index = new TimeSlotIndex(Duration.ofMinutes(1));
+        index.add(task(1, 10, 10));
+
+        assertTrue(index.overlaps(task(2, 10, 0)));
+        assertTrue(index.overlaps(task(2, 15, 30)));
+        assertTrue(index.overlaps(task(2, 0, 10)));
+        assertTrue(index.overlaps(task(2, 20, 5)));
+        assertFalse(index.overlaps(task(2, 0, 9)));
+        assertFalse(index.overlaps(task(2, 21, 5)));
+    }
+
+    @Test
+    void overlapsAcrossPages() {
+        TimeSlotIndex index = new TimeSlotIndex(Duration.ofMinutes(1));
+        Task longTask = task(1, 4000, 10_000);
+        index.add(longTask);
+
+        assertTrue(index.overlaps(task(2, 9000, 1)));
+        assertFalse(index.overlaps(task(2, 14_001, 100)));
+
+        index.remove(longTask);
+        assertFalse(index.overlaps(task(2, 9000, 1)));
+    }
+
+    @Test
+    void managerUsesTimeSlots() {
+        TaskManager manager = Managers.getWithTimeSlots(Duration.ofMinutes(15));
+        manager.createTask(task(1, 0, 10));
+
+        assertThrows(IllegalArgumentException.class, () -> manager.createTask(task(2, 14, 1)));
+        assertDoesNotThrow(() -> manager.createTask(task(3, 15, 10)));
+    }
+}
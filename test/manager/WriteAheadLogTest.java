@@ -0,0 +1,94 @@
+package manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+    private File file;
+    private File sealed;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = File.createTempFile("log", ".wal");
+        sealed = new File(file.getPath() + ".sealed");
+    }
+
+    @AfterEach
+    void tearDown() {
+        file.delete();
+        sealed.delete();
+    }
+
+    private static List<String> records(int count) {
+        List<String> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            records.add("U," + i);
+        }
+        return records;
+    }
+
+    private void appendAndCheck(DurabilityPolicy durability) {
+        WriteAheadLog log = new WriteAheadLog(file, durability);
+        List<String> records = records(1000);
+        records.forEach(log::append);
+        assertEquals(1000, log.records());
+
+        log.flushPending();
+        assertEquals(records, new WriteAheadLog(file).read());
+        log.close();
+    }
+
+    @Test
+    void sync() {
+        appendAndCheck(DurabilityPolicy.sync());
+    }
+
+    @Test
+    void groupCommit() {
+        appendAndCheck(DurabilityPolicy.groupCommit(Duration.ofMillis(5), 64));
+    }
+
+    @Test
+    void groupCommitWritesBeforeFlush() {
+        WriteAheadLog log = new WriteAheadLog(file, DurabilityPolicy.groupCommit(Duration.ofHours(1), 1000));
+        log.append("U,1");
+        // Запись уже в файле, хотя на диск её ещё не сбрасывали
+        assertEquals(List.of("U,1"), new WriteAheadLog(file).read());
+        log.close();
+    }
+
+    @Test
+    void asyncWithSmallQueue() {
+        appendAndCheck(DurabilityPolicy.async(4));
+    }
+
+    @Test
+    void rotateWaitsForQueuedRecords() {
+        WriteAheadLog log = new WriteAheadLog(file, DurabilityPolicy.async(16));
+        List<String> records = records(100);
+        records.forEach(log::append);
+        log.rotateTo(sealed);
+        log.append("U,next");
+        log.close();
+
+        assertEquals(records, new WriteAheadLog(sealed).read());
+        assertEquals(List.of("U,next"), new WriteAheadLog(file).read());
+        assertEquals(("U,next" + System.lineSeparator()).length(), log.size());
+    }
+
+    @Test
+    void invalidPolicy() {
+        assertThrows(IllegalArgumentException.class, () -> DurabilityPolicy.groupCommit(Duration.ZERO, 10));
+        assertThrows(IllegalArgumentException.class, () -> DurabilityPolicy.groupCommit(Duration.ofMillis(1), 0));
+        assertThrows(IllegalArgumentException.class, () -> DurabilityPolicy.async(0));
+    }
+}
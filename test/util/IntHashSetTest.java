@@ -0,0 +1,57 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntHashSetTest {
+
+    @Test
+    void addContainsRemove() {
+        IntHashSet set = new IntHashSet();
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.add(-5));
+        assertTrue(set.contains(0));
+        assertTrue(set.remove(0));
+        assertFalse(set.contains(0));
+        assertEquals(Set.of(-5), set);
+    }
+
+    @Test
+    void matchesHashSet() {
+        Random random = new Random(7);
+        Set<Integer> expected = new HashSet<>();
+        IntHashSet set = new IntHashSet();
+        for (int i = 0; i < 100_000; i++) {
+            int element = random.nextInt(2_000);
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(element), set.add(element));
+            } else {
+                assertEquals(expected.remove(element), set.remove(element));
+            }
+        }
+        assertEquals(expected, set);
+        assertEquals(set, expected);
+    }
+
+    @Test
+    void iteratorRemove() {
+        IntHashSet set = new IntHashSet();
+        for (int i = 0; i < 10; i++) {
+            set.add(i);
+        }
+        Iterator<Integer> iterator = set.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertEquals(Set.of(1, 3, 5, 7, 9), set);
+    }
+}
@@ -0,0 +1,65 @@
+package util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntObjectHashMapTest {
+    private IntObjectHashMap<String> map;
+
+    @BeforeEach
+    void setUp() {
+        map = new IntObjectHashMap<>();
+    }
+
+    @Test
+    void putGetRemove() {
+        assertNull(map.put(1, "one"));
+        assertEquals("one", map.put(1, "uno"));
+        assertEquals("uno", map.get(1));
+        assertTrue(map.containsKey(1));
+        assertEquals("uno", map.remove(1));
+        assertNull(map.get(1));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void valuesKeepInsertionOrder() {
+        for (int i = 1; i <= 100; i++) {
+            map.put(i, "v" + i);
+        }
+        map.remove(50);
+        map.put(7, "seven");
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            if (i != 50) {
+                expected.add(i == 7 ? "seven" : "v" + i);
+            }
+        }
+        assertEquals(expected, new ArrayList<>(map.values()));
+    }
+
+    @Test
+    void matchesHashMap() {
+        Random random = new Random(7);
+        Map<Integer, String> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(5_000) - 1_000;
+            if (random.nextBoolean()) {
+                assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+    }
+}